@@ -0,0 +1,56 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.bench;
+
+import y.module.Document;
+
+/**
+ * Benchmark is one measured operation, run by BenchmarkRunner in the 
+ * same way as a JMH benchmark in "average time" mode: setUp() once per 
+ * document, then run() again and again for the warmup and measurement 
+ * iterations, then tearDown(). <br>
+ * <b>NOTE</b>: run() must leave the document as it found it, so the 
+ * next call measures the same thing. 
+ * 
+ * @author y&y
+ */
+public abstract class Benchmark {
+
+    private final String name;
+
+    protected Benchmark(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the name used in the results. 
+     * 
+     * @return The name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Prepare the benchmark on the generated document. 
+     * 
+     * @param document The composed document, it has no view.
+     * @throws Exception If it cannot be prepared.
+     */
+    public void setUp(Document document) throws Exception {}
+
+    /**
+     * Run the operation once. 
+     * 
+     * @return Any result, so the JIT cannot remove the operation.
+     * @throws Exception If the operation failed.
+     */
+    public abstract Object run() throws Exception;
+
+    /**
+     * Release what setUp() created. 
+     */
+    public void tearDown() {}
+}
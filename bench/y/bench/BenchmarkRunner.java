@@ -0,0 +1,204 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.bench;
+
+import java.io.*;
+import java.util.*;
+
+import y.module.Document;
+import y.view.Application;
+
+/**
+ * BenchmarkRunner runs the benchmarks on generated documents of each 
+ * size and writes the results as JSON. It follows JMH in "average time" 
+ * mode: warmup iterations, then measurement iterations of a fixed time, 
+ * and the score is the mean time per operation with its 99.9% 
+ * confidence interval. The JSON has the same layout as the JMH result 
+ * file, so the same tools can compare two releases. <br>
+ * 
+ * Run it by "ant benchmark", or: <br>
+ * <code>
+ *     java -Dy.headless=true y.bench.BenchmarkRunner [-sizes 1KB,100KB,10MB] 
+ *         [-warmup 3] [-iterations 5] [-time 1000] [-filter name] [-out bench-results.json]
+ * </code>
+ * The default sizes stop at 10MB. Add 100MB by "-sizes 1KB,100KB,10MB,100MB", 
+ * or "ant benchmark -Dbench.sizes=1KB,100KB,10MB,100MB", it needs a large heap. <br>
+ * 
+ * @author y&y
+ */
+public final class BenchmarkRunner {
+
+    // z of the 99.9% confidence interval:
+    private static final double Z_999 = 3.291;
+
+    // keep the results so the JIT cannot remove the operations:
+    private static volatile Object sink;
+
+    private String[] sizes = { "1KB", "100KB", "10MB" };
+    private int warmup = 3;
+    private int iterations = 5;
+    private int time = 1000;
+    private String filter = null;
+    private String out = "bench-results.json";
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        for(int i=0; i+1<args.length; i+=2) {
+            String name = args[i];
+            String value = args[i+1];
+            if(name.equals("-sizes"))
+                runner.sizes = value.split(",");
+            else if(name.equals("-warmup"))
+                runner.warmup = Integer.parseInt(value);
+            else if(name.equals("-iterations"))
+                runner.iterations = Integer.parseInt(value);
+            else if(name.equals("-time"))
+                runner.time = Integer.parseInt(value);
+            else if(name.equals("-filter"))
+                runner.filter = value;
+            else if(name.equals("-out"))
+                runner.out = value;
+            else
+                throw new IllegalArgumentException("Unknown option: " + name);
+        }
+        Application.instance().setHeadless(true);
+        runner.run();
+    }
+
+    private void run() throws Exception {
+        Writer json = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out), "UTF-8"));
+        boolean first = true;
+        json.write("[\n");
+        try {
+            for(int s=0; s<sizes.length; s++) {
+                String size = sizes[s].trim();
+                Document doc = Documents.createDocument(Documents.parseSize(size));
+                System.out.println("# size " + size + ": " + doc.getParagraphCount()
+                    + " paragraphs, " + doc.getPageCount() + " pages");
+                Benchmark[] all = ModelBenchmarks.all();
+                for(int b=0; b<all.length; b++) {
+                    if(filter!=null && all[b].getName().indexOf(filter)<0)
+                        continue;
+                    double[] raw = measure(all[b], doc);
+                    double[] score = score(raw);
+                    System.out.println(all[b].getName() + " [" + size + "]: "
+                        + format(score[0]) + " +- " + format(score[1]) + " us/op");
+                    if(!first)
+                        json.write(",\n");
+                    first = false;
+                    writeResult(json, all[b].getName(), size, score, raw);
+                }
+            }
+        }
+        finally {
+            json.write("\n]\n");
+            json.close();
+        }
+        System.out.println("# results written to " + out);
+    }
+
+    // return the us/op of each measurement iteration:
+    private double[] measure(Benchmark b, Document doc) throws Exception {
+        b.setUp(doc);
+        try {
+            for(int i=0; i<warmup; i++)
+                iteration(b);
+            double[] raw = new double[iterations];
+            for(int i=0; i<iterations; i++)
+                raw[i] = iteration(b);
+            return raw;
+        }
+        finally {
+            b.tearDown();
+            // make sure the next benchmark starts on a composed document:
+            doc.compose();
+        }
+    }
+
+    // run the operation for 'time' ms (at least once) and return us/op:
+    private double iteration(Benchmark b) throws Exception {
+        long nanos = time * 1000000L;
+        long ops = 0;
+        int batch = 1;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for(int i=0; i<batch; i++)
+                sink = b.run();
+            ops += batch;
+            elapsed = System.nanoTime() - start;
+            // grow the batch while it is short, so the clock is read rarely:
+            if(elapsed<nanos/4 && batch<(1<<20))
+                batch <<= 1;
+        } while(elapsed<nanos);
+        return elapsed / 1000.0 / ops;
+    }
+
+    // return {mean, error}:
+    private static double[] score(double[] raw) {
+        double sum = 0;
+        for(int i=0; i<raw.length; i++)
+            sum += raw[i];
+        double mean = sum / raw.length;
+        if(raw.length<2)
+            return new double[] { mean, Double.NaN };
+        double var = 0;
+        for(int i=0; i<raw.length; i++)
+            var += (raw[i] - mean) * (raw[i] - mean);
+        double sd = Math.sqrt(var / (raw.length - 1));
+        return new double[] { mean, Z_999 * sd / Math.sqrt(raw.length) };
+    }
+
+    private void writeResult(Writer w, String name, String size, double[] score, double[] raw)
+        throws IOException
+    {
+        w.write("    {\n");
+        w.write("        \"benchmark\" : \"" + name + "\",\n");
+        w.write("        \"mode\" : \"avgt\",\n");
+        w.write("        \"threads\" : 1,\n");
+        w.write("        \"forks\" : 0,\n");
+        w.write("        \"jvm\" : \"" + escape(System.getProperty("java.home")) + "\",\n");
+        w.write("        \"jdkVersion\" : \"" + escape(System.getProperty("java.version")) + "\",\n");
+        w.write("        \"warmupIterations\" : " + warmup + ",\n");
+        w.write("        \"warmupTime\" : \"" + time + " ms\",\n");
+        w.write("        \"measurementIterations\" : " + iterations + ",\n");
+        w.write("        \"measurementTime\" : \"" + time + " ms\",\n");
+        w.write("        \"params\" : {\n");
+        w.write("            \"size\" : \"" + size + "\"\n");
+        w.write("        },\n");
+        w.write("        \"primaryMetric\" : {\n");
+        w.write("            \"score\" : " + number(score[0]) + ",\n");
+        w.write("            \"scoreError\" : " + number(score[1]) + ",\n");
+        w.write("            \"scoreUnit\" : \"us/op\",\n");
+        w.write("            \"rawData\" : [\n                [\n");
+        for(int i=0; i<raw.length; i++)
+            w.write("                    " + number(raw[i]) + (i+1<raw.length ? ",\n" : "\n"));
+        w.write("                ]\n            ]\n");
+        w.write("        }\n");
+        w.write("    }");
+    }
+
+    // JSON has no NaN:
+    private static String number(double d) {
+        if(Double.isNaN(d) || Double.isInfinite(d))
+            return "\"NaN\"";
+        return String.valueOf(d);
+    }
+
+    private static String escape(String s) {
+        StringBuffer sb = new StringBuffer();
+        for(int i=0; i<s.length(); i++) {
+            char c = s.charAt(i);
+            if(c=='"' || c=='\\')
+                sb.append('\\');
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static String format(double d) {
+        return String.valueOf(Math.round(d * 1000) / 1000.0);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.bench;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+import javax.imageio.ImageIO;
+
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.RGB;
+
+import y.module.AbsPosition;
+import y.module.Document;
+import y.module.DocumentText;
+import y.view.Application;
+
+/**
+ * Checks runs the regression checks of the bugs that were fixed, on
+ * generated data and without a display. Each check throws an
+ * IllegalStateException when it fails, so the run stops with an error. <br>
+ *
+ * Run it by "ant check", or: <br>
+ * <code>
+ *     java -Dy.headless=true y.bench.Checks
+ * </code>
+ *
+ * @author y&y
+ */
+public final class Checks {
+
+    private Checks() {}
+
+    public static void main(String[] args) throws Exception {
+        Application.instance().setHeadless(true);
+        checkDocumentTextEnd();
+        checkPngTrailingChunk();
+        System.out.println("all checks passed");
+    }
+
+    // the end of the text is before the '\r' of the last paragraph:
+    private static void checkDocumentTextEnd() throws Exception {
+        Document doc = Documents.createDocument(4 * 1024);
+        DocumentText text = new DocumentText(doc);
+        int last = doc.getParagraphCount() - 1;
+        AbsPosition end = text.toAbsPosition(text.length());
+        check("DocumentText end", end.getParagraphIndex()==last
+            && end.getInsertIndex()==doc.getParagraph(last).getGlyphsCount() - 1);
+
+        // every '\r' is a valid insert position, the offset after it is the next paragraph:
+        for(int i=0; i<last; i++) {
+            int r = text.toOffset(i + 1, 0) - 1;
+            AbsPosition p = text.toAbsPosition(r);
+            check("DocumentText '\\r' of paragraph " + i, p.getParagraphIndex()==i
+                && p.getInsertIndex()==doc.getParagraph(i).getGlyphsCount() - 1);
+        }
+
+        // a view of the first paragraph ends before its '\r' too:
+        DocumentText first = new DocumentText(doc, 0, 1);
+        end = first.toAbsPosition(first.length());
+        check("DocumentText end of one paragraph", end.getParagraphIndex()==0
+            && end.getInsertIndex()==doc.getParagraph(0).getGlyphsCount() - 1);
+        System.out.println("DocumentText end: ok");
+    }
+
+    // the chunks after IDAT must be left to the chunk loop:
+    private static void checkPngTrailingChunk() throws IOException {
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        for(int y=0; y<48; y++) {
+            for(int x=0; x<64; x++)
+                image.setRGB(x, y, (x * 4<<16) | (y * 5<<8) | ((x ^ y) & 0xff));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        byte[] png = out.toByteArray();
+
+        // insert the tEXt chunk before IEND, the last 12 bytes:
+        byte[] type = "tEXt".getBytes("ISO-8859-1");
+        byte[] text = "Comment\0written after the image data".getBytes("ISO-8859-1");
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(text);
+        out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(png, 0, png.length - 12);
+        data.writeInt(text.length);
+        data.write(type);
+        data.write(text);
+        data.writeInt((int)crc.getValue());
+        data.write(png, png.length - 12, 12);
+
+        ImageData loaded = new ImageData(new ByteArrayInputStream(out.toByteArray()));
+        for(int y=0; y<48; y++) {
+            for(int x=0; x<64; x++) {
+                RGB rgb = loaded.palette.getRGB(loaded.getPixel(x, y));
+                check("PNG with tEXt after IDAT, pixel " + x + "," + y,
+                    ((rgb.red<<16) | (rgb.green<<8) | rgb.blue)==(image.getRGB(x, y) & 0xffffff));
+            }
+        }
+        System.out.println("PNG with tEXt after IDAT: ok");
+    }
+
+    private static void check(String name, boolean ok) {
+        if(!ok)
+            throw new IllegalStateException(name + ": failed");
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.bench;
+
+import java.io.*;
+import java.util.*;
+
+import y.module.Document;
+import y.module.Paragraph;
+import y.module.TextImporter;
+
+/**
+ * Documents generates the text and the documents used by the benchmarks. 
+ * The text is random words from a fixed seed, so every run measures 
+ * the same documents. 
+ * 
+ * @author y&y
+ */
+public final class Documents {
+
+    private static final String[] WORDS = {
+        "the", "document", "is", "composed", "into", "rows", "and", "pages",
+        "paragraph", "format", "layout", "a", "of", "to", "with", "compositor",
+        "measure", "width", "font", "height", "glyph", "caret", "editor", "text"
+    };
+
+    private Documents() {}
+
+    /**
+     * Parse a size like "1KB", "10MB" or "4096". 
+     * 
+     * @param size The size string.
+     * @return The size in bytes.
+     */
+    public static long parseSize(String size) {
+        String s = size.trim().toUpperCase();
+        long unit = 1;
+        if(s.endsWith("KB"))
+            unit = 1024;
+        else if(s.endsWith("MB"))
+            unit = 1024 * 1024;
+        if(unit>1)
+            s = s.substring(0, s.length() - 2);
+        return Long.parseLong(s.trim()) * unit;
+    }
+
+    /**
+     * Create a text file of the specified count of paragraphs. 
+     * 
+     * @param paragraphs How many paragraphs.
+     * @return The temporary file, delete it after use.
+     * @throws IOException If there is any IO error.
+     */
+    public static File createText(int paragraphs) throws IOException {
+        return createText(paragraphs, Long.MAX_VALUE);
+    }
+
+    /**
+     * Create a text file of about the specified size. 
+     * 
+     * @param bytes The size of the file.
+     * @return The temporary file, delete it after use.
+     * @throws IOException If there is any IO error.
+     */
+    public static File createTextOfSize(long bytes) throws IOException {
+        return createText(Integer.MAX_VALUE, bytes);
+    }
+
+    private static File createText(int paragraphs, long bytes) throws IOException {
+        File file = File.createTempFile("bench", ".txt");
+        Random random = new Random(2026);
+        Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        long size = 0;
+        try {
+            for(int i=0; i<paragraphs && size<bytes; i++) {
+                int n = 20 + random.nextInt(100);
+                for(int j=0; j<n && size<bytes; j++) {
+                    String word = WORDS[random.nextInt(WORDS.length)];
+                    if(j>0) {
+                        w.write(' ');
+                        size++;
+                    }
+                    w.write(word);
+                    size += word.length();
+                }
+                w.write('\n');
+                size++;
+            }
+        }
+        finally {
+            w.close();
+        }
+        return file;
+    }
+
+    /**
+     * Create a composed document of about the specified size. Every 
+     * paragraph has a bold and an italic run, so it has 5 string formats. 
+     * 
+     * @param bytes The size of the text.
+     * @return The document, it has no view.
+     * @throws IOException If there is any IO error.
+     */
+    public static Document createDocument(long bytes) throws IOException {
+        File file = createTextOfSize(bytes);
+        try {
+            Document doc = TextImporter.importText(null, file.getPath());
+            for(int i=0; i<doc.getParagraphCount(); i++) {
+                Paragraph p = doc.getParagraph(i);
+                int n = p.getGlyphsCount() - 1;
+                if(n>=16) {
+                    p.format(n/4, n/4 + 4, null, null, Boolean.TRUE, null, null, null);
+                    p.format(n/2, n/2 + 4, null, null, null, Boolean.TRUE, null, null);
+                }
+            }
+            doc.compose();
+            return doc;
+        }
+        finally {
+            file.delete();
+        }
+    }
+}
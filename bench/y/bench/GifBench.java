@@ -0,0 +1,143 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+
+/**
+ * GifBench measures the LZW encoding and decoding of an animated GIF, 
+ * and its reading frame by frame by ImageLoader.loadFrames(), which 
+ * keeps one frame in memory where load() keeps them all. It also saves 
+ * a true color photo as GIF, which reduces it to 256 colors, with and 
+ * without dithering: <br>
+ * <code>
+ *     java y.bench.GifBench [width] [height] [frames] [runs]
+ * </code>
+ * 
+ * @author y&y
+ */
+public final class GifBench {
+
+    public static void main(String[] args) throws Exception {
+        int width = args.length>0 ? Integer.parseInt(args[0]) : 640;
+        int height = args.length>1 ? Integer.parseInt(args[1]) : 480;
+        int frames = args.length>2 ? Integer.parseInt(args[2]) : 100;
+        int runs = args.length>3 ? Integer.parseInt(args[3]) : 5;
+
+        ImageData[] animation = createAnimation(width, height, frames);
+        System.out.println(frames + " frames of " + width + "x" + height);
+        byte[] gif = null;
+        for(int i=0; i<2; i++)
+            save(animation);
+        long t0 = System.nanoTime();
+        for(int i=0; i<runs; i++)
+            gif = save(animation);
+        long t1 = System.nanoTime();
+        System.out.println(gif.length + " bytes, encode " + ms(t1 - t0, runs) + " ms");
+        animation = null;
+
+        for(int i=0; i<2; i++)
+            new ImageLoader().load(new ByteArrayInputStream(gif));
+        t0 = System.nanoTime();
+        for(int i=0; i<runs; i++)
+            new ImageLoader().load(new ByteArrayInputStream(gif));
+        t1 = System.nanoTime();
+        System.out.println("load " + ms(t1 - t0, runs) + " ms");
+
+        t0 = System.nanoTime();
+        for(int i=0; i<runs; i++) {
+            Iterator it = new ImageLoader().loadFrames(new ByteArrayInputStream(gif));
+            while(it.hasNext())
+                it.next();
+        }
+        t1 = System.nanoTime();
+        System.out.println("loadFrames " + ms(t1 - t0, runs) + " ms");
+
+        ImageData[] photo = { createPhoto(width * 4, height * 4) };
+        for(int pass=0; pass<2; pass++) {
+            boolean dither = pass==1;
+            for(int i=0; i<2; i++)
+                save(photo, dither);
+            t0 = System.nanoTime();
+            for(int i=0; i<runs; i++)
+                gif = save(photo, dither);
+            t1 = System.nanoTime();
+            System.out.println("photo of " + photo[0].width + "x" + photo[0].height
+                + (dither ? " dithered: " : ": ") + gif.length + " bytes, save " + ms(t1 - t0, runs) + " ms");
+        }
+    }
+
+    private static byte[] save(ImageData[] animation) {
+        return save(animation, false);
+    }
+
+    private static byte[] save(ImageData[] animation, boolean dither) {
+        ImageLoader loader = new ImageLoader();
+        loader.data = animation;
+        loader.dither = dither;
+        loader.logicalScreenWidth = animation[0].width;
+        loader.logicalScreenHeight = animation[0].height;
+        loader.repeatCount = 0;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        loader.save(out, SWT.IMAGE_GIF);
+        return out.toByteArray();
+    }
+
+    private static String ms(long nanos, int count) {
+        return String.valueOf(Math.round(nanos / 1e5 / count) / 10.0);
+    }
+
+    // a noisy gradient of more colours than a GIF has:
+    private static ImageData createPhoto(int width, int height) {
+        ImageData data = new ImageData(width, height, 24, new PaletteData(0xff0000, 0xff00, 0xff));
+        Random random = new Random(2026);
+        int[] row = new int[width];
+        for(int y=0; y<height; y++) {
+            for(int x=0; x<width; x++) {
+                int r = x * 255 / width;
+                int g = y * 255 / height;
+                int b = (r + g) / 2 + random.nextInt(32);
+                row[x] = (r<<16) | (g<<8) | Math.min(b, 255);
+            }
+            data.setPixels(0, y, width, row, 0);
+        }
+        return data;
+    }
+
+    // moving rings on a 256 colour palette, with some noise:
+    private static ImageData[] createAnimation(int width, int height, int frames) {
+        RGB[] colors = new RGB[256];
+        for(int i=0; i<256; i++)
+            colors[i] = new RGB(i, (i * 3) & 0xff, 255 - i);
+        PaletteData palette = new PaletteData(colors);
+        Random random = new Random(2026);
+        ImageData[] animation = new ImageData[frames];
+        for(int f=0; f<frames; f++) {
+            ImageData data = new ImageData(width, height, 8, palette);
+            data.delayTime = 4;
+            for(int y=0; y<height; y++) {
+                int offset = y * data.bytesPerLine;
+                for(int x=0; x<width; x++) {
+                    int dx = x - width / 2, dy = y - height / 2;
+                    int v = (int)Math.sqrt(dx * dx + dy * dy) / 3 + f;
+                    if(random.nextInt(16)==0)
+                        v += random.nextInt(8);
+                    data.data[offset + x] = (byte)v;
+                }
+            }
+            animation[f] = data;
+        }
+        return animation;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.graphics.PaletteData;
+
+/**
+ * JpegBench measures the JPEG encoding of a photo, with the default and 
+ * with the optimized Huffman tables, and its decoding. The encoder 
+ * writes a restart marker at every row of MCUs, so the photo is encoded 
+ * and decoded in bands on all the processors. Compare it with one 
+ * processor by: <br>
+ * <code>
+ *     java -XX:ActiveProcessorCount=1 y.bench.JpegBench [width] [height] [runs]
+ * </code>
+ * 
+ * @author y&y
+ */
+public final class JpegBench {
+
+    public static void main(String[] args) throws Exception {
+        int width = args.length>0 ? Integer.parseInt(args[0]) : 3000;
+        int height = args.length>1 ? Integer.parseInt(args[1]) : 2000;
+        int runs = args.length>2 ? Integer.parseInt(args[2]) : 10;
+
+        ImageData photo = createPhoto(width, height);
+        System.out.println("photo of " + width + "x" + height + ", "
+            + Runtime.getRuntime().availableProcessors() + " processors");
+        byte[] jpeg = null;
+        for(int pass=0; pass<2; pass++) {
+            boolean optimize = pass==1;
+            for(int i=0; i<3; i++)
+                save(photo, optimize);
+            long t0 = System.nanoTime();
+            for(int i=0; i<runs; i++)
+                jpeg = save(photo, optimize);
+            long t1 = System.nanoTime();
+            System.out.println((optimize ? "optimized tables: " : "default tables: ") + jpeg.length
+                + " bytes, encode " + ms(t1 - t0, runs) + " ms");
+        }
+        for(int i=0; i<3; i++)
+            new ImageLoader().load(new ByteArrayInputStream(jpeg));
+        long t0 = System.nanoTime();
+        for(int i=0; i<runs; i++)
+            new ImageLoader().load(new ByteArrayInputStream(jpeg));
+        long t1 = System.nanoTime();
+        System.out.println("decode " + ms(t1 - t0, runs) + " ms");
+    }
+
+    private static byte[] save(ImageData data, boolean optimize) {
+        ImageLoader loader = new ImageLoader();
+        loader.data = new ImageData[] { data };
+        loader.optimize = optimize;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        loader.save(out, SWT.IMAGE_JPEG);
+        return out.toByteArray();
+    }
+
+    private static String ms(long nanos, int count) {
+        return String.valueOf(Math.round(nanos / 1e5 / count) / 10.0);
+    }
+
+    // a noisy gradient, so the JPEG has the size of a photo:
+    private static ImageData createPhoto(int width, int height) {
+        ImageData data = new ImageData(width, height, 24, new PaletteData(0xff0000, 0xff00, 0xff));
+        Random random = new Random(2026);
+        int[] row = new int[width];
+        for(int y=0; y<height; y++) {
+            for(int x=0; x<width; x++) {
+                int r = x * 255 / width;
+                int g = y * 255 / height;
+                int b = (r + g) / 2 + random.nextInt(32);
+                row[x] = (r<<16) | (g<<8) | Math.min(b, 255);
+            }
+            data.setPixels(0, y, width, row, 0);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.bench;
+
+import java.io.File;
+
+import y.command.OpenCommand;
+import y.command.SaveCommand;
+import y.module.*;
+
+/**
+ * The benchmarks of the document model and the compositors. Most of 
+ * them work on the paragraph in the middle of the document, so the 
+ * cost of finding it grows with the document as it does for the user. 
+ * 
+ * @author y&y
+ */
+public final class ModelBenchmarks {
+
+    private ModelBenchmarks() {}
+
+    /**
+     * Create all benchmarks. 
+     * 
+     * @return The benchmarks in the order they are run.
+     */
+    public static Benchmark[] all() {
+        return new Benchmark[] {
+            new ParagraphBenchmark("Paragraph.add+remove") {
+                public Object run() {
+                    paragraph.add(index, 'x');
+                    return paragraph.remove(index);
+                }
+            },
+            new ParagraphBenchmark("Paragraph.getStringFormat") {
+                private int i = 0;
+                public Object run() {
+                    i = (i + 7) % (paragraph.getGlyphsCount());
+                    return paragraph.getStringFormat(i);
+                }
+            },
+            new ParagraphBenchmark("ParagraphCompositor.compose") {
+                private ParagraphCompositor compositor = new ParagraphCompositor();
+                public Object run() {
+                    compositor.setComposition(paragraph);
+                    compositor.compose();
+                    return paragraph;
+                }
+            },
+            new ParagraphBenchmark("DocumentCompositor.compose(one paragraph)") {
+                public Object run() {
+                    paragraph.setFormatted(false);
+                    document.compose();
+                    return document;
+                }
+            },
+            new ParagraphBenchmark("DocumentCompositor.compose(all)") {
+                public Object run() {
+                    for(int i=0; i<document.getParagraphCount(); i++)
+                        document.getParagraph(i).setFormatted(false);
+                    document.compose();
+                    return document;
+                }
+            },
+            new ParagraphBenchmark("Position->AbsPosition") {
+                public Object run() {
+                    return new AbsPosition(document, position);
+                }
+            },
+            new ParagraphBenchmark("AbsPosition->Position") {
+                public Object run() {
+                    return new Position(document, absPosition);
+                }
+            },
+            new ParagraphBenchmark("Caret.getLocation") {
+                public void setUp(Document document) throws Exception {
+                    super.setUp(document);
+                    document.getCaret().moveTo(position);
+                }
+                public Object run() {
+                    return document.getCaret().getLocation();
+                }
+                public void tearDown() {
+                    document.getCaret().moveTo(new Position(0, 0, 0));
+                }
+            },
+            new FindBenchmark("FindEngine.findAll") {
+                public Object run() {
+                    return engine.findAll(PATTERN, false);
+                }
+            },
+            new FindBenchmark("FindEngine.findNext after an edit") {
+                public Object run() {
+                    // re-indexes the edited paragraph:
+                    paragraph.add(index, 'x');
+                    paragraph.remove(index);
+                    return engine.findNext(PATTERN, false, absPosition.getParagraphIndex(), 0);
+                }
+            },
+            new ParagraphBenchmark("SaveCommand+OpenCommand") {
+                private File file;
+                private NullView view = new NullView();
+                public void setUp(Document document) throws Exception {
+                    super.setUp(document);
+                    file = File.createTempFile("bench", ".yy");
+                    document.setFilePath(file.getPath());
+                }
+                public Object run() throws Exception {
+                    if(!new SaveCommand(document).execute())
+                        throw new Exception("SaveCommand failed.");
+                    if(!new OpenCommand(view, file.getPath()).execute())
+                        throw new Exception("OpenCommand failed.");
+                    return view.getDocument();
+                }
+                public void tearDown() {
+                    document.setFilePath(null);
+                    file.delete();
+                    view.setDocument(null);
+                }
+            }
+        };
+    }
+
+    // a find benchmark, the index is built by setUp():
+    private static abstract class FindBenchmark extends ParagraphBenchmark {
+
+        // a word of the generated text:
+        protected static final String PATTERN = "compositor";
+
+        protected FindEngine engine;
+
+        FindBenchmark(String name) {
+            super(name);
+        }
+
+        public void setUp(Document document) throws Exception {
+            super.setUp(document);
+            this.engine = new FindEngine(document);
+            this.engine.findAll(PATTERN, false);
+        }
+
+        public void tearDown() {
+            this.engine.dispose();
+        }
+    }
+
+    // a benchmark on the middle of the document:
+    private static abstract class ParagraphBenchmark extends Benchmark {
+
+        protected Document document;
+        protected Paragraph paragraph;
+        protected int index;
+        protected AbsPosition absPosition;
+        protected Position position;
+
+        ParagraphBenchmark(String name) {
+            super(name);
+        }
+
+        public void setUp(Document document) throws Exception {
+            this.document = document;
+            int p = document.getParagraphCount() / 2;
+            this.paragraph = document.getParagraph(p);
+            this.index = (paragraph.getGlyphsCount() - 1) / 2;
+            this.absPosition = new AbsPosition(p, index);
+            this.position = new Position(document, absPosition);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.bench;
+
+import org.eclipse.swt.widgets.Slider;
+
+import y.module.Document;
+import y.view.yColor;
+import y.view.yView;
+
+/**
+ * NullView is a yView that shows nothing, so the commands that need a 
+ * view (OpenCommand, for example) can run without a Display. 
+ * 
+ * @author y&y
+ */
+public final class NullView implements yView {
+
+    private Document document;
+
+    public void init(Document document) { this.document = document; }
+    public void dispose() {}
+    public void update() {}
+    public Document getDocument() { return this.document; }
+    public void setDocument(Document document) { this.document = document; }
+    public int getWidth() { return 0; }
+    public int getHeight() { return 0; }
+    public void onSizeChanged(int width, int height) {}
+    public int getOffsetX() { return 0; }
+    public int getOffsetY() { return 0; }
+    public void setOffsetX(int x) {}
+    public void setOffsetY(int y) {}
+    public void onDocumentSizeChanged() {}
+    public void onFormatChanged(String fontName, Integer fontSize, Boolean bold, Boolean italic, Boolean underlined, yColor color) {}
+    public void onSetCaret(int x, int y, int height) {}
+    public void ensureCaretVisible() {}
+    public void onKeyPressed(char c) {}
+    public void onFunctionKeyPressed(int keycode, boolean shift, boolean ctrl, boolean alt) {}
+    public void onInsertPictureFromFile(String filename) {}
+    public void onMouseMove(int x, int y) {}
+    public void onLButtonDown(int x, int y) {}
+    public void onLButtonUp(int x, int y) {}
+    public void onRButtonDown(int x, int y) {}
+    public void onRButtonUp(int x, int y) {}
+    public void onLButtonDblClick(int x, int y) {}
+    public void onSaveButtonClick() {}
+    public void onSaveAsButtonClick() {}
+    public void onOpenButtonClick() {}
+    public void onImportTextButtonClick() {}
+    public void onExportHtmlButtonClick() {}
+    public void onExportRtfButtonClick() {}
+    public void onRedoButtonClick() {}
+    public void onUndoButtonClick() {}
+    public void onExitButtonClick() {}
+    public void onNewButtonClick() {}
+    public void setSliderV(Slider sliderV) {}
+    public void setPageNavigation(int pageIndex) {}
+    public int pageChangedNotif() { return 0; }
+    public int getPageCurrent() { return 0; }
+}
@@ -0,0 +1,93 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.bench;
+
+import java.io.*;
+
+import y.module.Document;
+import y.module.TextImporter;
+import y.view.Application;
+
+/**
+ * PaginationBench measures how many documents per second can be 
+ * paginated without a Display, on one core and on all cores. Each 
+ * thread owns its document, marks all paragraphs unformatted and 
+ * composes it again, so the whole layout runs every time. <br>
+ * 
+ * Run it by "ant bench", or: <br>
+ * <code>
+ *     java -Dy.headless=true y.bench.PaginationBench [paragraphs] [seconds]
+ * </code>
+ * 
+ * @author y&y
+ */
+public final class PaginationBench {
+
+    public static void main(String[] args) throws Exception {
+        int paragraphs = args.length>0 ? Integer.parseInt(args[0]) : 2000;
+        int seconds = args.length>1 ? Integer.parseInt(args[1]) : 5;
+        Application.instance().setHeadless(true);
+
+        File file = Documents.createText(paragraphs);
+        try {
+            int cores = Runtime.getRuntime().availableProcessors();
+            Document doc = TextImporter.importText(null, file.getPath());
+            System.out.println("document: " + paragraphs + " paragraphs, "
+                + file.length() + " bytes, " + doc.getPageCount() + " pages");
+            report("1 thread", run(file, 1, seconds));
+            report("all " + cores + " cores", run(file, cores, seconds));
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    private static void report(String name, long[] result) {
+        double docs = result[0] * 1000.0 / result[2];
+        double pages = result[1] * 1000.0 / result[2];
+        System.out.println(name + ": " + Math.round(docs * 10) / 10.0 + " documents/s, "
+            + Math.round(pages) + " pages/s");
+    }
+
+    // return {documents, pages, milliseconds}:
+    private static long[] run(final File file, int threads, int seconds) throws Exception {
+        final long[][] counts = new long[threads][2];
+        final long end = System.currentTimeMillis() + seconds * 1000L;
+        final Exception[] error = new Exception[1];
+        Thread[] workers = new Thread[threads];
+        long start = System.currentTimeMillis();
+        for(int t=0; t<threads; t++) {
+            final int index = t;
+            workers[t] = new Thread("PaginationBench-" + t) {
+                public void run() {
+                    try {
+                        Document doc = TextImporter.importText(null, file.getPath());
+                        while(System.currentTimeMillis()<end) {
+                            for(int i=0; i<doc.getParagraphCount(); i++)
+                                doc.getParagraph(i).setFormatted(false);
+                            doc.compose();
+                            counts[index][0]++;
+                            counts[index][1] += doc.getPageCount();
+                        }
+                    }
+                    catch(Exception e) {
+                        error[0] = e;
+                    }
+                }
+            };
+            workers[t].start();
+        }
+        for(int t=0; t<threads; t++)
+            workers[t].join();
+        if(error[0]!=null)
+            throw error[0];
+        long[] result = new long[] { 0, 0, System.currentTimeMillis() - start };
+        for(int t=0; t<threads; t++) {
+            result[0] += counts[t][0];
+            result[1] += counts[t][1];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.graphics.PaletteData;
+
+import y.format.PageFormat;
+import y.module.Document;
+import y.view.Application;
+import y.view.yImageScaler;
+
+/**
+ * PictureBench measures a document of many photos: the pixel memory 
+ * kept when every picture holds its full size pixels, against the 
+ * display-size proxies, and the time to decode and scale one photo, 
+ * in full and by the reduced JPEG decoding at the proxy size. 
+ * The photos are fitted into the page as InsertPictureCommand does. <br>
+ * 
+ * It does not measure the frame time of painting or scrolling the 
+ * document: that needs an SWT display, and the benchmarks run headless. 
+ * A frame paints the proxies already created, so what it measures is 
+ * the memory they keep and the cost of creating one, which is the work 
+ * moved out of the frames. <br>
+ * 
+ * Run it by: <br>
+ * <code>
+ *     java -Dy.headless=true y.bench.PictureBench [photos] [width] [height]
+ * </code>
+ * 
+ * @author y&y
+ */
+public final class PictureBench {
+
+    public static void main(String[] args) throws Exception {
+        int photos = args.length>0 ? Integer.parseInt(args[0]) : 200;
+        int width = args.length>1 ? Integer.parseInt(args[1]) : 3000;
+        int height = args.length>2 ? Integer.parseInt(args[2]) : 2000;
+        Application.instance().setHeadless(true);
+
+        byte[] jpeg = createPhoto(width, height);
+        PageFormat pf = new Document().getPageFormat();
+        int w = width;
+        int h = height;
+        if(w>pf.scaleWidth()) {
+            h = Math.max(1, (int)((long)h * pf.scaleWidth() / w));
+            w = pf.scaleWidth();
+        }
+        if(h>pf.scaleHeight()) {
+            w = Math.max(1, (int)((long)w * pf.scaleHeight() / h));
+            h = pf.scaleHeight();
+        }
+        System.out.println(photos + " photos of " + width + "x" + height + " (" + jpeg.length
+            + " bytes JPEG), painted at " + w + "x" + h);
+
+        long decode = 0;
+        long box = 0;
+        long nearest = 0;
+        long reduced = 0;
+        long full = 0;
+        long proxy = 0;
+        for(int i=0; i<photos; i++) {
+            long t0 = System.nanoTime();
+            ImageData data = new ImageData(new ByteArrayInputStream(jpeg));
+            long t1 = System.nanoTime();
+            ImageData scaled = yImageScaler.scale(data, w, h);
+            long t2 = System.nanoTime();
+            data.scaledTo(w, h);
+            long t3 = System.nanoTime();
+            ImageLoader loader = new ImageLoader();
+            loader.targetWidth = w;
+            loader.targetHeight = h;
+            yImageScaler.scale(loader.load(new ByteArrayInputStream(jpeg))[0], w, h);
+            long t4 = System.nanoTime();
+            decode += t1 - t0;
+            reduced += t4 - t3;
+            box += t2 - t1;
+            nearest += t3 - t2;
+            full += data.data.length;
+            proxy += scaled.data.length;
+        }
+        System.out.println("pixels kept: full size " + full / (1024 * 1024) + " MB, proxies "
+            + proxy / (1024 * 1024) + " MB");
+        System.out.println("per photo: decode " + ms(decode, photos) + " ms, box filter "
+            + ms(box, photos) + " ms, scaledTo " + ms(nearest, photos) + " ms");
+        System.out.println("per photo: reduced decode and box filter " + ms(reduced, photos) + " ms");
+    }
+
+    private static String ms(long nanos, int count) {
+        return String.valueOf(Math.round(nanos / 1e5 / count) / 10.0);
+    }
+
+    // a noisy gradient, so the JPEG has the size of a photo:
+    private static byte[] createPhoto(int width, int height) {
+        ImageData data = new ImageData(width, height, 24, new PaletteData(0xff0000, 0xff00, 0xff));
+        Random random = new Random(2026);
+        int[] row = new int[width];
+        for(int y=0; y<height; y++) {
+            for(int x=0; x<width; x++) {
+                int r = x * 255 / width;
+                int g = y * 255 / height;
+                int b = (r + g) / 2 + random.nextInt(32);
+                row[x] = (r<<16) | (g<<8) | Math.min(b, 255);
+            }
+            data.setPixels(0, y, width, row, 0);
+        }
+        ImageLoader loader = new ImageLoader();
+        loader.data = new ImageData[] { data };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        loader.save(out, SWT.IMAGE_JPEG);
+        return out.toByteArray();
+    }
+}
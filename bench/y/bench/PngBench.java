@@ -0,0 +1,124 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.graphics.PaletteData;
+
+/**
+ * PngBench measures ImageLoader.save() as PNG: the throughput in MB of 
+ * 24-bit pixels per second, and the size of the file against the same 
+ * image saved as BMP, then the time to load the PNG again. It is run on 
+ * a rendered page (white paper and black lines of text) and on a photo 
+ * (a noisy gradient). <br>
+ * 
+ * The PNG decoder itself is checked by y.bench.Checks. <br>
+ * 
+ * Run it by: <br>
+ * <code>
+ *     java y.bench.PngBench [iterations]
+ * </code>
+ * 
+ * @author y&y
+ */
+public final class PngBench {
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length>0 ? Integer.parseInt(args[0]) : 10;
+        run("page 1240x1754", createPage(1240, 1754), iterations);
+        run("photo 3000x2000", createPhoto(3000, 2000), iterations);
+    }
+
+    private static void run(String name, ImageData data, int iterations) {
+        int bmp = save(data, SWT.IMAGE_BMP).length;
+        byte[] png = null;
+        // warm up:
+        for(int i=0; i<3; i++)
+            png = save(data, SWT.IMAGE_PNG);
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for(int i=0; i<iterations; i++) {
+            long t = System.nanoTime();
+            save(data, SWT.IMAGE_PNG);
+            long ns = System.nanoTime() - t;
+            best = Math.min(best, ns);
+            total += ns;
+        }
+        double mb = data.width * data.height * 3 / (1024.0 * 1024.0);
+        System.out.println(name + ": PNG " + png.length + " bytes, BMP " + bmp + " bytes ("
+            + Math.round(png.length * 1000.0 / bmp) / 10.0 + "%), save mean "
+            + Math.round(total / 1e5 / iterations) / 10.0 + " ms, best "
+            + Math.round(best / 1e5) / 10.0 + " ms, "
+            + Math.round(mb * 1e9 * iterations / total) + " MB/s");
+
+        for(int i=0; i<3; i++)
+            new ImageData(new ByteArrayInputStream(png));
+        best = Long.MAX_VALUE;
+        total = 0;
+        for(int i=0; i<iterations; i++) {
+            long t = System.nanoTime();
+            new ImageData(new ByteArrayInputStream(png));
+            long ns = System.nanoTime() - t;
+            best = Math.min(best, ns);
+            total += ns;
+        }
+        System.out.println(name + ": load mean " + Math.round(total / 1e5 / iterations) / 10.0
+            + " ms, best " + Math.round(best / 1e5) / 10.0 + " ms");
+    }
+
+    private static byte[] save(ImageData data, int format) {
+        ImageLoader loader = new ImageLoader();
+        loader.data = new ImageData[] { data };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        loader.save(out, format);
+        return out.toByteArray();
+    }
+
+    // a page of the editor: margins, and rows of words in black:
+    private static ImageData createPage(int width, int height) {
+        ImageData data = new ImageData(width, height, 24, new PaletteData(0xff0000, 0xff00, 0xff));
+        Random random = new Random(2026);
+        int[] row = new int[width];
+        int margin = width / 8;
+        for(int y=0; y<height; y++) {
+            boolean text = y>margin && y<height-margin && (y % 24)<14;
+            int x = 0;
+            while(x<width) {
+                int word = 8 + random.nextInt(60);
+                for(int i=0; i<word && x<width; i++, x++) {
+                    boolean ink = text && x>margin && x<width-margin && random.nextInt(3)==0;
+                    row[x] = ink ? 0x000000 : 0xffffff;
+                }
+                for(int i=0; i<10 && x<width; i++, x++)
+                    row[x] = 0xffffff;
+            }
+            data.setPixels(0, y, width, row, 0);
+        }
+        return data;
+    }
+
+    // a noisy gradient:
+    private static ImageData createPhoto(int width, int height) {
+        ImageData data = new ImageData(width, height, 24, new PaletteData(0xff0000, 0xff00, 0xff));
+        Random random = new Random(2026);
+        int[] row = new int[width];
+        for(int y=0; y<height; y++) {
+            for(int x=0; x<width; x++) {
+                int r = x * 255 / width;
+                int g = y * 255 / height;
+                int b = (r + g) / 2 + random.nextInt(32);
+                row[x] = (r<<16) | (g<<8) | Math.min(b, 255);
+            }
+            data.setPixels(0, y, width, row, 0);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2026 y&y and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     y&y - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.graphics;
+
+
+/**
+ * Classes which implement this interface receive the rows of an
+ * image as it is decoded, in horizontal bands from top to bottom,
+ * instead of the whole image at once.
+ * <p>
+ * An instance of a class that implements this interface is given
+ * to the <code>loadBands</code> method of an image loader, which
+ * keeps only a few rows of the image in memory, so the bands can be
+ * scaled down, tiled or written out as they arrive.
+ * </p>
+ *
+ * @see ImageLoader#loadBands(java.io.InputStream, ImageBandSink)
+ */
+
+public interface ImageBandSink {
+
+/**
+ * Sent when the next band of rows of the image is decoded.
+ * <p>
+ * The band is an image as wide as the image, of the same depth and
+ * palette, and as high as the number of rows it holds. Its data is
+ * reused for the next band: it must be copied to be kept after this
+ * method returns.
+ * </p>
+ *
+ * @param band the rows of the image
+ * @param y the row of the image of the first row of the band
+ * @param height the height of the image
+ */
+public void putBand(ImageData band, int y, int height);
+
+}
@@ -12,6 +12,7 @@ package org.eclipse.swt.graphics;
 
 
 import java.io.*;
+import java.util.Iterator;
 import java.util.Vector;
 import org.eclipse.swt.*;
 import org.eclipse.swt.internal.Compatibility;
@@ -78,6 +79,41 @@ public class ImageLoader {
 	 * The default is 1. A value of 0 means 'display repeatedly'
 	 */
 	public int repeatCount;
+
+	/**
+	 * a hint of the smallest size the loaded images are needed
+	 * at, in pixels. A format that can decode a reduced size
+	 * cheaply (JPEG, at 1/2, 1/4 or 1/8) loads the smallest of
+	 * them that is still at least this size, the others ignore it.
+	 * The default is 0 which means 'full size'. It is not changed
+	 * by loading.
+	 */
+	public int targetWidth, targetHeight;
+
+	/**
+	 * whether saving may take more time to write a smaller file.
+	 * A JPEG is written with Huffman tables built for the image,
+	 * in a second pass over it, the other formats ignore it.
+	 * The default is false.
+	 */
+	public boolean optimize;
+
+	/**
+	 * whether saving a direct image in a format of 256 colors
+	 * (GIF) diffuses the error of each pixel to its neighbors,
+	 * which shows gradients without bands but makes the file
+	 * larger. The default is false.
+	 */
+	public boolean dither;
+
+	/**
+	 * the orientation of the image, as the EXIF Orientation tag:
+	 * 1 is upright, 3 is rotated by 180 degrees, 6 and 8 must be
+	 * rotated by 90 degrees clockwise and counterclockwise to be
+	 * upright, and 2, 4, 5 and 7 are their mirror images. It is
+	 * read by loadThumbnail. The default is 0 which means 'unknown'.
+	 */
+	public int orientation;
 		
 	/*
 	 * the set of ImageLoader event listeners, created on demand
@@ -101,6 +137,7 @@ void reset() {
 	logicalScreenHeight = 0;
 	backgroundPixel = -1;
 	repeatCount = 1;
+	orientation = 0;
 }
 
 /**
@@ -164,6 +201,143 @@ public ImageData[] load(String filename) {
 	return null;
 }
 
+/**
+ * Answers an iterator over the images of the specified input stream,
+ * which loads each <code>ImageData</code> when it is asked for it.
+ * The images are not kept in the loader, so the frames of an animated
+ * GIF can be shown or converted one at a time with the memory of one
+ * frame. The fields of the loader that describe the whole file, such
+ * as <code>logicalScreenWidth</code> and <code>repeatCount</code>, are
+ * set when the iterator is answered.
+ * <p>
+ * Only GIF images are read lazily; the images of the other formats
+ * are loaded before the iterator is answered. Its <code>next</code>
+ * method throws the same exceptions as <code>load</code> when the
+ * image cannot be read, and its <code>remove</code> method is not
+ * supported.
+ * </p>
+ *
+ * @param stream the input stream to load the images from
+ * @return an iterator over the <code>ImageData</code> objects of the stream
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the stream is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_IO - if an IO error occurs while reading from the stream</li>
+ *    <li>ERROR_INVALID_IMAGE - if the image stream contains invalid data</li>
+ *    <li>ERROR_UNSUPPORTED_FORMAT - if the image stream contains an unrecognized format</li>
+ * </ul>
+ */
+public Iterator loadFrames(InputStream stream) {
+	if (stream == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+	reset();
+	return FileFormat.loadFrames(stream, this);
+}
+
+/**
+ * Loads the first image of the specified input stream in horizontal
+ * bands of rows, which are given to the sink from top to bottom as
+ * they are decoded. The image data is not kept in the loader.
+ * <p>
+ * A JPEG is decoded a row of MCUs (8 or 16 rows of pixels) at a time,
+ * so only a few rows are in memory whatever the size of the image; a
+ * progressive JPEG still keeps its coefficients until its last scan
+ * is read. The other formats are loaded whole and given as one band.
+ * The target size of the loader is honored as by <code>load</code>.
+ * </p>
+ *
+ * @param stream the input stream to load the image from
+ * @param sink the sink to give the bands to
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the stream or the sink is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_IO - if an IO error occurs while reading from the stream</li>
+ *    <li>ERROR_INVALID_IMAGE - if the image stream contains invalid data</li>
+ *    <li>ERROR_UNSUPPORTED_FORMAT - if the image stream contains an unrecognized format</li>
+ * </ul>
+ *
+ * @see ImageBandSink
+ */
+public void loadBands(InputStream stream, ImageBandSink sink) {
+	if (stream == null || sink == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+	reset();
+	FileFormat.loadBands(stream, this, sink);
+}
+
+/**
+ * Loads the thumbnail embedded in the image of the specified input
+ * stream, without loading the image, and reads the orientation of
+ * the image. Only JPEG images (EXIF or JFIF) embed thumbnails. The
+ * thumbnail is not rotated: like the image, it must be rotated as
+ * the <code>orientation</code> field tells to be upright.
+ *
+ * @param stream the input stream to load the thumbnail from
+ * @return the thumbnail, or null if the image has none
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the stream is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_IO - if an IO error occurs while reading from the stream</li>
+ * </ul>
+ */
+public ImageData loadThumbnail(InputStream stream) {
+	if (stream == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+	reset();
+	return FileFormat.loadThumbnail(stream, this);
+}
+
+/**
+ * Rotates, flips and crops the JPEG image of the specified input stream
+ * without decoding its pixels, and writes the result to the specified
+ * output stream. The quantized coefficients of the image are moved as
+ * they are, so no quality is lost, and it costs a fraction of loading
+ * and saving the image.
+ * <p>
+ * The transform is the one that makes an image of the specified
+ * orientation upright, as the <code>orientation</code> field: 1 keeps
+ * the image as it is, 6 rotates it by 90 degrees clockwise, 3 by 180
+ * degrees, 8 by 90 degrees counterclockwise, and 2, 4, 5 and 7 flip
+ * it. The right or bottom edge of the image that is not a multiple of
+ * the MCU size (8 or 16 pixels) is trimmed when it is mirrored.
+ * </p><p>
+ * The crop rectangle is in the coordinates of the transformed image.
+ * It is clipped to the bounds of the transformed image, then its top
+ * left corner is moved up and left to a multiple of the MCU size. The
+ * <code>optimize</code> field is honored as by saving.
+ * </p><p>
+ * The APPn and COM segments are copied. The orientation of an EXIF
+ * segment is changed so that the image is shown as before, and set in
+ * the <code>orientation</code> field; its thumbnail is transformed too.
+ * </p>
+ *
+ * @param stream the input stream to read the JPEG image from
+ * @param output the output stream to write the transformed image to
+ * @param orientation the orientation the transform makes upright, 1 to 8
+ * @param crop the area of the transformed image to keep, or null
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the stream or the output is null</li>
+ *    <li>ERROR_INVALID_ARGUMENT - if the orientation is not 1 to 8, if the
+ *    crop rectangle does not intersect the transformed image, or if the
+ *    image is smaller than one MCU in a direction it is mirrored</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_IO - if an IO error occurs while reading or writing</li>
+ *    <li>ERROR_INVALID_IMAGE - if the image stream contains invalid data</li>
+ *    <li>ERROR_UNSUPPORTED_FORMAT - if the image stream is not a JPEG</li>
+ * </ul>
+ */
+public void transform(InputStream stream, OutputStream output, int orientation, Rectangle crop) {
+	if (stream == null || output == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+	if (orientation < 1 || orientation > 8) SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+	reset();
+	FileFormat.transform(stream, output, this, orientation, crop);
+}
+
 /**
  * Saves the image data in this ImageLoader to the specified stream.
  * The format parameter can have one of the following values:
@@ -173,7 +347,7 @@ public ImageData[] load(String filename) {
  * <dt><code>IMAGE_BMP_RLE</code></dt>
  * <dd>Windows BMP file format, RLE compression if appropriate</dd>
  * <dt><code>IMAGE_GIF</code></dt>
- * <dd>GIF file format</dd>
+ * <dd>GIF file format, direct images are reduced to 256 colors</dd>
  * <dt><code>IMAGE_ICO</code></dt>
  * <dd>Windows ICO file format</dd>
  * <dt><code>IMAGE_JPEG</code></dt>
@@ -208,7 +382,7 @@ public void save(OutputStream stream, int format) {
  * <dt><code>IMAGE_BMP_RLE</code></dt>
  * <dd>Windows BMP file format, RLE compression if appropriate</dd>
  * <dt><code>IMAGE_GIF</code></dt>
- * <dd>GIF file format</dd>
+ * <dd>GIF file format, direct images are reduced to 256 colors</dd>
  * <dt><code>IMAGE_ICO</code></dt>
  * <dd>Windows ICO file format</dd>
  * <dt><code>IMAGE_JPEG</code></dt>
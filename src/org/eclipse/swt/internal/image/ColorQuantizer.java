@@ -0,0 +1,528 @@
+/*******************************************************************************
+ * Copyright (c) 2026 y&y and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     y&y - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.internal.image;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.eclipse.swt.graphics.*;
+
+/**
+ * Reduces a direct image to an indexed image of 8 bits, for the formats
+ * that store only indexed images (GIF).
+ * <p>
+ * An image of 256 colors or fewer keeps its colors. Otherwise the colors
+ * are counted in a histogram of 5 bits per channel, built in parallel
+ * on bands of rows, and the palette is chosen by median cut: the box of
+ * the most pixels (then of the most pixels times its volume) is split at
+ * the median of its longest side until there are 256 boxes, and each box
+ * gives the mean of its colors. The pixels are mapped to the nearest
+ * color of the palette in parallel bands, or with Floyd-Steinberg error
+ * diffusion, which goes through the rows in order.
+ * </p><p>
+ * The pixels whose alpha is below 128, or that are the transparent
+ * pixel, are mapped to an entry of the palette kept for them, which is
+ * the transparent pixel of the indexed image.
+ * </p>
+ */
+final class ColorQuantizer {
+	static final int ROWS_PER_BAND = 64;
+	static final int MAX_COLORS = 256;
+	/* the histogram has 5 bits per channel */
+	static final int BITS = 5;
+	static final int SIDE = 1 << BITS;
+	static final int BINS = SIDE * SIDE * SIDE;
+
+	ImageData image;
+	int width, height;
+	boolean dither;
+
+	/* the colors of the palette as 0xRRGGBB */
+	int[] paletteRGBs = new int[MAX_COLORS];
+	int paletteSize;
+	int transparentIndex = -1;
+	boolean hasTransparent;
+
+	/* the palette index of each color of an image of few colors, in an
+	 * open-addressing hash table */
+	int[] exactKeys;
+	byte[] exactIndices;
+
+	/* the pixel count and the sums of red, green and blue of each bin,
+	 * then the number of transparent pixels */
+	long[] histogram;
+	/* the palette index of each bin, or -1 if it is not known yet */
+	int[] binIndices;
+
+	static final class Box {
+		int r0, r1, g0, g1, b0, b1;
+		long count;
+	}
+
+ColorQuantizer(ImageData image, boolean dither) {
+	this.image = image;
+	this.width = image.width;
+	this.height = image.height;
+	this.dither = dither;
+}
+
+/**
+ * Answer the indexed image of a direct image.
+ */
+static ImageData quantize(ImageData image, boolean dither) throws IOException {
+	return new ColorQuantizer(image, dither).quantize();
+}
+
+ImageData quantize() throws IOException {
+	boolean exact = findExactColors();
+	if (!exact) {
+		buildHistogram();
+		hasTransparent = histogram[BINS * 4] > 0;
+		medianCut(hasTransparent ? MAX_COLORS - 1 : MAX_COLORS);
+		mapBins();
+	}
+	if (hasTransparent) {
+		transparentIndex = paletteSize;
+		paletteRGBs[paletteSize++] = 0;
+	}
+	RGB[] rgbs = new RGB[paletteSize];
+	for (int i = 0; i < paletteSize; i++) {
+		int rgb = paletteRGBs[i];
+		rgbs[i] = new RGB((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+	}
+	ImageData result = ImageData.internal_new(
+		width,
+		height,
+		8,
+		new PaletteData(rgbs),
+		4,
+		null,
+		0,
+		null,
+		null,
+		-1,
+		transparentIndex,
+		image.type,
+		image.x,
+		image.y,
+		image.disposalMethod,
+		image.delayTime);
+	if (dither && !exact) {
+		ditherRows(result);
+	} else {
+		mapRows(result);
+	}
+	return result;
+}
+
+/**
+ * Read the colors of a row as 0xRRGGBB, with -1 for a transparent pixel.
+ */
+void getRow(int y, int[] pixels, int[] rgbs) {
+	image.getPixels(0, y, width, pixels, 0);
+	PaletteData palette = image.palette;
+	byte[] alphaData = image.alphaData;
+	int transparentPixel = image.transparentPixel;
+	int alphaIndex = y * width;
+	for (int x = 0; x < width; x++) {
+		int pixel = pixels[x];
+		if ((alphaData != null && (alphaData[alphaIndex + x] & 0xFF) < 128) || (transparentPixel != -1 && pixel == transparentPixel)) {
+			rgbs[x] = -1;
+			continue;
+		}
+		int r = pixel & palette.redMask;
+		r = (palette.redShift < 0) ? r >>> -palette.redShift : r << palette.redShift;
+		int g = pixel & palette.greenMask;
+		g = (palette.greenShift < 0) ? g >>> -palette.greenShift : g << palette.greenShift;
+		int b = pixel & palette.blueMask;
+		b = (palette.blueShift < 0) ? b >>> -palette.blueShift : b << palette.blueShift;
+		rgbs[x] = ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF);
+	}
+}
+
+static int hash(int rgb) {
+	return (rgb * 0x9E3779B1) >>> 22;
+}
+
+/**
+ * Collect the colors of the image while there are few enough for the
+ * palette. Answer false as soon as there are too many.
+ */
+boolean findExactColors() {
+	int[] keys = new int[1024];
+	byte[] indices = new byte[1024];
+	Arrays.fill(keys, -1);
+	int[] pixels = new int[width];
+	int[] rgbs = new int[width];
+	int count = 0;
+	boolean transparent = false;
+	for (int y = 0; y < height; y++) {
+		getRow(y, pixels, rgbs);
+		for (int x = 0; x < width; x++) {
+			int rgb = rgbs[x];
+			if (rgb == -1) {
+				transparent = true;
+				continue;
+			}
+			int index = hash(rgb);
+			int key;
+			while ((key = keys[index]) != rgb && key != -1) {
+				index = (index + 1) & (keys.length - 1);
+			}
+			if (key == -1) {
+				if (count == MAX_COLORS) return false;
+				keys[index] = rgb;
+				indices[index] = (byte)count;
+				paletteRGBs[count++] = rgb;
+			}
+		}
+	}
+	if (transparent && count == MAX_COLORS) return false;
+	exactKeys = keys;
+	exactIndices = indices;
+	paletteSize = count;
+	hasTransparent = transparent;
+	return true;
+}
+
+static int bin(int r, int g, int b) {
+	return ((r >> (8 - BITS)) << (2 * BITS)) | ((g >> (8 - BITS)) << BITS) | (b >> (8 - BITS));
+}
+
+/**
+ * Build the histogram of the colors, on contiguous ranges of rows in
+ * parallel, one for each processor.
+ */
+void buildHistogram() throws IOException {
+	ExecutorService executor = FileFormat.getExecutor();
+	int tasks = Math.min(Runtime.getRuntime().availableProcessors(), (height + ROWS_PER_BAND - 1) / ROWS_PER_BAND);
+	if (executor == null || tasks <= 1) {
+		histogram = countRows(0, height);
+		return;
+	}
+	List futures = new ArrayList();
+	for (int i = 0; i < tasks; i++) {
+		final int start = (int)((long)height * i / tasks);
+		final int end = (int)((long)height * (i + 1) / tasks);
+		futures.add(executor.submit(new Callable() {
+			public Object call() {
+				return countRows(start, end);
+			}
+		}));
+	}
+	for (int i = 0; i < tasks; i++) {
+		long[] counts = (long[])FileFormat.waitFor((Future)futures.get(i));
+		if (histogram == null) {
+			histogram = counts;
+		} else {
+			for (int j = 0; j < counts.length; j++) {
+				histogram[j] += counts[j];
+			}
+		}
+	}
+}
+
+long[] countRows(int start, int end) {
+	long[] counts = new long[BINS * 4 + 1];
+	int[] pixels = new int[width];
+	int[] rgbs = new int[width];
+	for (int y = start; y < end; y++) {
+		getRow(y, pixels, rgbs);
+		for (int x = 0; x < width; x++) {
+			int rgb = rgbs[x];
+			if (rgb == -1) {
+				counts[BINS * 4]++;
+				continue;
+			}
+			int r = (rgb >> 16) & 0xFF, g = (rgb >> 8) & 0xFF, b = rgb & 0xFF;
+			int i = bin(r, g, b) * 4;
+			counts[i]++;
+			counts[i + 1] += r;
+			counts[i + 2] += g;
+			counts[i + 3] += b;
+		}
+	}
+	return counts;
+}
+
+/**
+ * Split the boxes of the histogram until there are as many as the
+ * colors, and set the palette to their mean colors.
+ */
+void medianCut(int colors) {
+	List boxes = new ArrayList();
+	Box first = new Box();
+	first.r1 = first.g1 = first.b1 = SIDE - 1;
+	shrink(first);
+	if (first.count > 0) boxes.add(first);
+	while (boxes.size() < colors) {
+		/* split by the pixel count first, then by the count times the volume */
+		boolean byVolume = boxes.size() >= colors / 2;
+		Box box = null;
+		long best = 0;
+		for (int i = 0; i < boxes.size(); i++) {
+			Box candidate = (Box)boxes.get(i);
+			if (candidate.r0 == candidate.r1 && candidate.g0 == candidate.g1 && candidate.b0 == candidate.b1) continue;
+			long priority = candidate.count;
+			if (byVolume) priority *= (long)(candidate.r1 - candidate.r0 + 1) * (candidate.g1 - candidate.g0 + 1) * (candidate.b1 - candidate.b0 + 1);
+			if (priority > best) {
+				best = priority;
+				box = candidate;
+			}
+		}
+		if (box == null) break;
+		boxes.add(split(box));
+	}
+	for (int i = 0; i < boxes.size(); i++) {
+		Box box = (Box)boxes.get(i);
+		long r = 0, g = 0, b = 0;
+		for (int ri = box.r0; ri <= box.r1; ri++) {
+			for (int gi = box.g0; gi <= box.g1; gi++) {
+				for (int bi = box.b0; bi <= box.b1; bi++) {
+					int j = ((ri << (2 * BITS)) | (gi << BITS) | bi) * 4;
+					r += histogram[j + 1];
+					g += histogram[j + 2];
+					b += histogram[j + 3];
+				}
+			}
+		}
+		long count = box.count;
+		paletteRGBs[paletteSize++] = (int)((r + count / 2) / count) << 16 | (int)((g + count / 2) / count) << 8 | (int)((b + count / 2) / count);
+	}
+}
+
+/**
+ * Reduce the bounds of the box to its bins that have pixels, and count
+ * the pixels.
+ */
+void shrink(Box box) {
+	int r0 = SIDE, r1 = -1, g0 = SIDE, g1 = -1, b0 = SIDE, b1 = -1;
+	long count = 0;
+	for (int ri = box.r0; ri <= box.r1; ri++) {
+		for (int gi = box.g0; gi <= box.g1; gi++) {
+			for (int bi = box.b0; bi <= box.b1; bi++) {
+				long n = histogram[((ri << (2 * BITS)) | (gi << BITS) | bi) * 4];
+				if (n == 0) continue;
+				count += n;
+				if (ri < r0) r0 = ri;
+				if (ri > r1) r1 = ri;
+				if (gi < g0) g0 = gi;
+				if (gi > g1) g1 = gi;
+				if (bi < b0) b0 = bi;
+				if (bi > b1) b1 = bi;
+			}
+		}
+	}
+	box.count = count;
+	if (count == 0) return;
+	box.r0 = r0; box.r1 = r1;
+	box.g0 = g0; box.g1 = g1;
+	box.b0 = b0; box.b1 = b1;
+}
+
+/**
+ * Split the box at the median of the pixels along its longest side.
+ * Answer the upper half, the box keeps the lower half.
+ */
+Box split(Box box) {
+	int axis;
+	int rLength = box.r1 - box.r0, gLength = box.g1 - box.g0, bLength = box.b1 - box.b0;
+	if (rLength >= gLength && rLength >= bLength) {
+		axis = 0;
+	} else if (gLength >= bLength) {
+		axis = 1;
+	} else {
+		axis = 2;
+	}
+	long[] counts = new long[SIDE];
+	for (int ri = box.r0; ri <= box.r1; ri++) {
+		for (int gi = box.g0; gi <= box.g1; gi++) {
+			for (int bi = box.b0; bi <= box.b1; bi++) {
+				long n = histogram[((ri << (2 * BITS)) | (gi << BITS) | bi) * 4];
+				counts[axis == 0 ? ri : axis == 1 ? gi : bi] += n;
+			}
+		}
+	}
+	int low = axis == 0 ? box.r0 : axis == 1 ? box.g0 : box.b0;
+	int high = axis == 0 ? box.r1 : axis == 1 ? box.g1 : box.b1;
+	int median = low;
+	long sum = counts[low];
+	while (median < high - 1 && sum * 2 < box.count) {
+		sum += counts[++median];
+	}
+	Box upper = new Box();
+	upper.r0 = box.r0; upper.r1 = box.r1;
+	upper.g0 = box.g0; upper.g1 = box.g1;
+	upper.b0 = box.b0; upper.b1 = box.b1;
+	switch (axis) {
+		case 0: box.r1 = median; upper.r0 = median + 1; break;
+		case 1: box.g1 = median; upper.g0 = median + 1; break;
+		case 2: box.b1 = median; upper.b0 = median + 1; break;
+	}
+	shrink(box);
+	shrink(upper);
+	return upper;
+}
+
+/**
+ * Find the nearest color of the palette to the mean color of each bin
+ * that has pixels.
+ */
+void mapBins() {
+	binIndices = new int[BINS];
+	Arrays.fill(binIndices, -1);
+	for (int i = 0; i < BINS; i++) {
+		long count = histogram[i * 4];
+		if (count == 0) continue;
+		binIndices[i] = nearest((int)(histogram[i * 4 + 1] / count), (int)(histogram[i * 4 + 2] / count), (int)(histogram[i * 4 + 3] / count));
+	}
+}
+
+/**
+ * Answer the palette index of the bin, from the center of the bin if it
+ * had no pixels.
+ */
+int binIndex(int bin) {
+	int index = binIndices[bin];
+	if (index == -1) {
+		int half = 1 << (7 - BITS);
+		int r = ((bin >> (2 * BITS)) << (8 - BITS)) + half;
+		int g = (((bin >> BITS) & (SIDE - 1)) << (8 - BITS)) + half;
+		int b = ((bin & (SIDE - 1)) << (8 - BITS)) + half;
+		index = binIndices[bin] = nearest(r, g, b);
+	}
+	return index;
+}
+
+int nearest(int r, int g, int b) {
+	int index = 0;
+	int best = Integer.MAX_VALUE;
+	for (int i = 0; i < paletteSize; i++) {
+		int rgb = paletteRGBs[i];
+		int dr = ((rgb >> 16) & 0xFF) - r;
+		int dg = ((rgb >> 8) & 0xFF) - g;
+		int db = (rgb & 0xFF) - b;
+		int distance = dr * dr + dg * dg + db * db;
+		if (distance < best) {
+			best = distance;
+			index = i;
+		}
+	}
+	return index;
+}
+
+/**
+ * Map the pixels to the palette, in bands of rows on the executor.
+ */
+void mapRows(final ImageData result) throws IOException {
+	int bands = (height + ROWS_PER_BAND - 1) / ROWS_PER_BAND;
+	if (bands == 1 || FileFormat.getExecutor() == null) {
+		mapRows(result, 0, height);
+		return;
+	}
+	List futures = new ArrayList();
+	for (int band = 0; band < bands; band++) {
+		final int start = band * ROWS_PER_BAND;
+		final int end = Math.min(height, start + ROWS_PER_BAND);
+		futures.add(FileFormat.getExecutor().submit(new Callable() {
+			public Object call() {
+				mapRows(result, start, end);
+				return null;
+			}
+		}));
+	}
+	FileFormat.waitFor(futures);
+}
+
+void mapRows(ImageData result, int start, int end) {
+	int[] pixels = new int[width];
+	int[] rgbs = new int[width];
+	byte[] data = result.data;
+	for (int y = start; y < end; y++) {
+		getRow(y, pixels, rgbs);
+		int offset = y * result.bytesPerLine;
+		for (int x = 0; x < width; x++) {
+			int rgb = rgbs[x];
+			int index;
+			if (rgb == -1) {
+				index = transparentIndex;
+			} else if (exactKeys != null) {
+				int i = hash(rgb);
+				while (exactKeys[i] != rgb) {
+					i = (i + 1) & (exactKeys.length - 1);
+				}
+				index = exactIndices[i] & 0xFF;
+			} else {
+				index = binIndices[bin((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF)];
+			}
+			data[offset + x] = (byte)index;
+		}
+	}
+}
+
+/**
+ * Map the pixels to the palette with Floyd-Steinberg error diffusion,
+ * going through the rows in serpentine order.
+ */
+void ditherRows(ImageData result) {
+	int[] pixels = new int[width];
+	int[] rgbs = new int[width];
+	byte[] data = result.data;
+	/* the errors of this row and of the next one, times 16 */
+	int[] errors = new int[(width + 2) * 3];
+	int[] nextErrors = new int[(width + 2) * 3];
+	for (int y = 0; y < height; y++) {
+		getRow(y, pixels, rgbs);
+		int offset = y * result.bytesPerLine;
+		boolean reverse = (y & 1) != 0;
+		int step = reverse ? -3 : 3;
+		Arrays.fill(nextErrors, 0);
+		for (int i = 0; i < width; i++) {
+			int x = reverse ? width - 1 - i : i;
+			int rgb = rgbs[x];
+			if (rgb == -1) {
+				data[offset + x] = (byte)transparentIndex;
+				continue;
+			}
+			int e = (x + 1) * 3;
+			int r = clamp(((rgb >> 16) & 0xFF) + ((errors[e] + 8) >> 4));
+			int g = clamp(((rgb >> 8) & 0xFF) + ((errors[e + 1] + 8) >> 4));
+			int b = clamp((rgb & 0xFF) + ((errors[e + 2] + 8) >> 4));
+			int index = binIndex(bin(r, g, b));
+			data[offset + x] = (byte)index;
+			int color = paletteRGBs[index];
+			int er = r - ((color >> 16) & 0xFF);
+			int eg = g - ((color >> 8) & 0xFF);
+			int eb = b - (color & 0xFF);
+			errors[e + step] += er * 7;
+			errors[e + step + 1] += eg * 7;
+			errors[e + step + 2] += eb * 7;
+			nextErrors[e - step] += er * 3;
+			nextErrors[e - step + 1] += eg * 3;
+			nextErrors[e - step + 2] += eb * 3;
+			nextErrors[e] += er * 5;
+			nextErrors[e + 1] += eg * 5;
+			nextErrors[e + 2] += eb * 5;
+			nextErrors[e + step] += er;
+			nextErrors[e + step + 1] += eg;
+			nextErrors[e + step + 2] += eb;
+		}
+		int[] swap = errors;
+		errors = nextErrors;
+		nextErrors = swap;
+	}
+}
+
+static int clamp(int value) {
+	return value < 0 ? 0 : value > 255 ? 255 : value;
+}
+}
@@ -12,6 +12,8 @@ package org.eclipse.swt.internal.image;
 
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 import org.eclipse.swt.*;
 import org.eclipse.swt.graphics.*;
 
@@ -30,6 +32,8 @@ public abstract class FileFormat {
 	ImageLoader loader;
 	int compression;
 
+	static ExecutorService executor;
+
 /**
  * Return whether or not the specified input stream
  * represents a supported file format.
@@ -47,15 +51,22 @@ public ImageData[] loadFromStream(LEDataInputStream stream) {
 		inputStream = stream;
 		return loadFromByteStream();
 	} catch (Exception e) {
-		if (e instanceof IOException) {
-			SWT.error(SWT.ERROR_IO, e);
-		} else {
-			SWT.error(SWT.ERROR_INVALID_IMAGE, e);
-		}
+		error(e);
 		return null;
 	}
 }
 
+/**
+ * Report an exception thrown while reading the input stream.
+ */
+void error(Exception e) {
+	if (e instanceof IOException) {
+		SWT.error(SWT.ERROR_IO, e);
+	} else {
+		SWT.error(SWT.ERROR_INVALID_IMAGE, e);
+	}
+}
+
 /**
  * Read the specified input stream using the specified loader, and
  * return the device independent image array represented by the stream.
@@ -84,6 +95,90 @@ public static ImageData[] load(InputStream is, ImageLoader loader) {
 	return fileFormat.loadFromStream(stream);
 }
 
+/**
+ * Read the first image of the specified input stream, and give it to
+ * the sink in bands of rows. Only JPEG is decoded band by band, the
+ * image of the other formats is given as one band.
+ */
+public static void loadBands(InputStream is, ImageLoader loader, ImageBandSink sink) {
+	LEDataInputStream stream = new LEDataInputStream(is);
+	if (new JPEGFileFormat().isFileFormat(stream)) {
+		JPEGDecoder.loadBands(stream, loader, sink);
+		return;
+	}
+	ImageData imageData = load(stream, loader)[0];
+	sink.putBand(imageData, 0, imageData.height);
+}
+
+/**
+ * Read the images of the specified input stream one at a time: the
+ * iterator decodes an image when it is asked for the next one. Only
+ * GIF is read lazily, the images of the other formats are all loaded
+ * before the iterator is answered.
+ */
+public static Iterator loadFrames(InputStream is, ImageLoader loader) {
+	LEDataInputStream stream = new LEDataInputStream(is);
+	final GIFFileFormat fileFormat = new GIFFileFormat();
+	if (!fileFormat.isFileFormat(stream)) {
+		return Arrays.asList(load(stream, loader)).iterator();
+	}
+	fileFormat.loader = loader;
+	fileFormat.inputStream = stream;
+	final Iterator frames;
+	try {
+		frames = fileFormat.frames();
+	} catch (Exception e) {
+		fileFormat.error(e);
+		return null;
+	}
+	return new Iterator() {
+		public boolean hasNext() {
+			return frames.hasNext();
+		}
+		public Object next() {
+			if (!frames.hasNext()) throw new NoSuchElementException();
+			try {
+				return frames.next();
+			} catch (Exception e) {
+				fileFormat.error(e);
+				return null;
+			}
+		}
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	};
+}
+
+/**
+ * Read the thumbnail embedded in the specified input stream, and set
+ * the orientation of the image in the loader, without reading the
+ * image. Only JPEG embeds thumbnails: answer null for other formats,
+ * or if the stream has no thumbnail.
+ */
+public static ImageData loadThumbnail(InputStream is, ImageLoader loader) {
+	LEDataInputStream stream = new LEDataInputStream(is);
+	if (!new JPEGFileFormat().isFileFormat(stream)) return null;
+	return JPEGThumbnailReader.load(stream, loader);
+}
+
+/**
+ * Rotate, flip and crop the JPEG of the specified input stream without
+ * decoding its pixels, and write it to the specified output stream.
+ * Only JPEG can be transformed losslessly.
+ */
+public static void transform(InputStream is, OutputStream os, ImageLoader loader, int orientation, Rectangle crop) {
+	LEDataInputStream stream = new LEDataInputStream(is);
+	if (!new JPEGFileFormat().isFileFormat(stream)) SWT.error(SWT.ERROR_UNSUPPORTED_FORMAT);
+	LEDataOutputStream output = new LEDataOutputStream(os);
+	try {
+		JPEGLosslessTransform.transform(stream, output, loader, orientation, crop);
+		output.flush();
+	} catch (IOException e) {
+		SWT.error(SWT.ERROR_IO, e);
+	}
+}
+
 /**
  * Write the device independent image array stored in the specified loader
  * to the specified output stream using the specified file format.
@@ -126,4 +221,39 @@ public void unloadIntoStream(ImageLoader loader, LEDataOutputStream stream) {
 		SWT.error(SWT.ERROR_IO, e);
 	}
 }
+/**
+ * Answer the executor shared by the encoders and decoders that work
+ * in parallel, or null if there is only one processor.
+ */
+static synchronized ExecutorService getExecutor() {
+	int processors = Runtime.getRuntime().availableProcessors();
+	if (processors < 2) return null;
+	if (executor == null) {
+		executor = Executors.newFixedThreadPool(processors, new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "SWT Image Worker"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	return executor;
+}
+static void waitFor(List futures) throws IOException {
+	for (int i = 0; i < futures.size(); i++) {
+		waitFor((Future) futures.get(i));
+	}
+}
+static Object waitFor(Future future) throws IOException {
+	try {
+		return future.get();
+	} catch (InterruptedException e) {
+		throw new InterruptedIOException();
+	} catch (ExecutionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof IOException) throw (IOException) cause;
+		if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+		throw new IOException(String.valueOf(cause));
+	}
+}
 }
@@ -14,6 +14,7 @@ package org.eclipse.swt.internal.image;
 import org.eclipse.swt.*;
 import org.eclipse.swt.graphics.*;
 import java.io.*;
+import java.util.*;
 
 final class GIFFileFormat extends FileFormat {
 	String signature;
@@ -63,6 +64,23 @@ final class GIFFileFormat extends FileFormat {
 	 * Return an array of ImageData representing the image(s).
 	 */
 	ImageData[] loadFromByteStream() {
+		Iterator frames = frames();
+		ArrayList images = new ArrayList();
+		while (frames.hasNext()) {
+			images.add(frames.next());
+		}
+		ImageData[] result = new ImageData[images.size()];
+		images.toArray(result);
+		return result;
+	}
+
+	/**
+	 * Read the header and the global palette of the GIF in the input
+	 * stream, and answer an iterator that reads and decodes an image of
+	 * the GIF each time it is asked for the next one. The images are not
+	 * kept, so a GIF of many frames is read with the memory of one.
+	 */
+	Iterator frames() {
 		byte[] signatureBytes = new byte[3];
 		byte[] versionBytes = new byte[3];
 		byte[] block = new byte[7];
@@ -101,31 +119,37 @@ final class GIFFileFormat extends FileFormat {
 		loader.backgroundPixel = backgroundPixel;
 
 		getExtensions();
-		int id = readID();
-		ImageData[] images = new ImageData[0];
-		while (id == GIF_IMAGE_BLOCK_ID) {
-			ImageData image = readImageBlock(palette);
-			if (loader.hasListeners()) {
-				loader.notifyListeners(new ImageLoaderEvent(loader, image, 3, true));
+		final PaletteData globalPalette = palette;
+		final int firstID = readID();
+		return new Iterator() {
+			int id = firstID;
+			public boolean hasNext() {
+				return id == GIF_IMAGE_BLOCK_ID;
 			}
-			ImageData[] oldImages = images;
-			images = new ImageData[oldImages.length + 1];
-			System.arraycopy(oldImages, 0, images, 0, oldImages.length);
-			images[images.length - 1] = image;
-			try {
-				/* Read the 0-byte terminator at the end of the image. */
-				id = inputStream.read();
-				if (id > 0) {
-					/* We read the terminator earlier. */
-					inputStream.unread(new byte[] {(byte)id});
+			public Object next() {
+				if (id != GIF_IMAGE_BLOCK_ID) throw new NoSuchElementException();
+				ImageData image = readImageBlock(globalPalette);
+				if (loader.hasListeners()) {
+					loader.notifyListeners(new ImageLoaderEvent(loader, image, 3, true));
 				}
-			} catch (IOException e) {
-				SWT.error(SWT.ERROR_IO, e);
+				try {
+					/* Read the 0-byte terminator at the end of the image. */
+					id = inputStream.read();
+					if (id > 0) {
+						/* We read the terminator earlier. */
+						inputStream.unread(new byte[] {(byte)id});
+					}
+				} catch (IOException e) {
+					SWT.error(SWT.ERROR_IO, e);
+				}
+				getExtensions();
+				id = readID();
+				return image;
 			}
-			getExtensions();
-			id = readID();
-		}
-		return images;
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
 	}
 
 	/**
@@ -423,8 +447,26 @@ final class GIFFileFormat extends FileFormat {
 
 	void unloadIntoByteStream(ImageLoader loader) {
 		
- 		/* Step 1: Acquire GIF parameters. */
-		ImageData[] data = loader.data;
+ 		/* Step 1: Acquire GIF parameters. Direct images are reduced to 256 colors. */
+		ImageData[] data = new ImageData[loader.data.length];
+		boolean quantized = false;
+		for (int i = 0; i < data.length; i++) {
+			data[i] = loader.data[i];
+			if (data[i].palette.isDirect) {
+				try {
+					data[i] = ColorQuantizer.quantize(data[i], loader.dither);
+				} catch (IOException e) {
+					SWT.error(SWT.ERROR_IO, e);
+				}
+				quantized = true;
+			}
+		}
+		/* All frames must have the same depth, the quantized ones have 8 bits. */
+		if (quantized) {
+			for (int i = 0; i < data.length; i++) {
+				if (data[i].depth < 8) data[i] = promote(data[i]);
+			}
+		}
 		int frameCount = data.length;
 		boolean multi = frameCount > 1;
 		ImageData firstImage = data[0];
@@ -441,9 +483,6 @@ final class GIFFileFormat extends FileFormat {
 			SWT.error(SWT.ERROR_UNSUPPORTED_DEPTH);
 		}
 		for (int i=0; i<frameCount; i++) {
-			if (data[i].palette.isDirect) {
-				SWT.error(SWT.ERROR_INVALID_IMAGE);
-			}
 			if (multi) {
 				if (!(data[i].height <= logicalScreenHeight && data[i].width <= logicalScreenWidth && data[i].depth == depth)) {
 					SWT.error(SWT.ERROR_INVALID_IMAGE);
@@ -535,7 +574,7 @@ final class GIFFileFormat extends FileFormat {
 			
 			/* Step 9: Write the actual data for each frame. */
 			try {
-				outputStream.write(depth); // Minimum LZW Code size
+				outputStream.write(LZWCodec.codeSize(depth)); // Minimum LZW Code size
 			} catch (IOException e) {
 				SWT.error(SWT.ERROR_IO, e);
 			}
@@ -582,6 +621,36 @@ final class GIFFileFormat extends FileFormat {
 		}
 	}
 
+	/**
+	 * Answer the indexed image with 8-bit pixels, the palette
+	 * and the pixel values are the same.
+	 */
+	static ImageData promote(ImageData image) {
+		ImageData result = ImageData.internal_new(
+			image.width,
+			image.height,
+			8,
+			image.palette,
+			4,
+			null,
+			0,
+			null,
+			null,
+			-1,
+			image.transparentPixel,
+			image.type,
+			image.x,
+			image.y,
+			image.disposalMethod,
+			image.delayTime);
+		byte[] row = new byte[image.width];
+		for (int y = 0; y < image.height; y++) {
+			image.getPixels(0, y, image.width, row, 0);
+			result.setPixels(0, y, image.width, row, 0);
+		}
+		return result;
+	}
+
 	/**
 	 * Write the specified palette to the output stream.
 	 */
@@ -1793,18 +1793,18 @@ public class JPEGDecoder {
 				/* Select the proper IDCT routine for this component's scaling */
 				switch (compptr.DCT_scaled_size) {
 //					#ifdef IDCT_SCALING_SUPPORTED
-//					case 1:
+					case 1:
 //						method_ptr = jpeg_idct_1x1;
-//						method = JDCT_ISLOW;	/* jidctred uses islow-style table */
-//						break;
-//					case 2:
+						method = JDCT_ISLOW;	/* jidctred uses islow-style table */
+						break;
+					case 2:
 //						method_ptr = jpeg_idct_2x2;
-//						method = JDCT_ISLOW;	/* jidctred uses islow-style table */
-//						break;
-//					case 4:
+						method = JDCT_ISLOW;	/* jidctred uses islow-style table */
+						break;
+					case 4:
 //						method_ptr = jpeg_idct_4x4;
-//						method = JDCT_ISLOW;	/* jidctred uses islow-style table */
-//						break;
+						method = JDCT_ISLOW;	/* jidctred uses islow-style table */
+						break;
 //					#endif
 					case DCTSIZE:
 						switch (cinfo.dct_method) {
@@ -2368,8 +2368,8 @@ static void jpeg_calc_output_dimensions (jpeg_decompress_struct cinfo)
 /* Do computations that are needed before master selection phase */
 {
 //#ifdef IDCT_SCALING_SUPPORTED
-//	int ci;
-//	jpeg_component_info compptr;
+	int ci;
+	jpeg_component_info compptr;
 //#endif
 
 	/* Prevent application from calling me at wrong times */
@@ -2378,75 +2378,75 @@ static void jpeg_calc_output_dimensions (jpeg_decompress_struct cinfo)
 //		ERREXIT1(cinfo, JERR_BAD_STATE, cinfo.global_state);
 
 //#ifdef IDCT_SCALING_SUPPORTED
-//
-//	/* Compute actual output image dimensions and DCT scaling choices. */
-//	if (cinfo.scale_num * 8 <= cinfo.scale_denom) {
-//		/* Provide 1/8 scaling */
-//		cinfo.output_width = (int)
-//			jdiv_round_up(cinfo.image_width, 8L);
-//		cinfo.output_height = (int)
-//			jdiv_round_up(cinfo.image_height, 8L);
-//		cinfo.min_DCT_scaled_size = 1;
-//	} else if (cinfo.scale_num * 4 <= cinfo.scale_denom) {
-//		/* Provide 1/4 scaling */
-//		cinfo.output_width = (int)
-//			jdiv_round_up(cinfo.image_width, 4L);
-//		cinfo.output_height = (int)
-//			jdiv_round_up(cinfo.image_height, 4L);
-//		cinfo.min_DCT_scaled_size = 2;
-//	} else if (cinfo.scale_num * 2 <= cinfo.scale_denom) {
-//		/* Provide 1/2 scaling */
-//		cinfo.output_width = (int)
-//			jdiv_round_up(cinfo.image_width, 2L);
-//		cinfo.output_height = (int)
-//			jdiv_round_up(cinfo.image_height, 2L);
-//		cinfo.min_DCT_scaled_size = 4;
-//	} else {
-//		/* Provide 1/1 scaling */
-//		cinfo.output_width = cinfo.image_width;
-//		cinfo.output_height = cinfo.image_height;
-//		cinfo.min_DCT_scaled_size = DCTSIZE;
-//	}
-//	/* In selecting the actual DCT scaling for each component, we try to
-//	 * scale up the chroma components via IDCT scaling rather than upsampling.
-//	 * This saves time if the upsampler gets to use 1:1 scaling.
-//	 * Note this code assumes that the supported DCT scalings are powers of 2.
-//	 */
-//	for (ci = 0; ci < cinfo.num_components; ci++) {
-//		compptr = cinfo.comp_info[ci];
-//		int ssize = cinfo.min_DCT_scaled_size;
-//		while (ssize < DCTSIZE &&
-//			(compptr.h_samp_factor * ssize * 2 <= cinfo.max_h_samp_factor * cinfo.min_DCT_scaled_size) &&
-//			(compptr.v_samp_factor * ssize * 2 <= cinfo.max_v_samp_factor * cinfo.min_DCT_scaled_size))
-//		{
-//			ssize = ssize * 2;
-//		}
-//		compptr.DCT_scaled_size = ssize;
-//	}
-//
-//	/* Recompute downsampled dimensions of components;
-//	 * application needs to know these if using raw downsampled data.
-//	 */
-//	for (ci = 0; ci < cinfo.num_components; ci++) {
-//		compptr = cinfo.comp_info[ci];
-//		/* Size in samples, after IDCT scaling */
-//		compptr.downsampled_width = (int)
-//			jdiv_round_up((long) cinfo.image_width * (long) (compptr.h_samp_factor * compptr.DCT_scaled_size),
-//				(cinfo.max_h_samp_factor * DCTSIZE));
-//		compptr.downsampled_height = (int)
-//			jdiv_round_up((long) cinfo.image_height * (long) (compptr.v_samp_factor * compptr.DCT_scaled_size),
-//				(cinfo.max_v_samp_factor * DCTSIZE));
-//	}
-//
-//#else /* !IDCT_SCALING_SUPPORTED */
 
-	/* Hardwire it to "no scaling" */
-	cinfo.output_width = cinfo.image_width;
-	cinfo.output_height = cinfo.image_height;
-	/* jdinput.c has already initialized DCT_scaled_size to DCTSIZE,
-	 * and has computed unscaled downsampled_width and downsampled_height.
+	/* Compute actual output image dimensions and DCT scaling choices. */
+	if (cinfo.scale_num * 8 <= cinfo.scale_denom) {
+		/* Provide 1/8 scaling */
+		cinfo.output_width = (int)
+			jdiv_round_up(cinfo.image_width, 8L);
+		cinfo.output_height = (int)
+			jdiv_round_up(cinfo.image_height, 8L);
+		cinfo.min_DCT_scaled_size = 1;
+	} else if (cinfo.scale_num * 4 <= cinfo.scale_denom) {
+		/* Provide 1/4 scaling */
+		cinfo.output_width = (int)
+			jdiv_round_up(cinfo.image_width, 4L);
+		cinfo.output_height = (int)
+			jdiv_round_up(cinfo.image_height, 4L);
+		cinfo.min_DCT_scaled_size = 2;
+	} else if (cinfo.scale_num * 2 <= cinfo.scale_denom) {
+		/* Provide 1/2 scaling */
+		cinfo.output_width = (int)
+			jdiv_round_up(cinfo.image_width, 2L);
+		cinfo.output_height = (int)
+			jdiv_round_up(cinfo.image_height, 2L);
+		cinfo.min_DCT_scaled_size = 4;
+	} else {
+		/* Provide 1/1 scaling */
+		cinfo.output_width = cinfo.image_width;
+		cinfo.output_height = cinfo.image_height;
+		cinfo.min_DCT_scaled_size = DCTSIZE;
+	}
+	/* In selecting the actual DCT scaling for each component, we try to
+	 * scale up the chroma components via IDCT scaling rather than upsampling.
+	 * This saves time if the upsampler gets to use 1:1 scaling.
+	 * Note this code assumes that the supported DCT scalings are powers of 2.
+	 */
+	for (ci = 0; ci < cinfo.num_components; ci++) {
+		compptr = cinfo.comp_info[ci];
+		int ssize = cinfo.min_DCT_scaled_size;
+		while (ssize < DCTSIZE &&
+			(compptr.h_samp_factor * ssize * 2 <= cinfo.max_h_samp_factor * cinfo.min_DCT_scaled_size) &&
+			(compptr.v_samp_factor * ssize * 2 <= cinfo.max_v_samp_factor * cinfo.min_DCT_scaled_size))
+		{
+			ssize = ssize * 2;
+		}
+		compptr.DCT_scaled_size = ssize;
+	}
+
+	/* Recompute downsampled dimensions of components;
+	 * application needs to know these if using raw downsampled data.
 	 */
+	for (ci = 0; ci < cinfo.num_components; ci++) {
+		compptr = cinfo.comp_info[ci];
+		/* Size in samples, after IDCT scaling */
+		compptr.downsampled_width = (int)
+			jdiv_round_up((long) cinfo.image_width * (long) (compptr.h_samp_factor * compptr.DCT_scaled_size),
+				(cinfo.max_h_samp_factor * DCTSIZE));
+		compptr.downsampled_height = (int)
+			jdiv_round_up((long) cinfo.image_height * (long) (compptr.v_samp_factor * compptr.DCT_scaled_size),
+				(cinfo.max_v_samp_factor * DCTSIZE));
+	}
 
+//#else /* !IDCT_SCALING_SUPPORTED */
+//
+//	/* Hardwire it to "no scaling" */
+//	cinfo.output_width = cinfo.image_width;
+//	cinfo.output_height = cinfo.image_height;
+//	/* jdinput.c has already initialized DCT_scaled_size to DCTSIZE,
+//	 * and has computed unscaled downsampled_width and downsampled_height.
+//	 */
+//
 //#endif /* IDCT_SCALING_SUPPORTED */
 
 	/* Report number of components in selected colorspace. */
@@ -3178,6 +3178,282 @@ static void jpeg_idct_islow (jpeg_decompress_struct cinfo, jpeg_component_info c
 	}
 }
 
+/*
+ * Select the IDCT routine for the component's scaling, see
+ * jpeg_inverse_dct.start_pass().
+ */
+static void inverse_DCT (jpeg_decompress_struct cinfo, jpeg_component_info compptr,
+	short[] coef_block,
+	byte[][] output_buf, int output_buf_offset, int output_col)
+{
+	switch (compptr.DCT_scaled_size) {
+		case 1:
+			jpeg_idct_1x1(cinfo, compptr, coef_block, output_buf, output_buf_offset, output_col);
+			break;
+		case 2:
+			jpeg_idct_2x2(cinfo, compptr, coef_block, output_buf, output_buf_offset, output_col);
+			break;
+		case 4:
+			jpeg_idct_4x4(cinfo, compptr, coef_block, output_buf, output_buf_offset, output_col);
+			break;
+		default:
+			jpeg_idct_islow(cinfo, compptr, coef_block, output_buf, output_buf_offset, output_col);
+			break;
+	}
+}
+
+/*
+ * jidctred.c: inverse DCT routines that produce reduced-size output:
+ * either 4x4, 2x2, or 1x1 pixels from an 8x8 DCT block. They are the
+ * same algorithm as jpeg_idct_islow(), with the unused coefficients
+ * (the frequencies above the output's Nyquist limit) left out.
+ */
+static void jpeg_idct_4x4 (jpeg_decompress_struct cinfo, jpeg_component_info compptr,
+	short[] coef_block,
+	byte[][] output_buf, int output_buf_offset, int output_col)
+{
+	int tmp0, tmp2, tmp10, tmp12;
+	int z1, z2, z3, z4;
+	short[] inptr = coef_block;
+	int[] quantptr = compptr.dct_table;
+	int[] wsptr = cinfo.workspace;
+	byte[] outptr;
+	byte[] range_limit = cinfo.sample_range_limit;
+	int range_limit_offset = cinfo.sample_range_limit_offset + CENTERJSAMPLE;
+	int ctr;
+
+	/* Pass 1: process columns from input, store into work array. */
+
+	for (int col = 0; col < DCTSIZE; col++) {
+		/* Don't bother to process column 4, because second pass won't use it */
+		if (col == 4) continue;
+		if (inptr[DCTSIZE*1+col] == 0 && inptr[DCTSIZE*2+col] == 0 &&
+			inptr[DCTSIZE*3+col] == 0 && inptr[DCTSIZE*5+col] == 0 &&
+			inptr[DCTSIZE*6+col] == 0 && inptr[DCTSIZE*7+col] == 0)
+		{
+			/* AC terms all zero; we need not examine term 4 for 4x4 output */
+			int dcval = (inptr[DCTSIZE*0+col] * quantptr[DCTSIZE*0+col]) << PASS1_BITS;
+
+			wsptr[DCTSIZE*0+col] = dcval;
+			wsptr[DCTSIZE*1+col] = dcval;
+			wsptr[DCTSIZE*2+col] = dcval;
+			wsptr[DCTSIZE*3+col] = dcval;
+			continue;
+		}
+
+		/* Even part */
+
+		tmp0 = (inptr[DCTSIZE*0+col] * quantptr[DCTSIZE*0+col]) << (CONST_BITS+1);
+
+		z2 = inptr[DCTSIZE*2+col] * quantptr[DCTSIZE*2+col];
+		z3 = inptr[DCTSIZE*6+col] * quantptr[DCTSIZE*6+col];
+
+		tmp2 = z2 * 15137/*FIX_1_847759065*/ + z3 * - 6270/*FIX_0_765366865*/;
+
+		tmp10 = tmp0 + tmp2;
+		tmp12 = tmp0 - tmp2;
+
+		/* Odd part */
+
+		z1 = inptr[DCTSIZE*7+col] * quantptr[DCTSIZE*7+col];
+		z2 = inptr[DCTSIZE*5+col] * quantptr[DCTSIZE*5+col];
+		z3 = inptr[DCTSIZE*3+col] * quantptr[DCTSIZE*3+col];
+		z4 = inptr[DCTSIZE*1+col] * quantptr[DCTSIZE*1+col];
+
+		tmp0 = z1 * - 1730/*FIX_0_211164243*/ /* sqrt(2) * (c3-c1) */
+			+ z2 * 11893/*FIX_1_451774981*/ /* sqrt(2) * (c3+c7) */
+			+ z3 * - 17799/*FIX_2_172734803*/ /* sqrt(2) * (-c1-c5) */
+			+ z4 * 8697/*FIX_1_061594337*/; /* sqrt(2) * (c5+c7) */
+
+		tmp2 = z1 * - 4176/*FIX_0_509795579*/ /* sqrt(2) * (c7-c5) */
+			+ z2 * - 4926/*FIX_0_601344887*/ /* sqrt(2) * (c5-c1) */
+			+ z3 * 7373/*FIX_0_899976223*/ /* sqrt(2) * (c3-c7) */
+			+ z4 * 20995/*FIX_2_562915447*/; /* sqrt(2) * (c1+c3) */
+
+		/* Final output stage */
+
+//		#define DESCALE(x,n)	RIGHT_SHIFT((x) + (ONE << ((n)-1)), n)
+		wsptr[DCTSIZE*0+col] = (tmp10 + tmp2 + (1 << (CONST_BITS-PASS1_BITS))) >> (CONST_BITS-PASS1_BITS+1);
+		wsptr[DCTSIZE*3+col] = (tmp10 - tmp2 + (1 << (CONST_BITS-PASS1_BITS))) >> (CONST_BITS-PASS1_BITS+1);
+		wsptr[DCTSIZE*1+col] = (tmp12 + tmp0 + (1 << (CONST_BITS-PASS1_BITS))) >> (CONST_BITS-PASS1_BITS+1);
+		wsptr[DCTSIZE*2+col] = (tmp12 - tmp0 + (1 << (CONST_BITS-PASS1_BITS))) >> (CONST_BITS-PASS1_BITS+1);
+	}
+
+	/* Pass 2: process 4 rows from work array, store into output array. */
+
+	int wsptr_offset = 0;
+	for (ctr = 0; ctr < 4; ctr++) {
+		outptr = output_buf[ctr+output_buf_offset];
+		int outptr_offset = output_col;
+
+//#ifndef NO_ZERO_ROW_TEST
+		if (wsptr[1+wsptr_offset] == 0 && wsptr[2+wsptr_offset] == 0 && wsptr[3+wsptr_offset] == 0 &&
+			wsptr[5+wsptr_offset] == 0 && wsptr[6+wsptr_offset] == 0 && wsptr[7+wsptr_offset] == 0)
+		{
+			/* AC terms all zero */
+			byte dcval = range_limit[range_limit_offset + (((wsptr[0+wsptr_offset] + (1 << (PASS1_BITS+2))) >> (PASS1_BITS+3))
+					& RANGE_MASK)];
+
+			outptr[0+outptr_offset] = dcval;
+			outptr[1+outptr_offset] = dcval;
+			outptr[2+outptr_offset] = dcval;
+			outptr[3+outptr_offset] = dcval;
+
+			wsptr_offset += DCTSIZE;		/* advance pointer to next row */
+			continue;
+		}
+//#endif
+
+		/* Even part */
+
+		tmp0 = wsptr[0+wsptr_offset] << (CONST_BITS+1);
+
+		tmp2 = wsptr[2+wsptr_offset] * 15137/*FIX_1_847759065*/
+			+ wsptr[6+wsptr_offset] * - 6270/*FIX_0_765366865*/;
+
+		tmp10 = tmp0 + tmp2;
+		tmp12 = tmp0 - tmp2;
+
+		/* Odd part */
+
+		z1 = wsptr[7+wsptr_offset];
+		z2 = wsptr[5+wsptr_offset];
+		z3 = wsptr[3+wsptr_offset];
+		z4 = wsptr[1+wsptr_offset];
+
+		tmp0 = z1 * - 1730/*FIX_0_211164243*/ /* sqrt(2) * (c3-c1) */
+			+ z2 * 11893/*FIX_1_451774981*/ /* sqrt(2) * (c3+c7) */
+			+ z3 * - 17799/*FIX_2_172734803*/ /* sqrt(2) * (-c1-c5) */
+			+ z4 * 8697/*FIX_1_061594337*/; /* sqrt(2) * (c5+c7) */
+
+		tmp2 = z1 * - 4176/*FIX_0_509795579*/ /* sqrt(2) * (c7-c5) */
+			+ z2 * - 4926/*FIX_0_601344887*/ /* sqrt(2) * (c5-c1) */
+			+ z3 * 7373/*FIX_0_899976223*/ /* sqrt(2) * (c3-c7) */
+			+ z4 * 20995/*FIX_2_562915447*/; /* sqrt(2) * (c1+c3) */
+
+		/* Final output stage */
+
+		outptr[0+outptr_offset] = range_limit[range_limit_offset + (((tmp10 + tmp2 + (1 << (CONST_BITS+PASS1_BITS+3))) >>
+					(CONST_BITS+PASS1_BITS+3+1)) & RANGE_MASK)];
+		outptr[3+outptr_offset] = range_limit[range_limit_offset + (((tmp10 - tmp2 + (1 << (CONST_BITS+PASS1_BITS+3))) >>
+					(CONST_BITS+PASS1_BITS+3+1)) & RANGE_MASK)];
+		outptr[1+outptr_offset] = range_limit[range_limit_offset + (((tmp12 + tmp0 + (1 << (CONST_BITS+PASS1_BITS+3))) >>
+					(CONST_BITS+PASS1_BITS+3+1)) & RANGE_MASK)];
+		outptr[2+outptr_offset] = range_limit[range_limit_offset + (((tmp12 - tmp0 + (1 << (CONST_BITS+PASS1_BITS+3))) >>
+					(CONST_BITS+PASS1_BITS+3+1)) & RANGE_MASK)];
+
+		wsptr_offset += DCTSIZE;		/* advance pointer to next row */
+	}
+}
+
+static void jpeg_idct_2x2 (jpeg_decompress_struct cinfo, jpeg_component_info compptr,
+	short[] coef_block,
+	byte[][] output_buf, int output_buf_offset, int output_col)
+{
+	int tmp0, tmp10, z1;
+	short[] inptr = coef_block;
+	int[] quantptr = compptr.dct_table;
+	int[] wsptr = cinfo.workspace;
+	byte[] outptr;
+	byte[] range_limit = cinfo.sample_range_limit;
+	int range_limit_offset = cinfo.sample_range_limit_offset + CENTERJSAMPLE;
+	int ctr;
+
+	/* Pass 1: process columns from input, store into work array. */
+
+	for (int col = 0; col < DCTSIZE; col++) {
+		/* Don't bother to process columns 2,4,6 */
+		if (col == 2 || col == 4 || col == 6) continue;
+		if (inptr[DCTSIZE*1+col] == 0 && inptr[DCTSIZE*3+col] == 0 &&
+			inptr[DCTSIZE*5+col] == 0 && inptr[DCTSIZE*7+col] == 0)
+		{
+			/* AC terms all zero; we need not examine terms 2,4,6 for 2x2 output */
+			int dcval = (inptr[DCTSIZE*0+col] * quantptr[DCTSIZE*0+col]) << PASS1_BITS;
+
+			wsptr[DCTSIZE*0+col] = dcval;
+			wsptr[DCTSIZE*1+col] = dcval;
+			continue;
+		}
+
+		/* Even part */
+
+		z1 = inptr[DCTSIZE*0+col] * quantptr[DCTSIZE*0+col];
+		tmp10 = z1 << (CONST_BITS+2);
+
+		/* Odd part */
+
+		z1 = inptr[DCTSIZE*7+col] * quantptr[DCTSIZE*7+col];
+		tmp0 = z1 * - 5906/*FIX_0_720959822*/; /* sqrt(2) * (c7-c5+c3-c1) */
+		z1 = inptr[DCTSIZE*5+col] * quantptr[DCTSIZE*5+col];
+		tmp0 += z1 * 6967/*FIX_0_850430095*/; /* sqrt(2) * (-c1+c3+c5+c7) */
+		z1 = inptr[DCTSIZE*3+col] * quantptr[DCTSIZE*3+col];
+		tmp0 += z1 * - 10426/*FIX_1_272758580*/; /* sqrt(2) * (-c1+c3-c5-c7) */
+		z1 = inptr[DCTSIZE*1+col] * quantptr[DCTSIZE*1+col];
+		tmp0 += z1 * 29692/*FIX_3_624509785*/; /* sqrt(2) * (c1+c3+c5+c7) */
+
+		/* Final output stage */
+
+		wsptr[DCTSIZE*0+col] = (tmp10 + tmp0 + (1 << (CONST_BITS-PASS1_BITS+1))) >> (CONST_BITS-PASS1_BITS+2);
+		wsptr[DCTSIZE*1+col] = (tmp10 - tmp0 + (1 << (CONST_BITS-PASS1_BITS+1))) >> (CONST_BITS-PASS1_BITS+2);
+	}
+
+	/* Pass 2: process 2 rows from work array, store into output array. */
+
+	int wsptr_offset = 0;
+	for (ctr = 0; ctr < 2; ctr++) {
+		outptr = output_buf[ctr+output_buf_offset];
+		int outptr_offset = output_col;
+
+//#ifndef NO_ZERO_ROW_TEST
+		if (wsptr[1+wsptr_offset] == 0 && wsptr[3+wsptr_offset] == 0 && wsptr[5+wsptr_offset] == 0 && wsptr[7+wsptr_offset] == 0) {
+			/* AC terms all zero */
+			byte dcval = range_limit[range_limit_offset + (((wsptr[0+wsptr_offset] + (1 << (PASS1_BITS+2))) >> (PASS1_BITS+3))
+					& RANGE_MASK)];
+
+			outptr[0+outptr_offset] = dcval;
+			outptr[1+outptr_offset] = dcval;
+
+			wsptr_offset += DCTSIZE;		/* advance pointer to next row */
+			continue;
+		}
+//#endif
+
+		/* Even part */
+
+		tmp10 = wsptr[0+wsptr_offset] << (CONST_BITS+2);
+
+		/* Odd part */
+
+		tmp0 = wsptr[7+wsptr_offset] * - 5906/*FIX_0_720959822*/ /* sqrt(2) * (c7-c5+c3-c1) */
+			+ wsptr[5+wsptr_offset] * 6967/*FIX_0_850430095*/ /* sqrt(2) * (-c1+c3+c5+c7) */
+			+ wsptr[3+wsptr_offset] * - 10426/*FIX_1_272758580*/ /* sqrt(2) * (-c1+c3-c5-c7) */
+			+ wsptr[1+wsptr_offset] * 29692/*FIX_3_624509785*/; /* sqrt(2) * (c1+c3+c5+c7) */
+
+		/* Final output stage */
+
+		outptr[0+outptr_offset] = range_limit[range_limit_offset + (((tmp10 + tmp0 + (1 << (CONST_BITS+PASS1_BITS+3+1))) >>
+					(CONST_BITS+PASS1_BITS+3+2)) & RANGE_MASK)];
+		outptr[1+outptr_offset] = range_limit[range_limit_offset + (((tmp10 - tmp0 + (1 << (CONST_BITS+PASS1_BITS+3+1))) >>
+					(CONST_BITS+PASS1_BITS+3+2)) & RANGE_MASK)];
+
+		wsptr_offset += DCTSIZE;		/* advance pointer to next row */
+	}
+}
+
+static void jpeg_idct_1x1 (jpeg_decompress_struct cinfo, jpeg_component_info compptr,
+	short[] coef_block,
+	byte[][] output_buf, int output_buf_offset, int output_col)
+{
+	/* We hardly need an inverse DCT routine for this: just take the
+	 * average pixel value, which is one-eighth of the DC coefficient.
+	 */
+	byte[] range_limit = cinfo.sample_range_limit;
+	int range_limit_offset = cinfo.sample_range_limit_offset + CENTERJSAMPLE;
+	int dcval = coef_block[0] * compptr.dct_table[0];
+	dcval = (dcval + (1 << 2)) >> 3;
+	output_buf[output_buf_offset][output_col] = range_limit[range_limit_offset + (dcval & RANGE_MASK)];
+}
+
 static void upsample (jpeg_decompress_struct cinfo,
 	byte[][][] input_buf, int[] input_buf_offset, int[] in_row_group_ctr,
 	int in_row_groups_avail,
@@ -3454,6 +3730,70 @@ static boolean jpeg_start_decompress (jpeg_decompress_struct cinfo) {
 	return output_pass_setup(cinfo);
 }
 
+static void transdecode_master_selection (jpeg_decompress_struct cinfo) {
+	/* This is effectively a buffered-image operation. */
+	cinfo.buffered_image = true;
+
+	/* Entropy decoding: either Huffman or arithmetic coding. */
+	if (cinfo.arith_code) {
+		error();
+//		ERREXIT(cinfo, JERR_ARITH_NOTIMPL);
+	} else {
+		if (cinfo.progressive_mode) {
+			jinit_phuff_decoder(cinfo);
+		} else
+			jinit_huff_decoder(cinfo);
+	}
+
+	/* Always get a full-image coefficient buffer. */
+	jinit_d_coef_controller(cinfo, true);
+
+	/* Initialize input side of decompressor to consume first scan. */
+	start_input_pass (cinfo);
+}
+
+/*
+ * Read the coefficient arrays from a JPEG file.
+ * jpeg_read_header must be completed before calling this.
+ *
+ * The entire image is read into a set of virtual coefficient-block arrays,
+ * one per component.	The return value is the array of the arrays, indexed
+ * by component, of blocks (in natural order) of the quantized coefficients.
+ * The arrays are padded to whole iMCUs.
+ */
+static short[][][][] jpeg_read_coefficients (jpeg_decompress_struct cinfo) {
+	if (cinfo.global_state == DSTATE_READY) {
+		/* First call: initialize active modules */
+		transdecode_master_selection(cinfo);
+		cinfo.global_state = DSTATE_RDCOEFS;
+	}
+	if (cinfo.global_state == DSTATE_RDCOEFS) {
+		/* Absorb whole file into the coef buffer */
+		for (;;) {
+			int retcode;
+			/* Absorb some more input */
+			retcode = jpeg_consume_input(cinfo);
+			if (retcode == JPEG_SUSPENDED)
+				return null;
+			if (retcode == JPEG_REACHED_EOI)
+				break;
+		}
+		/* Set state so that jpeg_finish_decompress does the right thing */
+		cinfo.global_state = DSTATE_STOPPING;
+	}
+	/* At this point we should be in state DSTATE_STOPPING if being used
+	 * standalone, or in state DSTATE_BUFIMAGE if being invoked to get access
+	 * to the coefficients during a full buffered-image-mode decompression.
+	 */
+	if ((cinfo.global_state == DSTATE_STOPPING || cinfo.global_state == DSTATE_BUFIMAGE) && cinfo.buffered_image) {
+		return cinfo.coef.whole_image;
+	}
+	/* Oops, improper usage */
+	error();
+//	ERREXIT1(cinfo, JERR_BAD_STATE, cinfo.global_state);
+	return null;			/* keep compiler happy */
+}
+
 static void prepare_for_output_pass (jpeg_decompress_struct cinfo) {
 	jpeg_decomp_master master = cinfo.master;
 
@@ -3799,7 +4139,7 @@ static int decompress_onepass (jpeg_decompress_struct cinfo, byte[][][] output_b
 					if (cinfo.input_iMCU_row < last_iMCU_row ||	yoffset+yindex < compptr.last_row_height) {
 						output_col = start_col;
 						for (xindex = 0; xindex < useful_width; xindex++) {
-							jpeg_idct_islow(cinfo, compptr, coef.MCU_buffer[blkn+xindex], output_ptr, output_ptr_offset, output_col);
+							inverse_DCT(cinfo, compptr, coef.MCU_buffer[blkn+xindex], output_ptr, output_ptr_offset, output_col);
 							output_col += compptr.DCT_scaled_size;
 						}
 					}
@@ -4018,7 +4358,7 @@ static int decompress_smooth_data (jpeg_decompress_struct cinfo, byte[][][] outp
 					workspace[2] = (short) pred;
 				}
 				/* OK, do the IDCT */
-				jpeg_idct_islow(cinfo, compptr, workspace, output_ptr, output_ptr_offset, output_col);
+				inverse_DCT(cinfo, compptr, workspace, output_ptr, output_ptr_offset, output_col);
 				/* Advance for next column */
 				DC1 = DC2; DC2 = DC3;
 				DC4 = DC5; DC5 = DC6;
@@ -4082,7 +4422,7 @@ static int decompress_data (jpeg_decompress_struct cinfo, byte[][][] output_buf,
 			int buffer_ptr_offset = 0;
 			output_col = 0;
 			for (block_num = 0; block_num < compptr.width_in_blocks; block_num++) {
-				jpeg_idct_islow(cinfo, compptr, buffer_ptr[buffer_ptr_offset], output_ptr, output_ptr_offset, output_col);
+				inverse_DCT(cinfo, compptr, buffer_ptr[buffer_ptr_offset], output_ptr, output_ptr_offset, output_col);
 
 				buffer_ptr_offset++;
 				output_col += compptr.DCT_scaled_size;
@@ -6258,6 +6598,7 @@ static int jpeg_consume_input (jpeg_decompress_struct cinfo) {
 	case DSTATE_RAW_OK:
 	case DSTATE_BUFIMAGE:
 	case DSTATE_BUFPOST:
+	case DSTATE_RDCOEFS:
 	case DSTATE_STOPPING:
 		retcode = consume_input (cinfo);
 		break;
@@ -6304,29 +6645,57 @@ static boolean isFileFormat(LEDataInputStream stream) {
 }
 	
 static ImageData[] loadFromByteStream(InputStream inputStream, ImageLoader loader) {
-	jpeg_decompress_struct cinfo = new jpeg_decompress_struct();
-	cinfo.inputStream = inputStream;
-	jpeg_create_decompress(cinfo);
-	jpeg_read_header(cinfo, true);
-	cinfo.buffered_image = cinfo.progressive_mode && loader.hasListeners();
-	jpeg_start_decompress(cinfo);
-	PaletteData palette = null;
-	switch (cinfo.out_color_space) {
-		case JCS_RGB:
-			palette = new PaletteData(0xFF, 0xFF00, 0xFF0000);
-			break;
-		case JCS_GRAYSCALE:
-			RGB[] colors = new RGB[256];
-			for (int i = 0; i < colors.length; i++) {
-				colors[i] = new RGB(i, i, i);
-			}
-			palette = new PaletteData(colors);
-			break;
-		default:
-			error();
+	/*
+	 * A baseline image with restart markers is decoded in strips in parallel,
+	 * the stream is only buffered when its markers tell that it will be.
+	 */
+	if (!loader.hasListeners() && FileFormat.getExecutor() != null) {
+		byte[] markers;
+		try {
+			markers = JPEGStripDecoder.readMarkers(inputStream);
+			/* push the markers back, available() must count them for fill_input_buffer() */
+			LEDataInputStream stream = new LEDataInputStream(inputStream, Math.max(1, markers.length));
+			stream.unread(markers);
+			inputStream = stream;
+		} catch (IOException e) {
+			SWT.error(SWT.ERROR_IO, e);
+			return null;
+		}
+		if (JPEGStripDecoder.isStripped(markers)) {
+			byte[] bytes = readFully(inputStream);
+			ImageData imageData = JPEGStripDecoder.decode(bytes, loader);
+			if (imageData != null) return new ImageData[]{imageData};
+			inputStream = new ByteArrayInputStream(bytes);
+		}
+	}
+	return loadFromByteStream(inputStream, loader, 0);
+}
+
+/**
+ * Decode at 1/2, 1/4 or 1/8 of the size if it still covers the loader's
+ * target size. Answer the denominator of the scale.
+ */
+static int getScaleDenominator(int width, int height, ImageLoader loader) {
+	if (loader.targetWidth <= 0 && loader.targetHeight <= 0) return 1;
+	int denom = 8;
+	while (denom > 1 &&
+		(jdiv_round_up(width, denom) < loader.targetWidth ||
+		jdiv_round_up(height, denom) < loader.targetHeight))
+	{
+		denom /= 2;
 	}
+	return denom;
+}
+
+/**
+ * Decode the image at the scale 1/scale_denom, or at the scale chosen
+ * by getScaleDenominator() if scale_denom is 0.
+ */
+static ImageData[] loadFromByteStream(InputStream inputStream, ImageLoader loader, int scale_denom) {
+	jpeg_decompress_struct cinfo = startDecompress(inputStream, loader, scale_denom, loader.hasListeners());
+	PaletteData palette = getPalette(cinfo);
 	int scanlinePad = 4;
-	int row_stride = (((cinfo.output_width * cinfo.out_color_components * 8 + 7) / 8) + (scanlinePad - 1)) / scanlinePad * scanlinePad;
+	int row_stride = getRowStride(cinfo, scanlinePad);
 	byte[][] buffer = new byte[1][row_stride];
 	byte[] data = new byte[row_stride * cinfo.output_height];
 	ImageData imageData = ImageData.internal_new(
@@ -6357,4 +6726,88 @@ static ImageData[] loadFromByteStream(InputStream inputStream, ImageLoader loade
 	return new ImageData[]{imageData};
 }
 
+/**
+ * Decode the image a row of MCUs at a time, and give each of them to
+ * the sink. Only the rows of the band are kept, but a progressive or
+ * multi-scan image needs its coefficients until the last scan.
+ */
+static void loadBands(InputStream inputStream, ImageLoader loader, ImageBandSink sink) {
+	jpeg_decompress_struct cinfo = startDecompress(inputStream, loader, 0, false);
+	PaletteData palette = getPalette(cinfo);
+	int scanlinePad = 4;
+	int row_stride = getRowStride(cinfo, scanlinePad);
+	int bandHeight = Math.min(cinfo.output_height, cinfo.max_v_samp_factor * cinfo.min_DCT_scaled_size);
+	byte[][] buffer = new byte[bandHeight][row_stride];
+	ImageData band = null;
+	while (cinfo.output_scanline < cinfo.output_height) {
+		int y = cinfo.output_scanline;
+		int rows = Math.min(bandHeight, cinfo.output_height - y);
+		if (band == null || band.height != rows) {
+			band = ImageData.internal_new(
+					cinfo.output_width, rows, palette.isDirect ? 24 : 8, palette, scanlinePad, new byte[row_stride * rows],
+					0, null, null, -1, -1, SWT.IMAGE_JPEG, 0, 0, 0, 0);
+		}
+		for (int count = 0; count < rows;) {
+			int lines = jpeg_read_scanlines(cinfo, buffer, rows - count);
+			if (lines == 0) error();
+			for (int i = 0; i < lines; i++) {
+				System.arraycopy(buffer[i], 0, band.data, (count + i) * row_stride, row_stride);
+			}
+			count += lines;
+		}
+		sink.putBand(band, y, cinfo.output_height);
+	}
+	jpeg_finish_decompress(cinfo);
+	jpeg_destroy_decompress(cinfo);
+}
+
+static jpeg_decompress_struct startDecompress(InputStream inputStream, ImageLoader loader, int scale_denom, boolean buffered_image) {
+	jpeg_decompress_struct cinfo = new jpeg_decompress_struct();
+	cinfo.inputStream = inputStream;
+	jpeg_create_decompress(cinfo);
+	jpeg_read_header(cinfo, true);
+	cinfo.buffered_image = cinfo.progressive_mode && buffered_image;
+	if (scale_denom == 0) {
+		scale_denom = getScaleDenominator(cinfo.image_width, cinfo.image_height, loader);
+	}
+	cinfo.scale_num = 1;
+	cinfo.scale_denom = scale_denom;
+	jpeg_start_decompress(cinfo);
+	return cinfo;
+}
+
+static PaletteData getPalette(jpeg_decompress_struct cinfo) {
+	switch (cinfo.out_color_space) {
+		case JCS_RGB:
+			return new PaletteData(0xFF, 0xFF00, 0xFF0000);
+		case JCS_GRAYSCALE:
+			RGB[] colors = new RGB[256];
+			for (int i = 0; i < colors.length; i++) {
+				colors[i] = new RGB(i, i, i);
+			}
+			return new PaletteData(colors);
+		default:
+			error();
+			return null;
+	}
+}
+
+static int getRowStride(jpeg_decompress_struct cinfo, int scanlinePad) {
+	return (((cinfo.output_width * cinfo.out_color_components * 8 + 7) / 8) + (scanlinePad - 1)) / scanlinePad * scanlinePad;
+}
+
+static byte[] readFully(InputStream inputStream) {
+	ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+	byte[] buffer = new byte[16 * 1024];
+	try {
+		int count;
+		while ((count = inputStream.read(buffer)) != -1) {
+			out.write(buffer, 0, count);
+		}
+	} catch (IOException e) {
+		SWT.error(SWT.ERROR_IO, e);
+	}
+	return out.toByteArray();
+}
+
 }
@@ -13,6 +13,8 @@ package org.eclipse.swt.internal.image;
 import org.eclipse.swt.*;
 import org.eclipse.swt.graphics.*;
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 final class JPEGFileFormat extends FileFormat {
 	int restartInterval;
@@ -41,6 +43,12 @@ final class JPEGFileFormat extends FileFormat {
 	int currentByte;
 	int encoderQFactor = 75;
 	int eobrun = 0;
+	/* the quantized coefficients of the blocks of each component, written
+	 * instead of the pixels by a lossless transform */
+	short[][][][] coefficients;
+	/* the rows of pixels converted, and the rows of MCUs encoded, by a task */
+	static final int ROWS_PER_BAND = 64;
+	static final int MCU_ROWS_PER_BAND = 4;
 	/* JPEGConstants */
 	public static final int DCTSIZE = 8;
 	public static final int DCTSIZESQR = 64;
@@ -152,10 +160,9 @@ final class JPEGFileFormat extends FileFormat {
 	static {
 		initialize();
 	}
-void compress(ImageData image, byte[] dataYComp, byte[] dataCbComp, byte[] dataCrComp) {
-	int srcWidth = image.width;
+void compress(ImageData image, byte[] dataYComp, final byte[] dataCbComp, final byte[] dataCrComp) {
+	final int srcWidth = image.width;
 	int srcHeight = image.height;
-	int vhFactor = maxV * maxH;
 	int[] frameComponent;
 	imageComponents = new byte[nComponents][];
 	for (int i = 0; i < nComponents; i++) {
@@ -168,34 +175,14 @@ void compress(ImageData image, byte[] dataYComp, byte[] dataCbComp, byte[] dataC
 		int dstOfs = yPos * frameComponent[CW];
 		System.arraycopy(dataYComp, srcOfs, imageComponents[ID_Y], dstOfs, srcWidth);
 	}
-	frameComponent = frameComponents[componentIds[ID_CB]];
-	for (int yPos = 0; yPos < srcHeight / maxV; yPos++) {
-		int destRowIndex = yPos * frameComponent[CW];
-		for (int xPos = 0; xPos < srcWidth / maxH; xPos++) {
-			int sum = 0;
-			for (int iv = 0; iv < maxV; iv++) {
-				int srcIndex = (yPos * maxV + iv) * srcWidth + (xPos * maxH);
-				for (int ih = 0; ih < maxH; ih++) {
-					sum += dataCbComp[srcIndex + ih] & 0xFF;
-				}
-			}
-			imageComponents[ID_CB][destRowIndex + xPos] = (byte)(sum / vhFactor);
+	final int cbWidth = frameComponents[componentIds[ID_CB]][CW];
+	final int crWidth = frameComponents[componentIds[ID_CR]][CW];
+	runInBands(srcHeight / maxV, ROWS_PER_BAND / maxV, new RowTask() {
+		void run(int start, int end) {
+			subsample(dataCbComp, srcWidth, imageComponents[ID_CB], cbWidth, start, end);
+			subsample(dataCrComp, srcWidth, imageComponents[ID_CR], crWidth, start, end);
 		}
-	}
-	frameComponent = frameComponents[componentIds[ID_CR]];
-	for (int yPos = 0; yPos < srcHeight / maxV; yPos++) {
-		int destRowIndex = yPos * frameComponent[CW];
-		for (int xPos = 0; xPos < srcWidth / maxH; xPos++) {
-			int sum = 0;
-			for (int iv = 0; iv < maxV; iv++) {
-				int srcIndex = (yPos * maxV + iv) * srcWidth + (xPos * maxH);
-				for (int ih = 0; ih < maxH; ih++) {
-					sum += dataCrComp[srcIndex + ih] & 0xFF;
-				}
-			}
-			imageComponents[ID_CR][destRowIndex + xPos] = (byte)(sum / vhFactor);
-		}
-	}
+	});
 	for (int iComp = 0; iComp < nComponents; iComp++) {
 		byte[] imageComponent = imageComponents[iComp];
 		frameComponent = frameComponents[componentIds[iComp]];
@@ -224,6 +211,26 @@ void compress(ImageData image, byte[] dataYComp, byte[] dataCbComp, byte[] dataC
 		}
 	}
 }
+/**
+ * Average the maxH by maxV pixels of a chroma component, for the rows
+ * of the subsampled component from start to end.
+ */
+void subsample(byte[] src, int srcWidth, byte[] dest, int destWidth, int start, int end) {
+	int vhFactor = maxV * maxH;
+	for (int yPos = start; yPos < end; yPos++) {
+		int destRowIndex = yPos * destWidth;
+		for (int xPos = 0; xPos < srcWidth / maxH; xPos++) {
+			int sum = 0;
+			for (int iv = 0; iv < maxV; iv++) {
+				int srcIndex = (yPos * maxV + iv) * srcWidth + (xPos * maxH);
+				for (int ih = 0; ih < maxH; ih++) {
+					sum += src[srcIndex + ih] & 0xFF;
+				}
+			}
+			dest[destRowIndex + xPos] = (byte)(sum / vhFactor);
+		}
+	}
+}
 void convert4BitRGBToYCbCr(ImageData image) {
 	RGB[] rgbs = image.getRGBs();
 	int paletteSize = rgbs.length;
@@ -337,56 +344,60 @@ void convertImageToYCbCr(ImageData image) {
 	}
 	return;
 }
-void convertMultiRGBToYCbCr(ImageData image) {
-	int srcWidth = image.width;
+void convertMultiRGBToYCbCr(final ImageData image) {
+	final int srcWidth = image.width;
 	int srcHeight = image.height;
 	int bSize = srcWidth * srcHeight;
-	byte[] dataYComp = new byte[bSize];
-	byte[] dataCbComp = new byte[bSize];
-	byte[] dataCrComp = new byte[bSize];
-	PaletteData palette = image.palette;
-	int[] buffer = new int[srcWidth];
-	if (palette.isDirect) {
-		int redMask = palette.redMask;
-		int greenMask = palette.greenMask;
-		int blueMask = palette.blueMask;
-		int redShift = palette.redShift;
-		int greenShift = palette.greenShift;
-		int blueShift = palette.blueShift;
-		for (int yPos = 0; yPos < srcHeight; yPos++) {
-			image.getPixels(0, yPos, srcWidth, buffer, 0);
-			int dstRowIndex = yPos * srcWidth;
-			for (int xPos = 0; xPos < srcWidth; xPos++) {
-				int pixel = buffer[xPos];
-				int dstDataIndex = dstRowIndex + xPos;
-				int r = pixel & redMask;
-				r = (redShift < 0) ? r >>> -redShift : r << redShift;
-				int g = pixel & greenMask;
-				g = (greenShift < 0) ? g >>> -greenShift : g << greenShift;
-				int b = pixel & blueMask;
-				b = (blueShift < 0) ? b >>> -blueShift : b << blueShift;				
-				dataYComp[dstDataIndex] = (byte)((RYTable[r] + GYTable[g] + BYTable[b]) >> 16);
-				dataCbComp[dstDataIndex] = (byte)((RCbTable[r] + GCbTable[g] + BCbTable[b]) >> 16);
-				dataCrComp[dstDataIndex] = (byte)((RCrTable[r] + GCrTable[g] + BCrTable[b]) >> 16);
-			}
-		}
-	} else {
-		for (int yPos = 0; yPos < srcHeight; yPos++) {
-			image.getPixels(0, yPos, srcWidth, buffer, 0);
-			int dstRowIndex = yPos * srcWidth;
-			for (int xPos = 0; xPos < srcWidth; xPos++) {
-				int pixel = buffer[xPos];
-				int dstDataIndex = dstRowIndex + xPos;
-				RGB rgb = palette.getRGB(pixel);
-				int r = rgb.red;
-				int g = rgb.green;
-				int b = rgb.blue;
-				dataYComp[dstDataIndex] = (byte)((RYTable[r] + GYTable[g] + BYTable[b]) >> 16);
-				dataCbComp[dstDataIndex] = (byte)((RCbTable[r] + GCbTable[g] + BCbTable[b]) >> 16);
-				dataCrComp[dstDataIndex] = (byte)((RCrTable[r] + GCrTable[g] + BCrTable[b]) >> 16);
+	final byte[] dataYComp = new byte[bSize];
+	final byte[] dataCbComp = new byte[bSize];
+	final byte[] dataCrComp = new byte[bSize];
+	final PaletteData palette = image.palette;
+	runInBands(srcHeight, ROWS_PER_BAND, new RowTask() {
+		void run(int start, int end) {
+			int[] buffer = new int[srcWidth];
+			if (palette.isDirect) {
+				int redMask = palette.redMask;
+				int greenMask = palette.greenMask;
+				int blueMask = palette.blueMask;
+				int redShift = palette.redShift;
+				int greenShift = palette.greenShift;
+				int blueShift = palette.blueShift;
+				for (int yPos = start; yPos < end; yPos++) {
+					image.getPixels(0, yPos, srcWidth, buffer, 0);
+					int dstRowIndex = yPos * srcWidth;
+					for (int xPos = 0; xPos < srcWidth; xPos++) {
+						int pixel = buffer[xPos];
+						int dstDataIndex = dstRowIndex + xPos;
+						int r = pixel & redMask;
+						r = (redShift < 0) ? r >>> -redShift : r << redShift;
+						int g = pixel & greenMask;
+						g = (greenShift < 0) ? g >>> -greenShift : g << greenShift;
+						int b = pixel & blueMask;
+						b = (blueShift < 0) ? b >>> -blueShift : b << blueShift;				
+						dataYComp[dstDataIndex] = (byte)((RYTable[r] + GYTable[g] + BYTable[b]) >> 16);
+						dataCbComp[dstDataIndex] = (byte)((RCbTable[r] + GCbTable[g] + BCbTable[b]) >> 16);
+						dataCrComp[dstDataIndex] = (byte)((RCrTable[r] + GCrTable[g] + BCrTable[b]) >> 16);
+					}
+				}
+			} else {
+				for (int yPos = start; yPos < end; yPos++) {
+					image.getPixels(0, yPos, srcWidth, buffer, 0);
+					int dstRowIndex = yPos * srcWidth;
+					for (int xPos = 0; xPos < srcWidth; xPos++) {
+						int pixel = buffer[xPos];
+						int dstDataIndex = dstRowIndex + xPos;
+						RGB rgb = palette.getRGB(pixel);
+						int r = rgb.red;
+						int g = rgb.green;
+						int b = rgb.blue;
+						dataYComp[dstDataIndex] = (byte)((RYTable[r] + GYTable[g] + BYTable[b]) >> 16);
+						dataCbComp[dstDataIndex] = (byte)((RCbTable[r] + GCbTable[g] + BCbTable[b]) >> 16);
+						dataCrComp[dstDataIndex] = (byte)((RCrTable[r] + GCrTable[g] + BCrTable[b]) >> 16);
+					}
+				}
 			}
 		}
-	}
+	});
 	compress(image, dataYComp, dataCbComp, dataCrComp);
 }
 byte[] convertYToRGB() {
@@ -757,136 +768,133 @@ int decodeUsingTable(JPEGHuffmanTable huffmanTable) {
 	int j = valPtrs[i] + code - minCodes[i];
 	return huffVals[j];
 }
-void emit(int huffCode, int nBits) {
-	if (nBits == 0) {
-		SWT.error(SWT.ERROR_INVALID_IMAGE);
-	}
-	int[] power2m1 = new int[] {
-		1, 3, 7, 15, 31, 63, 127, 255, 511, 1023, 2047, 4095, 8191, 
-		16383, 32767, 65535, 131125
-	};
-	int code = (huffCode & power2m1[nBits - 1]) << (24 - nBits - currentBitCount);
-	byte[] codeBuffer = new byte[4];
-	codeBuffer[0] = (byte)(code & 0xFF);
-	codeBuffer[1] = (byte)((code >> 8) & 0xFF);
-	codeBuffer[2] = (byte)((code >> 16) & 0xFF);
-	codeBuffer[3] = (byte)((code >> 24) & 0xFF);
-	int abs = nBits - (8 - currentBitCount);
-	if (abs < 0) abs = -abs;
-	if ((abs >> 3) > 0) {
-		currentByte += codeBuffer[2];
-		emitByte((byte)currentByte);
-		emitByte(codeBuffer[1]);
-		currentByte = codeBuffer[0];
-		currentBitCount += nBits - 16;
-	} else {
-		currentBitCount += nBits;
-		if (currentBitCount >= 8) {
-			currentByte += codeBuffer[2];
-			emitByte((byte)currentByte);
-			currentByte = codeBuffer[1];
-			currentBitCount -= 8;
-		} else {
-			currentByte += codeBuffer[2];
-		}
-	}
-}
-void emitByte(byte byteValue) {
-	if (bufferCurrentPosition >= 512) {
-		resetOutputBuffer();
-	}
-	dataBuffer[bufferCurrentPosition] = byteValue;
-	bufferCurrentPosition++;
-	if (byteValue == -1) {
-		emitByte((byte)0);
-	}
-}
-void encodeACCoefficients(int[] dataUnit, int iComp) {
-	int[] sParams = scanHeader.componentParameters[iComp];
-	JPEGHuffmanTable acTable = acHuffmanTables[sParams[AC]];
-	int[] ehCodes = acTable.ehCodes;
-	byte[] ehSizes = acTable.ehCodeLengths;
-	int r = 0;
-	int k = 1;
-	while (k < 64) {
-		k++;
-		int acValue = dataUnit[ZigZag8x8[k - 1]];
-		if (acValue == 0) {
-			if (k == 64) {
-				emit(ehCodes[0], ehSizes[0] & 0xFF);
-			} else {
-				r++;
+/**
+ * Write the Huffman tables, the restart interval, the scan header and
+ * the scan. If there is more than one processor and more than one band,
+ * the scan is encoded in bands of rows of MCUs, in parallel on the shared
+ * executor, and the bands are written in order. Then every row of MCUs is
+ * a restart interval, which lets the bands be encoded (and decoded)
+ * independently. Else the scan is one interval, without restart markers.
+ * <p>
+ * With optimize, the Huffman tables are built for the symbols of the
+ * image, counted by a first pass over the bands; else the default
+ * tables of the JPEG specification are used.
+ * </p>
+ */
+void encodeScan(boolean optimize) throws IOException {
+	int bands = (interleavedMcuRows + MCU_ROWS_PER_BAND - 1) / MCU_ROWS_PER_BAND;
+	ExecutorService executor = getExecutor();
+	if (executor == null || bands < 2) {
+		/* one band of all the rows, without restart markers */
+		executor = null;
+		bands = 1;
+	}
+	boolean restart = executor != null;
+	int rowsPerBand = restart ? MCU_ROWS_PER_BAND : interleavedMcuRows;
+	final JPEGScanEncoder[] encoders = new JPEGScanEncoder[bands];
+	for (int i = 0; i < bands; i++) {
+		encoders[i] = new JPEGScanEncoder(this, i * rowsPerBand, Math.min(interleavedMcuRows, (i + 1) * rowsPerBand), restart);
+	}
+	JPEGHuffmanTable[] dhtTables;
+	if (optimize) {
+		if (executor == null) {
+			for (int i = 0; i < bands; i++) {
+				encoders[i].count();
 			}
 		} else {
-			while (r > 15) {
-				emit(ehCodes[0xF0], ehSizes[0xF0] & 0xFF);
-				r -= 16;
+			List futures = new ArrayList(bands);
+			for (int i = 0; i < bands; i++) {
+				final JPEGScanEncoder encoder = encoders[i];
+				futures.add(executor.submit(new Runnable() {
+					public void run() {
+						encoder.count();
+					}
+				}));
 			}
-			if (acValue < 0) {
-				int absACValue = acValue;
-				if (absACValue < 0) absACValue = -absACValue;
-				int nBits = NBitsTable[absACValue];
-				int rs = r * 16 + nBits;
-				emit(ehCodes[rs], ehSizes[rs] & 0xFF);
-				emit(0xFFFFFF - absACValue, nBits);
-			} else {
-				int nBits = NBitsTable[acValue];
-				int rs = r * 16 + nBits;
-				emit(ehCodes[rs], ehSizes[rs] & 0xFF);
-				emit(acValue, nBits);
+			waitFor(futures);
+		}
+		long[][] dcCounts = new long[4][257];
+		long[][] acCounts = new long[4][257];
+		for (int i = 0; i < bands; i++) {
+			for (int j = 0; j < 4; j++) {
+				for (int k = 0; k < 257; k++) {
+					dcCounts[j][k] += encoders[i].dcCounts[j][k];
+					acCounts[j][k] += encoders[i].acCounts[j][k];
+				}
 			}
-			r = 0;
 		}
-	}
-}
-void encodeDCCoefficients(int[] dataUnit, int iComp) {
-	int[] sParams = scanHeader.componentParameters[iComp];
-	JPEGHuffmanTable dcTable = dcHuffmanTables[sParams[DC]];
-	int lastDC = precedingDCs[iComp];
-	int dcValue = dataUnit[0];
-	int diff = dcValue - lastDC;
-	precedingDCs[iComp] = dcValue;
-	if (diff < 0) {
-		int absDiff = 0 - diff;
-		int nBits = NBitsTable[absDiff];
-		emit(dcTable.ehCodes[nBits], dcTable.ehCodeLengths[nBits]);
-		emit(0xFFFFFF - absDiff, nBits);
-	} else {
-		int nBits = NBitsTable[diff];
-		emit(dcTable.ehCodes[nBits], dcTable.ehCodeLengths[nBits]);
-		if (nBits != 0) {
-			emit(diff, nBits);
+		boolean[][] used = new boolean[2][4];
+		for (int iComp = 0; iComp < nComponents; iComp++) {
+			int[] sParams = scanHeader.componentParameters[iComp];
+			used[0][sParams[DC]] = true;
+			used[1][sParams[AC]] = true;
 		}
+		dhtTables = new JPEGHuffmanTable[] {JPEGHuffmanTable.getOptimalTables(used, dcCounts, acCounts)};
+	} else {
+		dhtTables = new JPEGHuffmanTable[] {
+			JPEGHuffmanTable.getDefaultDCLuminanceTable(),
+			JPEGHuffmanTable.getDefaultDCChrominanceTable(),
+			JPEGHuffmanTable.getDefaultACLuminanceTable(),
+			JPEGHuffmanTable.getDefaultACChrominanceTable()
+		};
 	}
-}
-void encodeMCUAtXAndY(int xmcu, int ymcu) {
-	int nComponentsInScan = scanHeader.getNumberOfImageComponents();
-	dataUnit = new int[64];
-	for (int iComp = 0; iComp < nComponentsInScan; iComp++) {
-		int[] frameComponent = frameComponents[componentIds[iComp]];
-		int hi = frameComponent[HI];
-		int vi = frameComponent[VI];
-		for (int ivi = 0; ivi < vi; ivi++) {
-			for (int ihi = 0; ihi < hi; ihi++) {
-				extractData(dataUnit, iComp, xmcu, ymcu, ihi, ivi);
-				forwardDCT(dataUnit);
-				quantizeData(dataUnit, iComp);
-				encodeDCCoefficients(dataUnit, iComp);
-				encodeACCoefficients(dataUnit, iComp);
+	acHuffmanTables = new JPEGHuffmanTable[4];
+	dcHuffmanTables = new JPEGHuffmanTable[4];
+	for (int i = 0; i < dhtTables.length; i++) {
+		JPEGHuffmanTable dhtTable = dhtTables[i];
+		if (!dhtTable.writeToStream(outputStream)) {
+			SWT.error(SWT.ERROR_IO);
+		}
+		JPEGHuffmanTable[] allTables = dhtTable.getAllTables();
+		for (int j = 0; j < allTables.length; j++) {
+			JPEGHuffmanTable huffmanTable = allTables[j];
+			if (huffmanTable.getTableClass() == 0) {
+				dcHuffmanTables[huffmanTable.getTableIdentifier()] = huffmanTable;
+			} else {
+				acHuffmanTables[huffmanTable.getTableIdentifier()] = huffmanTable;
 			}
 		}
 	}
-}
-void encodeScan() {
-	for (int ymcu = 0; ymcu < interleavedMcuRows; ymcu++) {
-		for (int xmcu = 0; xmcu < interleavedMcuCols; xmcu++) {
-			encodeMCUAtXAndY(xmcu, ymcu);
+	if (restart) {
+		if (!new JPEGRestartInterval(interleavedMcuCols).writeToStream(outputStream)) {
+			SWT.error(SWT.ERROR_IO);
 		}
 	}
-	if (currentBitCount != 0) {
-		emitByte((byte)currentByte);
+	if (!scanHeader.writeToStream(outputStream)) {
+		SWT.error(SWT.ERROR_IO);
 	}
-	resetOutputBuffer();
+	if (executor == null) {
+		for (int i = 0; i < bands; i++) {
+			encoders[i].encode();
+			outputStream.write(encoders[i].buffer, 0, encoders[i].length);
+			encoders[i] = null;
+		}
+	} else {
+		List futures = new ArrayList(bands);
+		for (int i = 0; i < bands; i++) {
+			final JPEGScanEncoder encoder = encoders[i];
+			futures.add(executor.submit(new Callable() {
+				public Object call() {
+					encoder.encode();
+					return encoder;
+				}
+			}));
+			encoders[i] = null;
+		}
+		for (int i = 0; i < bands; i++) {
+			JPEGScanEncoder encoder = (JPEGScanEncoder) waitFor((Future) futures.get(i));
+			outputStream.write(encoder.buffer, 0, encoder.length);
+			futures.set(i, null);
+		}
+	}
+}
+int blocksPerMCU() {
+	int blocks = 0;
+	for (int iComp = 0; iComp < nComponents; iComp++) {
+		int[] frameComponent = frameComponents[componentIds[iComp]];
+		blocks += frameComponent[HI] * frameComponent[VI];
+	}
+	return blocks;
 }
 void expandImageComponents() {
 	for (int iComp = 0; iComp < nComponents; iComp++) {
@@ -1192,6 +1200,32 @@ static void initializeYCbCrRGBTables() {
 		CbGTable[i] = -11277 * x2 + 32768;
 	}
 }
+/**
+ * Run the task on bands of the rows, in parallel on the shared executor
+ * if there is more than one processor.
+ */
+static void runInBands(int rows, int rowsPerBand, final RowTask task) {
+	ExecutorService executor = getExecutor();
+	if (executor == null || rows <= rowsPerBand) {
+		task.run(0, rows);
+		return;
+	}
+	List futures = new ArrayList();
+	for (int start = 0; start < rows; start += rowsPerBand) {
+		final int bandStart = start;
+		final int bandEnd = Math.min(rows, start + rowsPerBand);
+		futures.add(executor.submit(new Runnable() {
+			public void run() {
+				task.run(bandStart, bandEnd);
+			}
+		}));
+	}
+	try {
+		waitFor(futures);
+	} catch (IOException e) {
+		SWT.error(SWT.ERROR_IO, e);
+	}
+}
 void inverseDCT(int[] dataUnit) {
 	for (int row = 0; row < 8; row++) {
 		int rIndex = row * DCTSIZE;
@@ -1674,18 +1708,6 @@ void resetInputBuffer() {
 	currentBitCount = 0;
 	bufferCurrentPosition = -1;
 }
-void resetOutputBuffer() {
-	if (dataBuffer == null) {
-		dataBuffer = new byte[512];
-	} else {
-		try {
-			outputStream.write(dataBuffer, 0, bufferCurrentPosition);
-		} catch (IOException e) {
-			SWT.error(SWT.ERROR_IO, e);
-		}
-	}
-	bufferCurrentPosition = 0;
-}
 static JPEGSegment seekUnspecifiedMarker(LEDataInputStream byteStream) {
 	byte[] byteArray = new byte[2];
 	try {
@@ -1829,30 +1851,6 @@ void unloadIntoByteStream(ImageLoader loader) {
 	int mcuHeight = maxV * DCTSIZE;
 	interleavedMcuCols = (imageWidth + mcuWidth - 1) / mcuWidth;
 	interleavedMcuRows = (imageHeight + mcuHeight - 1) / mcuHeight;
-	acHuffmanTables = new JPEGHuffmanTable[4];
-	dcHuffmanTables = new JPEGHuffmanTable[4];
-	JPEGHuffmanTable[] dhtTables = new JPEGHuffmanTable[] {
-		JPEGHuffmanTable.getDefaultDCLuminanceTable(),
-		JPEGHuffmanTable.getDefaultDCChrominanceTable(),
-		JPEGHuffmanTable.getDefaultACLuminanceTable(),
-		JPEGHuffmanTable.getDefaultACChrominanceTable()
-	};
-	for (int i = 0; i < dhtTables.length; i++) {
-		JPEGHuffmanTable dhtTable = dhtTables[i];
-		if (!dhtTable.writeToStream(outputStream)) {
-			SWT.error(SWT.ERROR_IO);
-		}
-		JPEGHuffmanTable[] allTables = dhtTable.getAllTables();
-		for (int j = 0; j < allTables.length; j++) {
-			JPEGHuffmanTable huffmanTable = allTables[j];
-			if (huffmanTable.getTableClass() == 0) {
-				dcHuffmanTables[huffmanTable.getTableIdentifier()] = huffmanTable;
-			} else {
-				acHuffmanTables[huffmanTable.getTableIdentifier()] = huffmanTable;
-			}
-		}
-	}
-	precedingDCs = new int[4];
 	scanHeader = new JPEGScanHeader(new byte[14]);
 	scanHeader.setSegmentMarker(SOS);
 	scanHeader.setSegmentLength(scanLength);
@@ -1861,16 +1859,108 @@ void unloadIntoByteStream(ImageLoader loader) {
 	scanHeader.setEndOfSpectralSelection(63);
 	scanHeader.componentParameters = scanParams;
 	scanHeader.initializeContents();
-	if (!scanHeader.writeToStream(outputStream)) {
+	convertImageToYCbCr(image);
+	try {
+		encodeScan(loader.optimize);
+	} catch (IOException e) {
+		SWT.error(SWT.ERROR_IO, e);
+	}
+	if (!new JPEGEndOfImage().writeToStream(outputStream)) {
 		SWT.error(SWT.ERROR_IO);
 	}
-	convertImageToYCbCr(image);
-	resetOutputBuffer();
-	currentByte = 0;
-	currentBitCount = 0;
-	encodeScan();
+}
+/**
+ * Write an image given by the quantized coefficients of the blocks of
+ * its components, in natural order, rather than by its pixels: this is
+ * how JPEGLosslessTransform writes a rotated or cropped JPEG. The
+ * segments (APPn, COM) are copied before the tables. The frame
+ * parameters of each component are its quantization table and its
+ * sampling factors, and the quantization tables are in zigzag order.
+ */
+void unloadCoefficients(List segments, int width, int height, int[][] frameParams, int[][] qTables, short[][][][] coefficients, boolean optimize) throws IOException {
+	if (!new JPEGStartOfImage().writeToStream(outputStream)) {
+		SWT.error(SWT.ERROR_IO);
+	}
+	for (int i = 0; i < segments.size(); i++) {
+		outputStream.write((byte[]) segments.get(i));
+	}
+	quantizationTables = qTables;
+	int dqtLength = 2;
+	for (int i = 0; i < qTables.length; i++) {
+		if (qTables[i] != null) dqtLength += 1 + 64 * precision(qTables[i]);
+	}
+	byte[] dqt = new byte[2 + dqtLength];
+	int ofs = 4;
+	boolean baseline = true;
+	for (int i = 0; i < qTables.length; i++) {
+		if (qTables[i] == null) continue;
+		int precision = precision(qTables[i]);
+		if (precision == 2) baseline = false;
+		dqt[ofs++] = (byte)((precision - 1) * 16 + i);
+		for (int j = 0; j < 64; j++) {
+			if (precision == 2) dqt[ofs++] = (byte)(qTables[i][j] >> 8);
+			dqt[ofs++] = (byte)qTables[i][j];
+		}
+	}
+	JPEGQuantizationTable dqtSegment = new JPEGQuantizationTable(dqt);
+	dqtSegment.setSegmentMarker(DQT);
+	dqtSegment.setSegmentLength(dqtLength);
+	if (!dqtSegment.writeToStream(outputStream)) {
+		SWT.error(SWT.ERROR_IO);
+	}
+	nComponents = frameParams.length;
+	int[][] scanParams = new int[nComponents][];
+	componentIds = new int[nComponents];
+	for (int i = 0; i < nComponents; i++) {
+		scanParams[i] = i == 0 ? new int[] {0, 0} : new int[] {1, 1};
+		componentIds[i] = i;
+	}
+	imageWidth = width;
+	imageHeight = height;
+	frameHeader = new JPEGFrameHeader(new byte[10 + nComponents * 3]);
+	frameHeader.setSegmentMarker(baseline ? SOF0 : SOF1);
+	frameHeader.setSegmentLength(8 + nComponents * 3);
+	frameHeader.setSamplePrecision(8);
+	frameHeader.setSamplesPerLine(imageWidth);
+	frameHeader.setNumberOfLines(imageHeight);
+	frameHeader.setNumberOfImageComponents(nComponents);
+	frameHeader.componentParameters = frameParams;
+	frameHeader.componentIdentifiers = componentIds;
+	frameHeader.initializeContents();
+	if (!frameHeader.writeToStream(outputStream)) {
+		SWT.error(SWT.ERROR_IO);
+	}
+	frameComponents = frameParams;
+	maxH = frameHeader.getMaxHFactor();
+	maxV = frameHeader.getMaxVFactor();
+	interleavedMcuCols = (imageWidth + maxH * DCTSIZE - 1) / (maxH * DCTSIZE);
+	interleavedMcuRows = (imageHeight + maxV * DCTSIZE - 1) / (maxV * DCTSIZE);
+	scanHeader = new JPEGScanHeader(new byte[8 + nComponents * 2]);
+	scanHeader.setSegmentMarker(SOS);
+	scanHeader.setSegmentLength(6 + nComponents * 2);
+	scanHeader.setNumberOfImageComponents(nComponents);
+	scanHeader.setStartOfSpectralSelection(0);
+	scanHeader.setEndOfSpectralSelection(63);
+	scanHeader.componentParameters = scanParams;
+	scanHeader.initializeContents();
+	this.coefficients = coefficients;
+	encodeScan(optimize);
+	this.coefficients = null;
 	if (!new JPEGEndOfImage().writeToStream(outputStream)) {
 		SWT.error(SWT.ERROR_IO);
 	}
 }
+/* the bytes of a value of the quantization table */
+static int precision(int[] qTable) {
+	for (int i = 0; i < qTable.length; i++) {
+		if (qTable[i] > 255) return 2;
+	}
+	return 1;
+}
+/**
+ * The work on the rows from start to end, of a band run by runInBands().
+ */
+static abstract class RowTask {
+	abstract void run(int start, int end);
+}
 }
@@ -11,6 +11,8 @@
 package org.eclipse.swt.internal.image;
 
 
+import org.eclipse.swt.*;
+
 /**
  * JPEGHuffmanTable class actually represents two types of object:
  * 1) A DHT (Define Huffman Tables) segment, which may represent
@@ -111,6 +113,127 @@ public static JPEGHuffmanTable getDefaultDCLuminanceTable() {
 	return result;
 }
 
+/**
+ * Answer a DHT of the used tables, of class DC (0) and AC (1) and of
+ * identifiers 0 to 3, built for the given counts of their symbols. The
+ * code lengths are computed as jpeg_gen_optimal_table() of libjpeg does:
+ * a Huffman tree limited to 16 bits, with a code of all 1 bits left
+ * unused.
+ */
+public static JPEGHuffmanTable getOptimalTables(boolean[][] used, long[][] dcCounts, long[][] acCounts) {
+	byte[][] tables = new byte[8][];
+	int size = 4;
+	for (int tc = 0; tc < 2; tc++) {
+		for (int tid = 0; tid < 4; tid++) {
+			if (!used[tc][tid]) continue;
+			byte[] table = getOptimalTable(tc == 0 ? dcCounts[tid] : acCounts[tid]);
+			table[0] = (byte)(tc << 4 | tid);
+			tables[tc * 4 + tid] = table;
+			size += table.length;
+		}
+	}
+	byte[] reference = new byte[size];
+	reference[0] = (byte)0xFF;
+	reference[1] = (byte)0xC4;
+	reference[2] = (byte)((size - 2) >> 8);
+	reference[3] = (byte)(size - 2);
+	int ofs = 4;
+	for (int i = 0; i < tables.length; i++) {
+		if (tables[i] == null) continue;
+		System.arraycopy(tables[i], 0, reference, ofs, tables[i].length);
+		ofs += tables[i].length;
+	}
+	JPEGHuffmanTable result = new JPEGHuffmanTable(reference);
+	result.initialize();
+	return result;
+}
+
+/**
+ * Answer the table class and identifier byte (left 0), the 16 counts of
+ * the codes of each length and the symbols, of the table for the counts.
+ */
+static byte[] getOptimalTable(long[] counts) {
+	final int MAX_CLEN = 32;
+	long[] freq = new long[257];
+	System.arraycopy(counts, 0, freq, 0, 256);
+	/* reserve one code point so no real code is all 1 bits */
+	freq[256] = 1;
+	int[] codesize = new int[257];
+	int[] others = new int[257];
+	for (int i = 0; i < others.length; i++) {
+		others[i] = -1;
+	}
+	while (true) {
+		/* the two least frequent symbols, the larger value first when equal */
+		int c1 = -1, c2 = -1;
+		long v = Long.MAX_VALUE;
+		for (int i = 0; i <= 256; i++) {
+			if (freq[i] != 0 && freq[i] <= v) {
+				v = freq[i];
+				c1 = i;
+			}
+		}
+		v = Long.MAX_VALUE;
+		for (int i = 0; i <= 256; i++) {
+			if (freq[i] != 0 && freq[i] <= v && i != c1) {
+				v = freq[i];
+				c2 = i;
+			}
+		}
+		if (c2 < 0) break;
+		freq[c1] += freq[c2];
+		freq[c2] = 0;
+		codesize[c1]++;
+		while (others[c1] >= 0) {
+			c1 = others[c1];
+			codesize[c1]++;
+		}
+		others[c1] = c2;
+		codesize[c2]++;
+		while (others[c2] >= 0) {
+			c2 = others[c2];
+			codesize[c2]++;
+		}
+	}
+	int[] bits = new int[MAX_CLEN + 1];
+	for (int i = 0; i <= 256; i++) {
+		if (codesize[i] != 0) {
+			if (codesize[i] > MAX_CLEN) SWT.error(SWT.ERROR_INVALID_IMAGE);
+			bits[codesize[i]]++;
+		}
+	}
+	/* move the codes longer than 16 bits up the tree, two at a time */
+	for (int i = MAX_CLEN; i > 16; i--) {
+		while (bits[i] > 0) {
+			int j = i - 2;
+			while (bits[j] == 0) j--;
+			bits[i] -= 2;
+			bits[i - 1]++;
+			bits[j + 1] += 2;
+			bits[j]--;
+		}
+	}
+	/* remove the reserved code point, which is one of the longest */
+	int i = 16;
+	while (bits[i] == 0) i--;
+	bits[i]--;
+	int count = 0;
+	for (i = 1; i <= 16; i++) {
+		count += bits[i];
+	}
+	byte[] table = new byte[17 + count];
+	for (i = 1; i <= 16; i++) {
+		table[i] = (byte)bits[i];
+	}
+	int p = 17;
+	for (i = 1; i <= MAX_CLEN && p < table.length; i++) {
+		for (int j = 0; j < 256; j++) {
+			if (codesize[j] == i) table[p++] = (byte)j;
+		}
+	}
+	return table;
+}
+
 public int[] getDhMaxCodes() {
 	return dhMaxCodes;
 }
@@ -0,0 +1,335 @@
+/*******************************************************************************
+ * Copyright (c) 2026 y&y and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     y&y - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.internal.image;
+
+
+import java.io.*;
+import java.util.*;
+import org.eclipse.swt.*;
+import org.eclipse.swt.graphics.*;
+
+/**
+ * Rotates, flips and crops a JPEG without decoding its pixels, as
+ * jpegtran does. The quantized DCT coefficients are read by JPEGDecoder,
+ * the blocks are moved and their coefficients transposed or negated,
+ * and the result is written by JPEGFileFormat, so no rounding of the
+ * pixels is added and only the entropy coding is done again.
+ * <p>
+ * The transforms are the ones that make an image of each EXIF
+ * orientation upright. A block can only be mirrored as a whole, so the
+ * partial MCU at an edge that is mirrored is trimmed, and a crop is
+ * moved up and left to a multiple of the MCU size.
+ * </p><p>
+ * The APPn and COM segments are copied. The orientation of an EXIF
+ * segment is changed so that the image is shown as before, and its
+ * thumbnail is transformed in the same way (or dropped if it no longer
+ * fits in the segment).
+ * </p>
+ */
+final class JPEGLosslessTransform {
+	/*
+	 * The transform that makes an image of each EXIF orientation
+	 * upright, as the matrix {a, b, c, d} of x' = a x + b y and
+	 * y' = c x + d y, with the origin at the center of the image.
+	 */
+	static final int[][] MATRICES = {
+		null,
+		{1, 0, 0, 1},	/* 1: none */
+		{-1, 0, 0, 1},	/* 2: flip horizontally */
+		{-1, 0, 0, -1},	/* 3: rotate by 180 degrees */
+		{1, 0, 0, -1},	/* 4: flip vertically */
+		{0, 1, 1, 0},	/* 5: transpose */
+		{0, -1, 1, 0},	/* 6: rotate by 90 degrees clockwise */
+		{0, -1, -1, 0},	/* 7: transverse */
+		{0, 1, -1, 0},	/* 8: rotate by 90 degrees counterclockwise */
+	};
+	static final short[] ZERO_BLOCK = new short[64];
+
+	byte[] bytes;
+	int[] matrix;
+	boolean transpose;
+	/* the APPn and COM segments, with their marker */
+	List segments = new ArrayList();
+	/* the orientation of the EXIF segment after the transform, or 0 */
+	int orientation;
+
+JPEGLosslessTransform(byte[] bytes, int orientation) {
+	this.bytes = bytes;
+	matrix = MATRICES[orientation];
+	transpose = matrix[0] == 0;
+}
+
+/**
+ * Transform the JPEG of the input stream, and write it to the output
+ * stream. Set the orientation of the loader to the orientation of the
+ * EXIF segment of the result.
+ */
+static void transform(InputStream input, LEDataOutputStream output, ImageLoader loader, int orientation, Rectangle crop) throws IOException {
+	JPEGLosslessTransform transform = new JPEGLosslessTransform(JPEGDecoder.readFully(input), orientation);
+	transform.write(output, crop, loader.optimize, true);
+	loader.orientation = transform.orientation;
+}
+
+void write(LEDataOutputStream output, Rectangle crop, boolean optimize, boolean updateEXIF) throws IOException {
+	readSegments();
+	if (updateEXIF) {
+		for (int i = 0; i < segments.size(); i++) {
+			byte[] segment = (byte[]) segments.get(i);
+			if ((segment[1] & 0xFF) == JPEGDecoder.M_APP0 + 1) {
+				segments.set(i, updateEXIF(segment));
+			}
+		}
+	}
+	JPEGDecoder.jpeg_decompress_struct cinfo = new JPEGDecoder.jpeg_decompress_struct();
+	cinfo.inputStream = new ByteArrayInputStream(bytes);
+	JPEGDecoder.jpeg_create_decompress(cinfo);
+	JPEGDecoder.jpeg_read_header(cinfo, true);
+	short[][][][] coefficients = JPEGDecoder.jpeg_read_coefficients(cinfo);
+	if (coefficients == null) SWT.error(SWT.ERROR_INVALID_IMAGE);
+	bytes = null;
+
+	int nComponents = cinfo.num_components;
+	int maxH = nComponents == 1 ? 1 : cinfo.max_h_samp_factor;
+	int maxV = nComponents == 1 ? 1 : cinfo.max_v_samp_factor;
+	int mcuWidth = maxH * JPEGFileFormat.DCTSIZE;
+	int mcuHeight = maxV * JPEGFileFormat.DCTSIZE;
+
+	/* trim the partial MCU at an edge that is mirrored */
+	boolean mirrorX = transpose ? matrix[2] < 0 : matrix[0] < 0;
+	boolean mirrorY = transpose ? matrix[1] < 0 : matrix[3] < 0;
+	int width = cinfo.image_width;
+	int height = cinfo.image_height;
+	if (mirrorX) {
+		width -= width % mcuWidth;
+		if (width == 0) SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+	}
+	if (mirrorY) {
+		height -= height % mcuHeight;
+		if (height == 0) SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+	}
+
+	/* the area of the transformed image to write, from an MCU corner */
+	int outWidth = transpose ? height : width;
+	int outHeight = transpose ? width : height;
+	int outMcuWidth = transpose ? mcuHeight : mcuWidth;
+	int outMcuHeight = transpose ? mcuWidth : mcuHeight;
+	int x0 = 0, y0 = 0, x1 = outWidth, y1 = outHeight;
+	if (crop != null) {
+		x0 = Math.max(0, crop.x);
+		y0 = Math.max(0, crop.y);
+		x0 -= x0 % outMcuWidth;
+		y0 -= y0 % outMcuHeight;
+		x1 = Math.min(outWidth, crop.x + crop.width);
+		y1 = Math.min(outHeight, crop.y + crop.height);
+		if (x1 <= x0 || y1 <= y0) SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+	}
+	int mcuCols = (x1 - x0 + outMcuWidth - 1) / outMcuWidth;
+	int mcuRows = (y1 - y0 + outMcuHeight - 1) / outMcuHeight;
+
+	int[] index = new int[64];
+	int[] sign = new int[64];
+	for (int v = 0; v < 8; v++) {
+		for (int u = 0; u < 8; u++) {
+			int k = v * 8 + u;
+			boolean negate;
+			if (transpose) {
+				index[k] = u * 8 + v;
+				negate = (matrix[1] < 0 && (u & 1) != 0) != (matrix[2] < 0 && (v & 1) != 0);
+			} else {
+				index[k] = k;
+				negate = (matrix[0] < 0 && (u & 1) != 0) != (matrix[3] < 0 && (v & 1) != 0);
+			}
+			sign[k] = negate ? -1 : 1;
+		}
+	}
+	boolean identity = matrix == MATRICES[1];
+
+	int[][] frameParams = new int[nComponents][];
+	int[][] qTables = new int[4][];
+	short[][] quantvals = new short[4][];
+	short[][][][] outCoefficients = new short[nComponents][][][];
+	for (int ci = 0; ci < nComponents; ci++) {
+		JPEGDecoder.jpeg_component_info compptr = cinfo.comp_info[ci];
+		if (compptr.quant_table == null) SWT.error(SWT.ERROR_INVALID_IMAGE);
+
+		/* the quantization table, shared with the components of the same table */
+		short[] quantval = compptr.quant_table.quantval;
+		int tq = 0;
+		while (quantvals[tq] != null && !Arrays.equals(quantvals[tq], quantval)) tq++;
+		if (quantvals[tq] == null) {
+			quantvals[tq] = quantval;
+			int[] qTable = new int[64];
+			for (int i = 0; i < 64; i++) {
+				int k = JPEGFileFormat.ZigZag8x8[i];
+				qTable[i] = quantval[transpose ? (k % 8) * 8 + k / 8 : k];
+			}
+			qTables[tq] = qTable;
+		}
+
+		int hs = nComponents == 1 ? 1 : compptr.h_samp_factor;
+		int vs = nComponents == 1 ? 1 : compptr.v_samp_factor;
+		int hi = transpose ? vs : hs;
+		int vi = transpose ? hs : vs;
+		frameParams[ci] = new int[] {tq, hi, vi, 0, 0};
+
+		/* move the blocks of the component */
+		short[][][] source = coefficients[ci];
+		int srcBlocksWide = (width * hs + mcuWidth - 1) / mcuWidth;
+		int srcBlocksHigh = (height * vs + mcuHeight - 1) / mcuHeight;
+		int bx0 = x0 / outMcuWidth * hi;
+		int by0 = y0 / outMcuHeight * vi;
+		short[][][] blocks = new short[mcuRows * vi][mcuCols * hi][];
+		for (int y = 0; y < blocks.length; y++) {
+			short[][] row = blocks[y];
+			for (int x = 0; x < row.length; x++) {
+				int ax = x + bx0, ay = y + by0;
+				int sx, sy;
+				if (transpose) {
+					sx = matrix[2] > 0 ? ay : srcBlocksWide - 1 - ay;
+					sy = matrix[1] > 0 ? ax : srcBlocksHigh - 1 - ax;
+				} else {
+					sx = matrix[0] > 0 ? ax : srcBlocksWide - 1 - ax;
+					sy = matrix[3] > 0 ? ay : srcBlocksHigh - 1 - ay;
+				}
+				if (sy < 0 || sy >= source.length || sx < 0 || sx >= source[sy].length) {
+					/* a dummy block of an MCU at the edge */
+					row[x] = ZERO_BLOCK;
+				} else if (identity) {
+					row[x] = source[sy][sx];
+				} else {
+					short[] block = source[sy][sx];
+					short[] outBlock = new short[64];
+					for (int k = 0; k < 64; k++) {
+						outBlock[k] = (short)(sign[k] * block[index[k]]);
+					}
+					row[x] = outBlock;
+				}
+			}
+		}
+		coefficients[ci] = null;
+		outCoefficients[ci] = blocks;
+	}
+	JPEGDecoder.jpeg_destroy_decompress(cinfo);
+
+	JPEGFileFormat format = new JPEGFileFormat();
+	format.outputStream = output;
+	format.unloadCoefficients(segments, x1 - x0, y1 - y0, frameParams, qTables, outCoefficients, optimize);
+}
+
+/**
+ * Collect the APPn and COM segments before the first SOS.
+ */
+void readSegments() {
+	int offset = 2;
+	while (offset + 4 <= bytes.length && (bytes[offset] & 0xFF) == 0xFF) {
+		int marker = bytes[offset + 1] & 0xFF;
+		if (marker == 0xFF) {
+			offset++;
+			continue;
+		}
+		if (marker == JPEGDecoder.M_SOS || marker == JPEGDecoder.M_EOI) return;
+		int length = ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+		if (length < 2 || offset + 2 + length > bytes.length) return;
+		if ((JPEGDecoder.M_APP0 <= marker && marker <= JPEGDecoder.M_APP15) || marker == JPEGDecoder.M_COM) {
+			byte[] segment = new byte[2 + length];
+			System.arraycopy(bytes, offset, segment, 0, segment.length);
+			segments.add(segment);
+		}
+		offset += 2 + length;
+	}
+}
+
+/**
+ * Answer the APP1 segment with the orientation that shows the image as
+ * before the transform, and with its thumbnail transformed.
+ */
+byte[] updateEXIF(byte[] segment) {
+	JPEGThumbnailReader reader = new JPEGThumbnailReader(null);
+	byte[] exif = new byte[segment.length - 4];
+	System.arraycopy(segment, 4, exif, 0, exif.length);
+	try {
+		if (!reader.parseEXIF(exif)) return segment;
+		if (reader.orientationValue != 0) {
+			int value = reader.readShort(reader.orientationValue);
+			if (1 <= value && value <= 8) {
+				orientation = compose(value);
+				reader.writeShort(reader.orientationValue, orientation);
+			}
+		}
+		if (reader.thumbnailStart != 0 && matrix != MATRICES[1]) {
+			int start = reader.tiff + reader.thumbnailStart;
+			byte[] thumbnail = transformThumbnail(exif, start, reader.thumbnailLength);
+			if (thumbnail != null && start + reader.thumbnailLength == exif.length && start + thumbnail.length + 2 <= 0xFFFF) {
+				/* the thumbnail ends the segment, which can grow or shrink */
+				byte[] newExif = new byte[start + thumbnail.length];
+				System.arraycopy(exif, 0, newExif, 0, start);
+				System.arraycopy(thumbnail, 0, newExif, start, thumbnail.length);
+				exif = newExif;
+				reader.exif = exif;
+				reader.writeInt(reader.thumbnailLengthValue, thumbnail.length);
+			} else if (thumbnail != null && thumbnail.length <= reader.thumbnailLength) {
+				System.arraycopy(thumbnail, 0, exif, start, thumbnail.length);
+				reader.writeInt(reader.thumbnailLengthValue, thumbnail.length);
+			} else {
+				/* drop IFD1, rather than keep a thumbnail of the old orientation */
+				reader.writeInt(reader.ifd1Link, 0);
+			}
+		}
+	} catch (RuntimeException e) {
+		/* a damaged segment is copied as it is */
+		return segment;
+	}
+	byte[] newSegment = new byte[4 + exif.length];
+	newSegment[0] = (byte)0xFF;
+	newSegment[1] = (byte)(JPEGDecoder.M_APP0 + 1);
+	newSegment[2] = (byte)((exif.length + 2) >> 8);
+	newSegment[3] = (byte)(exif.length + 2);
+	System.arraycopy(exif, 0, newSegment, 4, exif.length);
+	return newSegment;
+}
+
+byte[] transformThumbnail(byte[] exif, int start, int length) {
+	byte[] thumbnail = new byte[length];
+	System.arraycopy(exif, start, thumbnail, 0, length);
+	ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+	try {
+		LEDataOutputStream output = new LEDataOutputStream(out);
+		new JPEGLosslessTransform(thumbnail, orientationOf(matrix)).write(output, null, true, false);
+		output.flush();
+	} catch (IOException e) {
+		return null;
+	} catch (RuntimeException e) {
+		return null;
+	}
+	return out.toByteArray();
+}
+
+/**
+ * Answer the orientation of the transformed image, of an image of the
+ * specified orientation: the transform that makes it upright, after
+ * the inverse of the transform done.
+ */
+int compose(int value) {
+	int[] m = MATRICES[value];
+	/* the inverse of a rotation or reflection is its transpose */
+	int a = matrix[0], b = matrix[2], c = matrix[1], d = matrix[3];
+	return orientationOf(new int[] {
+		m[0] * a + m[1] * c, m[0] * b + m[1] * d,
+		m[2] * a + m[3] * c, m[2] * b + m[3] * d});
+}
+
+static int orientationOf(int[] m) {
+	for (int i = 1; i < MATRICES.length; i++) {
+		if (Arrays.equals(MATRICES[i], m)) return i;
+	}
+	return 1;
+}
+}
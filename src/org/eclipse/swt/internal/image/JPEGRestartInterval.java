@@ -13,6 +13,13 @@ package org.eclipse.swt.internal.image;
 
 final class JPEGRestartInterval extends JPEGFixedSizeSegment {
 
+	public JPEGRestartInterval(int restartInterval) {
+		super();
+		reference[3] = 4;
+		reference[4] = (byte)((restartInterval & 0xFF00) >> 8);
+		reference[5] = (byte)(restartInterval & 0xFF);
+	}
+
 	public JPEGRestartInterval(LEDataInputStream byteStream) {
 		super(byteStream);
 	}
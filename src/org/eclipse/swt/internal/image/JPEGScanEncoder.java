@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright (c) 2026 y&y and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     y&y - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.internal.image;
+
+
+import org.eclipse.swt.*;
+
+/**
+ * Encodes a band of rows of MCUs of the scan written by JPEGFileFormat.
+ * When the bands are encoded in parallel, every row of MCUs is a restart
+ * interval, so a band does not depend on the DC values of the band before
+ * it. The encoded bytes of a band, with the restart marker before each of
+ * its rows but the first row of the image, are kept in a buffer until they
+ * are written in order. Else one band holds all the rows and the scan is
+ * a single interval without restart markers.
+ * <p>
+ * To build the Huffman tables for the image, the band is encoded in two
+ * passes. The first pass counts the symbols and keeps the quantized
+ * coefficients, the second pass codes them with the new tables.
+ * </p><p>
+ * The blocks of a lossless transform are not computed from pixels:
+ * their quantized coefficients are given by JPEGFileFormat.
+ * </p>
+ */
+final class JPEGScanEncoder {
+	JPEGFileFormat format;
+	int firstRow, lastRow;
+	/* every row of MCUs is a restart interval */
+	boolean restart;
+	int[] dataUnit = new int[64];
+	int[] precedingDCs = new int[4];
+
+	/* the quantized coefficients kept by the first of two passes */
+	short[] coefficients;
+	/* the number of times each DC and AC symbol of each table is coded */
+	long[][] dcCounts, acCounts;
+
+	byte[] buffer;
+	int length;
+	int bitBuffer, bitCount;
+
+JPEGScanEncoder(JPEGFileFormat format, int firstRow, int lastRow, boolean restart) {
+	this.format = format;
+	this.firstRow = firstRow;
+	this.lastRow = lastRow;
+	this.restart = restart;
+}
+
+/**
+ * Compute and quantize the coefficients of the band, and count the
+ * symbols they will be coded as.
+ */
+void count() {
+	dcCounts = new long[4][257];
+	acCounts = new long[4][257];
+	int blocks = (lastRow - firstRow) * format.interleavedMcuCols * format.blocksPerMCU();
+	coefficients = new short[blocks * 64];
+	int index = 0;
+	for (int ymcu = firstRow; ymcu < lastRow; ymcu++) {
+		if (restart || ymcu == firstRow) {
+			precedingDCs[0] = precedingDCs[1] = precedingDCs[2] = precedingDCs[3] = 0;
+		}
+		for (int xmcu = 0; xmcu < format.interleavedMcuCols; xmcu++) {
+			for (int iComp = 0; iComp < format.nComponents; iComp++) {
+				int[] frameComponent = format.frameComponents[format.componentIds[iComp]];
+				int[] sParams = format.scanHeader.componentParameters[iComp];
+				long[] dcCount = dcCounts[sParams[JPEGFileFormat.DC]];
+				long[] acCount = acCounts[sParams[JPEGFileFormat.AC]];
+				for (int ivi = 0; ivi < frameComponent[JPEGFileFormat.VI]; ivi++) {
+					for (int ihi = 0; ihi < frameComponent[JPEGFileFormat.HI]; ihi++) {
+						transform(iComp, xmcu, ymcu, ihi, ivi);
+						for (int i = 0; i < 64; i++) {
+							coefficients[index++] = (short)dataUnit[i];
+						}
+						int diff = dataUnit[0] - precedingDCs[iComp];
+						precedingDCs[iComp] = dataUnit[0];
+						dcCount[JPEGFileFormat.NBitsTable[diff < 0 ? -diff : diff]]++;
+						int r = 0;
+						for (int k = 1; k < 64; k++) {
+							int acValue = dataUnit[JPEGFileFormat.ZigZag8x8[k]];
+							if (acValue == 0) {
+								r++;
+							} else {
+								while (r > 15) {
+									acCount[0xF0]++;
+									r -= 16;
+								}
+								acCount[r * 16 + JPEGFileFormat.NBitsTable[acValue < 0 ? -acValue : acValue]]++;
+								r = 0;
+							}
+						}
+						if (r > 0) acCount[0]++;
+					}
+				}
+			}
+		}
+	}
+}
+
+/**
+ * Encode the band, with the coefficients kept by count() if it was
+ * called, else with the coefficients computed now.
+ */
+void encode() {
+	buffer = new byte[Math.max(1024, (lastRow - firstRow) * format.interleavedMcuCols * format.blocksPerMCU() * 8)];
+	int index = 0;
+	for (int ymcu = firstRow; ymcu < lastRow; ymcu++) {
+		if (restart && ymcu > 0) {
+			emitMarker(JPEGFileFormat.RST0 + ((ymcu - 1) & 7));
+		}
+		if (restart || ymcu == firstRow) {
+			precedingDCs[0] = precedingDCs[1] = precedingDCs[2] = precedingDCs[3] = 0;
+		}
+		for (int xmcu = 0; xmcu < format.interleavedMcuCols; xmcu++) {
+			for (int iComp = 0; iComp < format.nComponents; iComp++) {
+				int[] frameComponent = format.frameComponents[format.componentIds[iComp]];
+				int[] sParams = format.scanHeader.componentParameters[iComp];
+				JPEGHuffmanTable dcTable = format.dcHuffmanTables[sParams[JPEGFileFormat.DC]];
+				JPEGHuffmanTable acTable = format.acHuffmanTables[sParams[JPEGFileFormat.AC]];
+				for (int ivi = 0; ivi < frameComponent[JPEGFileFormat.VI]; ivi++) {
+					for (int ihi = 0; ihi < frameComponent[JPEGFileFormat.HI]; ihi++) {
+						if (coefficients != null) {
+							for (int i = 0; i < 64; i++) {
+								dataUnit[i] = coefficients[index++];
+							}
+						} else {
+							transform(iComp, xmcu, ymcu, ihi, ivi);
+						}
+						encodeDCCoefficient(dcTable, iComp);
+						encodeACCoefficients(acTable);
+					}
+				}
+			}
+		}
+		/* pad the last byte of the restart interval with 1 bits */
+		if ((restart || ymcu == lastRow - 1) && bitCount > 0) emit(0x7F, 8 - bitCount);
+	}
+	coefficients = null;
+}
+
+void transform(int iComp, int xmcu, int ymcu, int ihi, int ivi) {
+	if (format.coefficients != null) {
+		/* the quantized coefficients of a lossless transform */
+		int[] frameComponent = format.frameComponents[format.componentIds[iComp]];
+		short[] block = format.coefficients[iComp][ymcu * frameComponent[JPEGFileFormat.VI] + ivi][xmcu * frameComponent[JPEGFileFormat.HI] + ihi];
+		for (int i = 0; i < 64; i++) {
+			dataUnit[i] = block[i];
+		}
+		return;
+	}
+	format.extractData(dataUnit, iComp, xmcu, ymcu, ihi, ivi);
+	format.forwardDCT(dataUnit);
+	format.quantizeData(dataUnit, iComp);
+}
+
+void encodeDCCoefficient(JPEGHuffmanTable dcTable, int iComp) {
+	int dcValue = dataUnit[0];
+	int diff = dcValue - precedingDCs[iComp];
+	precedingDCs[iComp] = dcValue;
+	if (diff < 0) {
+		int nBits = JPEGFileFormat.NBitsTable[-diff];
+		emit(dcTable.ehCodes[nBits], dcTable.ehCodeLengths[nBits]);
+		emit(diff - 1, nBits);
+	} else {
+		int nBits = JPEGFileFormat.NBitsTable[diff];
+		emit(dcTable.ehCodes[nBits], dcTable.ehCodeLengths[nBits]);
+		if (nBits != 0) {
+			emit(diff, nBits);
+		}
+	}
+}
+
+void encodeACCoefficients(JPEGHuffmanTable acTable) {
+	int[] ehCodes = acTable.ehCodes;
+	byte[] ehSizes = acTable.ehCodeLengths;
+	int r = 0;
+	for (int k = 1; k < 64; k++) {
+		int acValue = dataUnit[JPEGFileFormat.ZigZag8x8[k]];
+		if (acValue == 0) {
+			r++;
+		} else {
+			while (r > 15) {
+				emit(ehCodes[0xF0], ehSizes[0xF0]);
+				r -= 16;
+			}
+			int nBits, bits;
+			if (acValue < 0) {
+				nBits = JPEGFileFormat.NBitsTable[-acValue];
+				bits = acValue - 1;
+			} else {
+				nBits = JPEGFileFormat.NBitsTable[acValue];
+				bits = acValue;
+			}
+			int rs = r * 16 + nBits;
+			emit(ehCodes[rs], ehSizes[rs]);
+			emit(bits, nBits);
+			r = 0;
+		}
+	}
+	if (r > 0) {
+		emit(ehCodes[0], ehSizes[0]);
+	}
+}
+
+/**
+ * Append the low nBits bits of code, and stuff a zero byte after
+ * each 0xFF byte.
+ */
+void emit(int code, int nBits) {
+	if (nBits == 0) {
+		SWT.error(SWT.ERROR_INVALID_IMAGE);
+	}
+	bitBuffer = (bitBuffer << nBits) | (code & ((1 << nBits) - 1));
+	bitCount += nBits;
+	while (bitCount >= 8) {
+		bitCount -= 8;
+		int value = (bitBuffer >> bitCount) & 0xFF;
+		if (length + 2 > buffer.length) {
+			byte[] newBuffer = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, newBuffer, 0, length);
+			buffer = newBuffer;
+		}
+		buffer[length++] = (byte)value;
+		if (value == 0xFF) buffer[length++] = 0;
+	}
+}
+
+void emitMarker(int marker) {
+	if (length + 2 > buffer.length) {
+		byte[] newBuffer = new byte[buffer.length * 2];
+		System.arraycopy(buffer, 0, newBuffer, 0, length);
+		buffer = newBuffer;
+	}
+	buffer[length++] = (byte)(marker >> 8);
+	buffer[length++] = (byte)marker;
+}
+}
@@ -0,0 +1,335 @@
+/*******************************************************************************
+ * Copyright (c) 2026 y&y and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     y&y - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.internal.image;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.eclipse.swt.*;
+import org.eclipse.swt.graphics.*;
+
+/**
+ * Decodes a baseline JPEG with restart markers in horizontal strips in
+ * parallel. The entropy coder is reset at each restart marker, so the
+ * data between two markers can be decoded without the data before it.
+ * <p>
+ * The image is cut at the rows of MCUs that start a restart interval.
+ * Each strip is given to JPEGDecoder as a JPEG of its own: the header
+ * of the image with the height of the strip, the restart intervals of
+ * its rows renumbered from RST0, and EOI. A strip is decoded with one
+ * more row of MCUs above and below it, which are dropped, so the
+ * upsampled chroma at its edges is the same as in the whole image and
+ * the result is identical to the sequential decoding. The rows of each
+ * strip are copied into their own rows of the image.
+ * </p><p>
+ * Progressive, arithmetic coded and multi-scan images, and images
+ * without restart markers, are left to the sequential decoder. The
+ * markers are read from the stream first, and the rest of the stream
+ * is only buffered when the image will be decoded in strips.
+ * </p>
+ */
+final class JPEGStripDecoder {
+	/* the minimum number of rows of MCUs of a strip, without the context rows */
+	static final int MIN_STRIP_ROWS = 8;
+
+	byte[] bytes;
+	int width, height;
+	int components;
+	int mcuWidth, mcuHeight;
+	int mcusPerRow, mcuRows;
+	int restartInterval;
+	/* the offset of the height in SOF, and the start of the entropy coded data */
+	int heightOffset, dataOffset;
+	/* the entropy coded data of each restart interval */
+	int[] intervalStart, intervalEnd;
+
+JPEGStripDecoder(byte[] bytes) {
+	this.bytes = bytes;
+}
+
+/**
+ * Read the markers from the stream, up to the end of the first SOS or
+ * up to a marker that is not a segment. Answer the bytes read, they are
+ * the start of the image for the decoder.
+ */
+static byte[] readMarkers(InputStream inputStream) throws IOException {
+	ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+	int b = inputStream.read();
+	if (b == -1) return out.toByteArray();
+	out.write(b);
+	if (b != 0xFF) return out.toByteArray();
+	b = inputStream.read();
+	if (b == -1) return out.toByteArray();
+	out.write(b);
+	if (b != JPEGDecoder.M_SOI) return out.toByteArray();
+	while (true) {
+		b = inputStream.read();
+		if (b == -1) return out.toByteArray();
+		out.write(b);
+		if (b != 0xFF) return out.toByteArray();
+		int marker;
+		do {
+			/* skip the fill bytes */
+			marker = inputStream.read();
+			if (marker == -1) return out.toByteArray();
+			out.write(marker);
+		} while (marker == 0xFF);
+		if (marker == JPEGDecoder.M_SOI || marker == JPEGDecoder.M_EOI || (marker >= JPEGDecoder.M_RST0 && marker <= JPEGDecoder.M_RST7)) {
+			return out.toByteArray();
+		}
+		int high = inputStream.read();
+		int low = inputStream.read();
+		if (high == -1 || low == -1) {
+			if (high != -1) out.write(high);
+			return out.toByteArray();
+		}
+		out.write(high);
+		out.write(low);
+		int length = (high << 8) | low;
+		byte[] segment = new byte[Math.max(0, length - 2)];
+		int count = 0;
+		while (count < segment.length) {
+			int n = inputStream.read(segment, count, segment.length - count);
+			if (n == -1) break;
+			count += n;
+		}
+		out.write(segment, 0, count);
+		if (count < segment.length || marker == JPEGDecoder.M_SOS) return out.toByteArray();
+	}
+}
+
+/**
+ * Answer whether the image that starts with the markers will be decoded
+ * in strips, from its SOF, DRI and SOS and the number of processors.
+ */
+static boolean isStripped(byte[] markers) {
+	JPEGStripDecoder decoder = new JPEGStripDecoder(markers);
+	return decoder.readHeader() && decoder.getStripCount() >= 2;
+}
+
+/**
+ * Decode the image in strips in parallel. Answer null if the image
+ * cannot be cut in strips, then it is decoded sequentially.
+ */
+static ImageData decode(byte[] bytes, ImageLoader loader) {
+	JPEGStripDecoder decoder = new JPEGStripDecoder(bytes);
+	if (!decoder.readHeader() || !decoder.findRestartMarkers()) return null;
+	try {
+		return decoder.decode(loader);
+	} catch (IOException e) {
+		SWT.error(SWT.ERROR_IO, e);
+		return null;
+	}
+}
+
+int readShort(int offset) {
+	return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+}
+
+/**
+ * Read the markers up to the first SOS. Answer false if the image is
+ * not a baseline (or extended sequential) Huffman coded image of one
+ * interleaved scan with a restart interval.
+ */
+boolean readHeader() {
+	if (bytes.length < 4 || (bytes[0] & 0xFF) != 0xFF || (bytes[1] & 0xFF) != JPEGDecoder.M_SOI) return false;
+	int offset = 2;
+	int hMax = 0, vMax = 0;
+	while (true) {
+		if (offset + 4 > bytes.length || (bytes[offset] & 0xFF) != 0xFF) return false;
+		int marker = bytes[offset + 1] & 0xFF;
+		if (marker == 0xFF) {
+			offset++;
+			continue;
+		}
+		int length = readShort(offset + 2);
+		if (length < 2 || offset + 2 + length > bytes.length) return false;
+		switch (marker) {
+			case JPEGDecoder.M_SOF0:
+			case JPEGDecoder.M_SOF1:
+				if (length < 8 || bytes[offset + 4] != 8) return false;
+				heightOffset = offset + 5;
+				height = readShort(offset + 5);
+				width = readShort(offset + 7);
+				components = bytes[offset + 9] & 0xFF;
+				if (height == 0 || width == 0) return false;
+				if (components != 1 && components != 3) return false;
+				if (length != 8 + components * 3) return false;
+				for (int i = 0; i < components; i++) {
+					int factors = bytes[offset + 11 + i * 3] & 0xFF;
+					hMax = Math.max(hMax, factors >> 4);
+					vMax = Math.max(vMax, factors & 0xF);
+				}
+				break;
+			case JPEGDecoder.M_SOF2:
+			case JPEGDecoder.M_SOF3:
+			case JPEGDecoder.M_SOF5:
+			case JPEGDecoder.M_SOF6:
+			case JPEGDecoder.M_SOF7:
+			case JPEGDecoder.M_SOF9:
+			case JPEGDecoder.M_SOF10:
+			case JPEGDecoder.M_SOF11:
+			case JPEGDecoder.M_SOF13:
+			case JPEGDecoder.M_SOF14:
+			case JPEGDecoder.M_SOF15:
+				return false;
+			case JPEGDecoder.M_DRI:
+				if (length != 4) return false;
+				restartInterval = readShort(offset + 4);
+				break;
+			case JPEGDecoder.M_SOS:
+				if (heightOffset == 0 || restartInterval == 0) return false;
+				/* all the components in one scan */
+				if ((bytes[offset + 4] & 0xFF) != components) return false;
+				dataOffset = offset + 2 + length;
+				if (components == 1) {
+					/* a single component scan has MCUs of one block */
+					mcuWidth = mcuHeight = 8;
+				} else {
+					mcuWidth = hMax * 8;
+					mcuHeight = vMax * 8;
+				}
+				mcusPerRow = (width + mcuWidth - 1) / mcuWidth;
+				mcuRows = (height + mcuHeight - 1) / mcuHeight;
+				return true;
+			case JPEGDecoder.M_SOI:
+			case JPEGDecoder.M_EOI:
+			case JPEGDecoder.M_DNL:
+				return false;
+		}
+		offset += 2 + length;
+	}
+}
+
+/**
+ * Find the restart markers in the entropy coded data, up to EOI.
+ * Answer false if their number does not match the restart interval.
+ */
+boolean findRestartMarkers() {
+	int intervals = (mcusPerRow * mcuRows + restartInterval - 1) / restartInterval;
+	intervalStart = new int[intervals];
+	intervalEnd = new int[intervals];
+	intervalStart[0] = dataOffset;
+	int count = 0;
+	int offset = dataOffset;
+	int end = bytes.length - 1;
+	while (offset < end) {
+		if (bytes[offset] != (byte) 0xFF) {
+			offset++;
+			continue;
+		}
+		int marker = bytes[offset + 1] & 0xFF;
+		if (marker == 0 || marker == 0xFF) {
+			/* a stuffed zero or a fill byte */
+			offset += marker == 0 ? 2 : 1;
+			continue;
+		}
+		if (marker < JPEGDecoder.M_RST0 || marker > JPEGDecoder.M_RST7) {
+			if (marker != JPEGDecoder.M_EOI || count != intervals - 1) return false;
+			intervalEnd[count] = offset;
+			return true;
+		}
+		if (count == intervals - 1) return false;
+		intervalEnd[count++] = offset;
+		intervalStart[count] = offset + 2;
+		offset += 2;
+	}
+	return false;
+}
+
+/**
+ * Answer the number of strips, one per processor if the image is big
+ * enough. Less than 2 means that the image is decoded sequentially.
+ */
+int getStripCount() {
+	int step = restartInterval / gcd(mcusPerRow, restartInterval);
+	int units = (mcuRows + step - 1) / step;
+	return Math.min(Runtime.getRuntime().availableProcessors(), Math.min(units, units * step / MIN_STRIP_ROWS));
+}
+
+ImageData decode(final ImageLoader loader) throws IOException {
+	/* the rows of MCUs where a restart interval starts */
+	int step = restartInterval / gcd(mcusPerRow, restartInterval);
+	int units = (mcuRows + step - 1) / step;
+	int strips = getStripCount();
+	if (strips < 2) return null;
+	final int denom = JPEGDecoder.getScaleDenominator(width, height, loader);
+	final int outputWidth = (width + denom - 1) / denom;
+	final int outputHeight = (height + denom - 1) / denom;
+	final int bytesPerLine = (outputWidth * (components == 1 ? 1 : 3) + 3) / 4 * 4;
+	final byte[] data = new byte[bytesPerLine * outputHeight];
+	final int rowsPerMCU = mcuHeight / denom;
+	List futures = new ArrayList(strips);
+	for (int i = 0; i < strips; i++) {
+		final int first = Math.min(mcuRows, units * i / strips * step);
+		final int last = Math.min(mcuRows, units * (i + 1) / strips * step);
+		final int start = Math.max(0, first - step);
+		final int end = Math.min(mcuRows, last + step);
+		futures.add(FileFormat.getExecutor().submit(new Callable() {
+			public Object call() {
+				byte[] strip = createStrip(start, end);
+				ImageData imageData = JPEGDecoder.loadFromByteStream(new ByteArrayInputStream(strip), loader, denom)[0];
+				if (imageData.bytesPerLine != bytesPerLine || imageData.width != outputWidth) SWT.error(SWT.ERROR_INVALID_IMAGE);
+				int rowStart = first * rowsPerMCU;
+				int rowEnd = last == mcuRows ? outputHeight : last * rowsPerMCU;
+				System.arraycopy(imageData.data, (rowStart - start * rowsPerMCU) * bytesPerLine, data, rowStart * bytesPerLine, (rowEnd - rowStart) * bytesPerLine);
+				imageData.data = null;
+				return imageData;
+			}
+		}));
+	}
+	ImageData strip = (ImageData) FileFormat.waitFor((Future) futures.get(0));
+	FileFormat.waitFor(futures);
+	return ImageData.internal_new(
+		outputWidth, outputHeight, strip.depth, strip.palette, 4, data,
+		0, null, null, -1, -1, SWT.IMAGE_JPEG, 0, 0, 0, 0);
+}
+
+/**
+ * Answer a JPEG of the rows of MCUs from start to end.
+ */
+byte[] createStrip(int start, int end) {
+	int firstInterval = start * mcusPerRow / restartInterval;
+	int lastInterval = end == mcuRows ? intervalEnd.length - 1 : end * mcusPerRow / restartInterval - 1;
+	int size = dataOffset + (lastInterval - firstInterval) * 2 + 2;
+	for (int i = firstInterval; i <= lastInterval; i++) {
+		size += intervalEnd[i] - intervalStart[i];
+	}
+	byte[] strip = new byte[size];
+	System.arraycopy(bytes, 0, strip, 0, dataOffset);
+	int stripHeight = Math.min(height, end * mcuHeight) - start * mcuHeight;
+	strip[heightOffset] = (byte) (stripHeight >> 8);
+	strip[heightOffset + 1] = (byte) stripHeight;
+	int offset = dataOffset;
+	for (int i = firstInterval; i <= lastInterval; i++) {
+		if (i > firstInterval) {
+			strip[offset++] = (byte) 0xFF;
+			strip[offset++] = (byte) (JPEGDecoder.M_RST0 + ((i - firstInterval - 1) & 7));
+		}
+		int length = intervalEnd[i] - intervalStart[i];
+		System.arraycopy(bytes, intervalStart[i], strip, offset, length);
+		offset += length;
+	}
+	strip[offset++] = (byte) 0xFF;
+	strip[offset++] = (byte) JPEGDecoder.M_EOI;
+	return strip;
+}
+
+static int gcd(int a, int b) {
+	while (b != 0) {
+		int t = a % b;
+		a = b;
+		b = t;
+	}
+	return a;
+}
+}
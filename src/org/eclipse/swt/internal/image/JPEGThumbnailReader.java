@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2026 y&y and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     y&y - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.internal.image;
+
+
+import java.io.*;
+import org.eclipse.swt.*;
+import org.eclipse.swt.graphics.*;
+
+/**
+ * Reads the thumbnail embedded in the APPn segments of a JPEG, and the
+ * EXIF orientation of the image, without reading the image itself:
+ * the segments are read up to the first SOF or SOS marker.
+ * <p>
+ * The thumbnail of an EXIF APP1 segment (the JPEG of IFD1, as cameras
+ * write it) is preferred to the one of a JFIF APP0 segment (RGB) or of
+ * a JFXX APP0 segment (JPEG, palette or RGB). Thumbnails stored as TIFF
+ * strips are ignored. A segment that cannot be parsed is ignored too,
+ * so a damaged header answers no thumbnail rather than an error.
+ * </p>
+ */
+final class JPEGThumbnailReader {
+	static final int ORIENTATION = 0x0112;
+	static final int COMPRESSION = 0x0103;
+	static final int JPEG_INTERCHANGE_FORMAT = 0x0201;
+	static final int JPEG_INTERCHANGE_FORMAT_LENGTH = 0x0202;
+
+	DataInputStream stream;
+	ImageData thumbnail;
+	boolean exifThumbnail;
+	int orientation;
+
+	/* the EXIF segment being parsed, and the offset of its TIFF header */
+	byte[] exif;
+	int tiff;
+	boolean littleEndian;
+	/* the offsets from the TIFF header found by parseEXIF(), or 0 */
+	int orientationValue, ifd1Link;
+	int thumbnailStart, thumbnailLength, thumbnailLengthValue;
+
+JPEGThumbnailReader(InputStream stream) {
+	this.stream = new DataInputStream(stream);
+}
+
+/**
+ * Read the segments of the JPEG up to the image. Answer the thumbnail,
+ * or null if there is none, and set the orientation of the loader.
+ */
+static ImageData load(InputStream stream, ImageLoader loader) {
+	JPEGThumbnailReader reader = new JPEGThumbnailReader(stream);
+	try {
+		reader.read();
+	} catch (IOException e) {
+		SWT.error(SWT.ERROR_IO, e);
+	}
+	loader.orientation = reader.orientation;
+	return reader.thumbnail;
+}
+
+void read() throws IOException {
+	if (stream.readUnsignedShort() != JPEGFileFormat.SOI) SWT.error(SWT.ERROR_UNSUPPORTED_FORMAT);
+	while (true) {
+		int marker = stream.readUnsignedByte();
+		if (marker != 0xFF) return;
+		do {
+			marker = stream.readUnsignedByte();
+		} while (marker == 0xFF);
+		marker |= 0xFF00;
+		if (JPEGFileFormat.RST0 <= marker && marker <= JPEGFileFormat.RST7) continue;
+		if (marker == JPEGFileFormat.SOS || marker == JPEGFileFormat.EOI) return;
+		if (JPEGFileFormat.SOF0 <= marker && marker <= JPEGFileFormat.SOF15 && marker != JPEGFileFormat.DHT && marker != JPEGFileFormat.DAC && marker != JPEGFileFormat.JPG) return;
+		int length = stream.readUnsignedShort() - 2;
+		if (length < 0) return;
+		if (marker == JPEGFileFormat.APP0 || marker == JPEGFileFormat.APP0 + 1) {
+			byte[] segment = new byte[length];
+			stream.readFully(segment);
+			try {
+				if (marker == JPEGFileFormat.APP0) {
+					if (thumbnail == null) readJFIF(segment);
+				} else {
+					readEXIF(segment);
+				}
+			} catch (RuntimeException e) {
+				/* a damaged segment or thumbnail */
+			}
+			if (exifThumbnail && orientation != 0) return;
+		} else {
+			skip(length);
+		}
+	}
+}
+
+void skip(int length) throws IOException {
+	while (length > 0) {
+		int skipped = stream.skipBytes(length);
+		if (skipped <= 0) {
+			stream.readUnsignedByte();
+			skipped = 1;
+		}
+		length -= skipped;
+	}
+}
+
+static boolean startsWith(byte[] segment, String identifier) {
+	if (segment.length < identifier.length()) return false;
+	for (int i = 0; i < identifier.length(); i++) {
+		if (segment[i] != (byte)identifier.charAt(i)) return false;
+	}
+	return true;
+}
+
+/**
+ * Read the RGB thumbnail of a JFIF segment, or the thumbnail of a
+ * JFXX extension segment.
+ */
+void readJFIF(byte[] segment) {
+	if (startsWith(segment, "JFIF\0")) {
+		int width = segment[12] & 0xFF;
+		int height = segment[13] & 0xFF;
+		if (width > 0 && height > 0) thumbnail = createRGB(segment, 14, width, height);
+	} else if (startsWith(segment, "JFXX\0")) {
+		switch (segment[5]) {
+			case 0x10:
+				thumbnail = decodeJPEG(segment, 6, segment.length - 6);
+				break;
+			case 0x11: {
+				int width = segment[6] & 0xFF;
+				int height = segment[7] & 0xFF;
+				RGB[] rgbs = new RGB[256];
+				for (int i = 0; i < rgbs.length; i++) {
+					int ofs = 8 + i * 3;
+					rgbs[i] = new RGB(segment[ofs] & 0xFF, segment[ofs + 1] & 0xFF, segment[ofs + 2] & 0xFF);
+				}
+				ImageData data = new ImageData(width, height, 8, new PaletteData(rgbs));
+				for (int y = 0; y < height; y++) {
+					data.setPixels(0, y, width, segment, 8 + 768 + y * width);
+				}
+				thumbnail = data;
+				break;
+			}
+			case 0x13:
+				thumbnail = createRGB(segment, 8, segment[6] & 0xFF, segment[7] & 0xFF);
+				break;
+		}
+	}
+}
+
+static ImageData createRGB(byte[] segment, int offset, int width, int height) {
+	if (offset + width * height * 3 > segment.length) return null;
+	ImageData data = new ImageData(width, height, 24, new PaletteData(0xFF0000, 0xFF00, 0xFF));
+	for (int y = 0; y < height; y++) {
+		System.arraycopy(segment, offset + y * width * 3, data.data, y * data.bytesPerLine, width * 3);
+	}
+	return data;
+}
+
+static ImageData decodeJPEG(byte[] segment, int offset, int length) {
+	if (offset < 0 || length <= 0 || offset + length > segment.length) return null;
+	return new ImageLoader().load(new ByteArrayInputStream(segment, offset, length))[0];
+}
+
+/**
+ * Read the orientation in IFD0 and the JPEG thumbnail of IFD1 of an
+ * EXIF segment.
+ */
+void readEXIF(byte[] segment) {
+	if (!parseEXIF(segment)) return;
+	int value = orientationValue == 0 ? 0 : readShort(orientationValue);
+	if (1 <= value && value <= 8) orientation = value;
+	if (thumbnailStart == 0) return;
+	ImageData data = decodeJPEG(exif, tiff + thumbnailStart, thumbnailLength);
+	if (data != null) {
+		thumbnail = data;
+		exifThumbnail = true;
+	}
+}
+
+/**
+ * Find the entries of IFD0 and IFD1 of an EXIF segment that locate the
+ * orientation and the JPEG thumbnail, without reading the thumbnail.
+ * Answer false if the segment is not EXIF.
+ */
+boolean parseEXIF(byte[] segment) {
+	if (!startsWith(segment, "Exif\0\0")) return false;
+	exif = segment;
+	tiff = 6;
+	if (exif[tiff] == 'I' && exif[tiff + 1] == 'I') {
+		littleEndian = true;
+	} else if (exif[tiff] == 'M' && exif[tiff + 1] == 'M') {
+		littleEndian = false;
+	} else {
+		return false;
+	}
+	if (readShort(2) != 42) return false;
+	int ifd0 = readInt(4);
+	int count = readShort(ifd0);
+	for (int i = 0; i < count; i++) {
+		int entry = ifd0 + 2 + i * 12;
+		if (readShort(entry) == ORIENTATION) orientationValue = entry + 8;
+	}
+	ifd1Link = ifd0 + 2 + count * 12;
+	int ifd1 = readInt(ifd1Link);
+	if (ifd1 <= 0) return true;
+	count = readShort(ifd1);
+	int compression = 6, offset = 0, length = 0, lengthEntry = 0;
+	for (int i = 0; i < count; i++) {
+		int entry = ifd1 + 2 + i * 12;
+		switch (readShort(entry)) {
+			case COMPRESSION: compression = readShort(entry + 8); break;
+			case JPEG_INTERCHANGE_FORMAT: offset = readInt(entry + 8); break;
+			case JPEG_INTERCHANGE_FORMAT_LENGTH: length = readInt(entry + 8); lengthEntry = entry + 8; break;
+		}
+	}
+	if (compression == 6 && offset > 0 && length > 0 && tiff + offset + length <= exif.length) {
+		thumbnailStart = offset;
+		thumbnailLength = length;
+		thumbnailLengthValue = lengthEntry;
+	}
+	return true;
+}
+
+/* the unsigned short at the offset from the TIFF header */
+int readShort(int offset) {
+	int b0 = exif[tiff + offset] & 0xFF;
+	int b1 = exif[tiff + offset + 1] & 0xFF;
+	return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+}
+
+/* the int at the offset from the TIFF header */
+int readInt(int offset) {
+	int s0 = readShort(offset);
+	int s1 = readShort(offset + 2);
+	return littleEndian ? (s1 << 16) | s0 : (s0 << 16) | s1;
+}
+
+/* set the unsigned short at the offset from the TIFF header */
+void writeShort(int offset, int value) {
+	exif[tiff + offset + (littleEndian ? 0 : 1)] = (byte)value;
+	exif[tiff + offset + (littleEndian ? 1 : 0)] = (byte)(value >> 8);
+}
+
+/* set the int at the offset from the TIFF header */
+void writeInt(int offset, int value) {
+	writeShort(offset + (littleEndian ? 0 : 2), value & 0xFFFF);
+	writeShort(offset + (littleEndian ? 2 : 0), value >>> 16);
+}
+}
@@ -11,16 +11,28 @@
 package org.eclipse.swt.internal.image;
 
 
+import java.io.*;
+import java.util.*;
 import org.eclipse.swt.*;
 import org.eclipse.swt.graphics.*;
 
 final class LZWCodec {
 	int bitsPerPixel, blockSize, blockIndex, currentByte, bitsLeft,
 		codeSize, clearCode, endCode, newCodes, topSlot, currentSlot,
-		imageWidth, imageHeight, imageX, imageY, pass, line, codeMask;
+		imageWidth, imageHeight, imageY, pass, line, codeMask;
 	byte[] block, lineArray;
-	int[] stack, suffix, prefix;
-	LZWNode[] nodeStack;
+	/* the data sub-blocks of the image read by the decoder, joined */
+	byte[] data;
+	int dataLength;
+	boolean truncated;
+	/* the string table of the decoder: the code of the string without
+	 * its last pixel, the last pixel and the length of each string */
+	short[] prefix, lengths;
+	byte[] suffix, string;
+	/* the string table of the encoder: an open-addressing hash table
+	 * from the prefix code and the pixel to the code of the string */
+	int[] hashKeys;
+	short[] hashCodes;
 	LEDataInputStream inputStream;
 	LEDataOutputStream outputStream;
 	ImageData image;
@@ -30,66 +42,103 @@ final class LZWCodec {
 		0x1, 0x3, 0x7, 0xF, 0x1F, 0x3F, 0x7F,
 		0xFF, 0x1FF, 0x3FF, 0x7FF, 0xFFF
 	};
+	static final int HASH_SIZE = 8192;
 
 /**
- * Decode the input.
+ * Decode the input. The data sub-blocks are read first, so the codes
+ * are taken from one array. The string of a code is written backwards,
+ * from its last pixel to its first, straight into the row, or into a
+ * buffer when it does not end in the row.
  */
 void decode() {
-	int code;
-	int oc = 0;
-	int fc = 0;
+	readData();
+	byte[] data = this.data, suffix = this.suffix, string = this.string;
+	short[] prefix = this.prefix, lengths = this.lengths;
+	int dataLength = this.dataLength, dataIndex = 0;
+	int bitBuffer = 0, bitCount = 0;
 	byte[] buf = new byte[imageWidth];
-	int stackIndex = 0;
 	int bufIndex = 0;
-	int c;
-	while ((c = nextCode()) != endCode) {
+	int oc = -1;
+	int fc = 0;
+	while (true) {
+		while (bitCount < codeSize && dataIndex < dataLength) {
+			bitBuffer |= (data[dataIndex++] & 0xFF) << bitCount;
+			bitCount += 8;
+		}
+		if (bitCount < codeSize) {
+			/* no end code: the data ends with the empty sub-block, or the stream ends */
+			if (truncated) SWT.error(SWT.ERROR_INVALID_IMAGE);
+			break;
+		}
+		int c = bitBuffer & codeMask;
+		bitBuffer >>>= codeSize;
+		bitCount -= codeSize;
+		if (c == endCode) break;
 		if (c == clearCode) {
 			codeSize = bitsPerPixel + 1;
 			codeMask = MASK_TABLE[bitsPerPixel];
 			currentSlot = newCodes;
 			topSlot = 1 << codeSize;
-			while ((c = nextCode()) == clearCode) {}
-			if (c != endCode) {
-				oc = fc = c;
-				buf[bufIndex] = (byte)c;
-				bufIndex++;
-				if (bufIndex == imageWidth) {
-					nextPutPixels(buf);
-					bufIndex = 0;
-				}
-			}
+			oc = -1;
+			continue;
+		}
+		int code = c;
+		int length;
+		boolean pending = false;
+		if (oc == -1) {
+			/* the first code, or the first after a clear code, is a pixel */
+			if (c >= newCodes) SWT.error(SWT.ERROR_INVALID_IMAGE);
+			length = 1;
+		} else if (code >= currentSlot) {
+			/* the string of the previous code and its first pixel */
+			code = oc;
+			length = lengths[oc] + 1;
+			pending = true;
 		} else {
-			code = c;
-			if (code >= currentSlot) {
-				code = oc;
-				stack[stackIndex] = fc;
-				stackIndex++;
-			}
-			while (code >= newCodes) {
-				stack[stackIndex] = suffix[code];
-				stackIndex++;
-				code = prefix[code];
-			}
-			stack[stackIndex] = code;
-			stackIndex++;
-			if (currentSlot < topSlot) {
-				fc = code;
-				suffix[currentSlot] = fc;
-				prefix[currentSlot] = oc;
-				currentSlot++;
-				oc = c;
+			length = lengths[code];
+		}
+		byte[] out;
+		int index;
+		if (bufIndex + length <= imageWidth) {
+			out = buf;
+			index = bufIndex + length - 1;
+		} else {
+			out = string;
+			index = length - 1;
+		}
+		if (pending) out[index--] = (byte)fc;
+		while (code >= newCodes) {
+			out[index--] = suffix[code];
+			code = prefix[code];
+		}
+		out[index] = (byte)code;
+		if (oc != -1 && currentSlot < topSlot) {
+			prefix[currentSlot] = (short)oc;
+			suffix[currentSlot] = (byte)code;
+			lengths[currentSlot] = (short)(lengths[oc] + 1);
+			currentSlot++;
+			if (currentSlot >= topSlot && codeSize < 12) {
+				codeMask = MASK_TABLE[codeSize];
+				codeSize++;
+				topSlot = topSlot + topSlot;
 			}
-			if (currentSlot >= topSlot) {
-				if (codeSize < 12) {
-					codeMask = MASK_TABLE[codeSize];
-					codeSize++;
-					topSlot = topSlot + topSlot;
-				}
+		}
+		oc = c;
+		fc = code;
+		if (out == buf) {
+			bufIndex += length;
+			if (bufIndex == imageWidth) {
+				nextPutPixels(buf);
+				bufIndex = 0;
 			}
-			while (stackIndex > 0) {
-				stackIndex--;
-				buf[bufIndex] = (byte)stack[stackIndex];
-				bufIndex++;
+		} else {
+			/* the string continues on the next rows */
+			int offset = 0;
+			while (offset < length) {
+				int count = Math.min(length - offset, imageWidth - bufIndex);
+				System.arraycopy(string, offset, buf, bufIndex, count);
+				offset += count;
+				bufIndex += count;
 				if (bufIndex == imageWidth) {
 					nextPutPixels(buf);
 					bufIndex = 0;
@@ -149,53 +198,40 @@ public void encode(LEDataOutputStream byteStream, ImageData image) {
 }
 /**
  * Encoding loop broken out to allow early return.
+ * The strings are looked up in the hash table by their prefix code and
+ * their last pixel.
  */
 int encodeLoop() {
-	int pixel = nextPixel();
-	boolean found;
-	LZWNode node;
+	int[] hashKeys = this.hashKeys;
+	short[] hashCodes = this.hashCodes;
+	byte[] row = lineArray;
+	imageY = 0;
+	nextPixels(row, imageWidth);
+	int x = 1;
+	int currentPrefix = row[0] & 0xFF;
 	while (true) {
-		int currentPrefix = pixel;
-		node = nodeStack[currentPrefix];
-		found = true;
-		pixel = nextPixel();
-		if (pixel < 0)
-			return currentPrefix;
-		while (found && (node.children != null)) {
-			node = node.children;
-			while (found && (node.suffix != pixel)) {
-				if (pixel < node.suffix) {
-					if (node.left == null) {
-						node.left = new LZWNode();
-						found = false;
-					}
-					node = node.left;
-				} else {
-					if (node.right == null) {
-						node.right = new LZWNode();
-						found = false;
-					}
-					node = node.right;
-				}
-			}
-			if (found) {
-				currentPrefix = node.code;
-				pixel = nextPixel();
-				if (pixel < 0)
-					return currentPrefix;
-			}
+		if (x == imageWidth) {
+			imageY++;
+			if (imageY >= imageHeight)
+				return currentPrefix;
+			nextPixels(row, imageWidth);
+			x = 0;
 		}
-		if (found) {
-			node.children = new LZWNode();
-			node = node.children;
+		int pixel = row[x++] & 0xFF;
+		int key = (currentPrefix << 8) | pixel;
+		int index = (key * 0x9E3779B1) >>> 19;
+		int found;
+		while ((found = hashKeys[index]) != key && found != -1) {
+			index = (index + 1) & (HASH_SIZE - 1);
 		}
-		node.children = null;
-		node.left = null;
-		node.right = null;
-		node.code = currentSlot;
-		node.prefix = currentPrefix;
-		node.suffix = pixel;
+		if (found == key) {
+			currentPrefix = hashCodes[index];
+			continue;
+		}
+		hashKeys[index] = key;
+		hashCodes[index] = (short)currentSlot;
 		nextPutCode(currentPrefix);
+		currentPrefix = pixel;
 		currentSlot++;
 		// Off by one?
 		if (currentSlot < 4096) {
@@ -206,8 +242,7 @@ int encodeLoop() {
 			}
 		} else {
 			nextPutCode(clearCode);
-			for (int i = 0; i < nodeStack.length; i++)
-				nodeStack[i].children = null;
+			Arrays.fill(hashKeys, -1);
 			codeSize = bitsPerPixel + 1;
 			codeMask = MASK_TABLE[codeSize - 1];
 			currentSlot = newCodes;
@@ -227,24 +262,32 @@ void initializeForDecoding() {
 	clearCode = 1 << bitsPerPixel;
 	endCode = clearCode + 1;
 	newCodes = currentSlot = endCode + 1;
-	currentByte = -1;
-	blockSize = bitsLeft = 0;
-	blockIndex = 0;
 	codeMask = MASK_TABLE[codeSize - 1];
-	stack = new int[4096];
-	suffix = new int[4096];
-	prefix = new int[4096];
-	block = new byte[256];
+	prefix = new short[4096];
+	suffix = new byte[4096];
+	lengths = new short[4096];
+	string = new byte[4096];
+	for (int i = 0; i < clearCode; i++) {
+		suffix[i] = (byte)i;
+		lengths[i] = 1;
+	}
 	imageWidth = image.width;
 	imageHeight = image.height;
 }
+/**
+ * Answer the minimum code size of the data of an image of the given
+ * depth. GIF does not allow less than 2 bits.
+ */
+static int codeSize(int depth) {
+	return Math.max(2, depth);
+}
 /**
  * Initialize the receiver for encoding the given
  * byte array.
  */
 void initializeForEncoding() {
 	interlaced = false;
-	bitsPerPixel = image.depth;
+	bitsPerPixel = codeSize(image.depth);
 	codeSize = bitsPerPixel + 1;
 	topSlot = 1 << codeSize;
 	clearCode = 1 << bitsPerPixel;
@@ -256,71 +299,12 @@ void initializeForEncoding() {
 	blockSize = 255;
 	block = new byte[blockSize];
 	block[0] = (byte)(blockSize - 1);
-	nodeStack = new LZWNode[1 << bitsPerPixel];
-	for (int i = 0; i < nodeStack.length; i++) {
-		LZWNode node = new LZWNode();
-		node.code = i + 1;
-		node.prefix = -1;
-		node.suffix = i + 1;
-		nodeStack[i] = node;
-	}
+	hashKeys = new int[HASH_SIZE];
+	hashCodes = new short[HASH_SIZE];
+	Arrays.fill(hashKeys, -1);
 	imageWidth = image.width;
 	imageHeight = image.height;
-	imageY = -1;
 	lineArray = new byte[imageWidth];
-	imageX = imageWidth + 1; // Force a read
-}
-/**
- * Answer the next code from the input byte array.
- */
-int nextCode() {
-	int code;
-	if (bitsLeft == 0) {
-		if (blockIndex >= blockSize) {
-			blockSize = readBlock();
-			blockIndex = 0;
-			if (blockSize == 0) return endCode;
-		}
-		blockIndex++;
-		currentByte = block[blockIndex] & 0xFF;
-		bitsLeft = 8;
-		code = currentByte;
-	} else {
-		int shift = bitsLeft - 8;
-		if (shift < 0)
-			code = currentByte >> (0 - shift);
-		else
-			code = currentByte << shift;
-	}
-	while (codeSize > bitsLeft) {
-		if (blockIndex >= blockSize) {
-			blockSize = readBlock();
-			blockIndex = 0;
-			if (blockSize == 0) return endCode;
-		}
-		blockIndex++;
-		currentByte = block[blockIndex] & 0xFF;
-		code += currentByte << bitsLeft;
-		bitsLeft += 8;
-	}
-	bitsLeft -= codeSize;
-	return code & codeMask;
-}
-/**
- * Answer the next pixel to encode in the image
- */
-int nextPixel() {
-	imageX++;
-	if (imageX > imageWidth) {
-		imageY++;
-		if (imageY >= imageHeight) {
-			return -1;
-		} else {
-			nextPixels(lineArray, imageWidth);
-		}
-		imageX = 1;
-	}
-	return this.lineArray[imageX - 1] & 0xFF;
 }
 /**
  * Copy a row of pixel values from the image.
@@ -390,9 +374,7 @@ void nextPutCode(int aCode) {
 void nextPutPixels(byte[] buf) {
 	if (image.depth == 8) {
 		// Slight optimization for depth = 8.
-		int start = line * image.bytesPerLine;
-		for (int i = 0; i < imageWidth; i++)
-			image.data[start + i] = buf[i];
+		System.arraycopy(buf, 0, image.data, line * image.bytesPerLine, imageWidth);
 	} else {
 		image.setPixels(0, line, imageWidth, buf, 0);
 	}
@@ -437,31 +419,41 @@ void nextPutPixels(byte[] buf) {
 void copyRow(byte[] buf, int copies) {
 	for (int i = 1; i <= copies; i++) {
 		if (line + i < imageHeight) {
-			image.setPixels(0, line + i, imageWidth, buf, 0);
+			if (image.depth == 8) {
+				System.arraycopy(buf, 0, image.data, (line + i) * image.bytesPerLine, imageWidth);
+			} else {
+				image.setPixels(0, line + i, imageWidth, buf, 0);
+			}
 		}
 	}
 }
 /**
- * Read a block from the byte stream.
- * Return the number of bytes read.
- * Throw an exception if the block could not be read.
+ * Read the data sub-blocks of the image up to the empty sub-block.
+ * Remember if the stream ends before it.
+ * Throw an exception if the blocks could not be read.
  */
-int readBlock() {
-	int size = -1;
+void readData() {
+	data = new byte[4096];
+	dataLength = 0;
 	try {
-		size = inputStream.read();
-		if (size == -1) {
-			SWT.error(SWT.ERROR_INVALID_IMAGE);
-		}
-		block[0] = (byte)size;
-		size = inputStream.read(block, 1, size);
-		if (size == -1) {
-			SWT.error(SWT.ERROR_INVALID_IMAGE);
+		int size;
+		while ((size = inputStream.read()) > 0) {
+			if (dataLength + size > data.length) {
+				byte[] newData = new byte[Math.max(data.length * 2, dataLength + size)];
+				System.arraycopy(data, 0, newData, 0, dataLength);
+				data = newData;
+			}
+			int count = inputStream.read(data, dataLength, size);
+			if (count > 0) dataLength += count;
+			if (count != size) {
+				size = -1;
+				break;
+			}
 		}
-	} catch (Exception e) {
+		truncated = size == -1;
+	} catch (IOException e) {
 		SWT.error(SWT.ERROR_IO, e);
 	}
-	return size;
 }
 /**
  * Write a block to the byte stream.
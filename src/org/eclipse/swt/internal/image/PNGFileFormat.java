@@ -14,7 +14,6 @@ package org.eclipse.swt.internal.image;
 import java.io.*;
 import org.eclipse.swt.*;
 import org.eclipse.swt.graphics.*;
-import org.eclipse.swt.internal.*;
 
 final class PNGFileFormat extends FileFormat {
 	static final int SIGNATURE_LENGTH = 8;
@@ -142,8 +141,11 @@ void readNextChunk(PngChunkReader chunkReader) throws IOException {
 	}
 }
 void unloadIntoByteStream(ImageLoader loader) {
-	/* We do not currently support writing png. */
-	SWT.error(SWT.ERROR_UNSUPPORTED_FORMAT);
+	try {
+		new PngEncoder(loader.data[0]).encode(outputStream);
+	} catch (IOException e) {
+		SWT.error(SWT.ERROR_IO, e);
+	}
 }
 boolean isFileFormat(LEDataInputStream stream) {
 	try {
@@ -289,13 +291,12 @@ void setImageDataValues(byte[] data, ImageData imageData) {
  * decoding the data, filtering, and interlacing.
  */
 void readPixelData(PngIdatChunk chunk, PngChunkReader chunkReader) throws IOException {
-	InputStream stream = new PngInputStream(chunk, chunkReader);
+	InputStream stream;
 	boolean use3_2 = System.getProperty("org.eclipse.swt.internal.image.PNGFileFormat_3.2") != null;
-	InputStream inflaterStream = use3_2 ? null : Compatibility.newInflaterInputStream(stream);
-	if (inflaterStream != null) {
-		stream = new BufferedInputStream(inflaterStream);
+	if (use3_2) {
+		stream = new PngDecodingDataStream(new PngInputStream(chunk, chunkReader));
 	} else {
-		stream = new PngDecodingDataStream(stream);
+		stream = new PngInflaterInputStream(chunk, chunkReader);
 	}
 	int interlaceMethod = headerChunk.getInterlaceMethod();
 	if (interlaceMethod == PngIhdrChunk.INTERLACE_METHOD_NONE) {
@@ -303,14 +304,22 @@ void readPixelData(PngIdatChunk chunk, PngChunkReader chunkReader) throws IOExce
 	} else {
 		readInterlacedImage(stream);
 	}
-	/*
-	* InflaterInputStream does not consume all bytes in the stream
-	* when it is closed. This may leave unread IDAT chunks. The fix
-	* is to read all available bytes before closing it.
-	*/
-	while (stream.available() > 0) stream.read();
 	stream.close();
 }
+/**
+ * Read the filter type and the bytes of a row. Answer the
+ * filter type.
+ */
+int readRow(InputStream inputStream, byte[] row, int bytesPerRow) throws IOException {
+	int filterType = inputStream.read();
+	int read = 0;
+	while (read != bytesPerRow) {
+		int count = inputStream.read(row, read, bytesPerRow - read);
+		if (count < 0) SWT.error(SWT.ERROR_INVALID_IMAGE);
+		read += count;
+	}
+	return filterType;
+}
 /**
  * Answer the number of bytes in a word-aligned row of pixel data.
  */
@@ -374,11 +383,7 @@ void readInterlaceFrame(
 	byte[] currentRow = row1;	
 	byte[] lastRow = row2;	
 	for (int row = startRow; row < height; row += rowInterval) {
-		byte filterType = (byte)inputStream.read();
-		int read = 0;
-		while (read != bytesPerRow) {
-			read += inputStream.read(currentRow, read, bytesPerRow - read);
-		}
+		int filterType = readRow(inputStream, currentRow, bytesPerRow);
 		filterRow(currentRow, lastRow, filterType);
 		if (headerChunk.getBitDepth() >= 8) {
 			int bytesPerPixel = getBytesPerPixel();
@@ -459,11 +464,7 @@ void readNonInterlacedImage(InputStream inputStream) throws IOException {
 	byte[] lastRow = row2;
 	int height = headerChunk.getHeight();
 	for (int row = 0; row < height; row++) {
-		byte filterType = (byte)inputStream.read();
-		int read = 0;
-		while (read != bytesPerRow) {
-			read += inputStream.read(currentRow, read, bytesPerRow - read);
-		}
+		int filterType = readRow(inputStream, currentRow, bytesPerRow);
 		filterRow(currentRow, lastRow, filterType);
 		System.arraycopy(currentRow, 0, data, dataOffset, bytesPerRow);
 		dataOffset += alignedBytesPerRow;
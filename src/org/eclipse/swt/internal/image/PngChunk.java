@@ -13,6 +13,7 @@ package org.eclipse.swt.internal.image;
 
 import org.eclipse.swt.*;
 import java.io.*;
+import java.util.zip.*;
 
 class PngChunk extends Object {
 	byte[] reference;
@@ -40,21 +41,6 @@ class PngChunk extends Object {
 	static final byte[] TYPE_IEND = {(byte) 'I', (byte) 'E', (byte) 'N', (byte) 'D'};
 	static final byte[] TYPE_tRNS = {(byte) 't', (byte) 'R', (byte) 'N', (byte) 'S'};
 	
-	static final int[] CRC_TABLE;
-	static {
-		CRC_TABLE = new int[256];
-		for (int i = 0; i < 256; i++) {
-			CRC_TABLE[i] = i;
-			for (int j = 0; j < 8; j++) {
-				if ((CRC_TABLE[i] & 0x1) == 0) {
-					CRC_TABLE[i] = (CRC_TABLE[i] >> 1) & 0x7FFFFFFF;
-				} else {
-					CRC_TABLE[i] = 0xEDB88320 ^ ((CRC_TABLE[i] >> 1) & 0x7FFFFFFF);
-				}
-			}
-		}	
-	}
-	
 	int length;
 	
 /**
@@ -252,14 +238,9 @@ boolean checkCRC() {
  * Answer the CRC value of chunk's data.
  */
 int computeCRC() {
-	int crc = 0xFFFFFFFF;
-	int start = TYPE_OFFSET;
-	int stop = DATA_OFFSET + getLength();
-	for (int i = start; i < stop; i++) {
-		int index = (crc ^ reference[i]) & 0xFF;
-		crc =  CRC_TABLE[index] ^ ((crc >> 8) & 0x00FFFFFF);
-	}
-	return ~crc;
+	CRC32 crc = new CRC32();
+	crc.update(reference, TYPE_OFFSET, TYPE_FIELD_LENGTH + getLength());
+	return (int) crc.getValue();
 }
 
 boolean typeMatchesArray(byte[] array) {
@@ -18,6 +18,7 @@ public class PngChunkReader {
 	PngFileReadState readState;
 	PngIhdrChunk headerChunk;
 	PngPlteChunk paletteChunk;
+	PngChunk pendingChunk;
 	
 PngChunkReader(LEDataInputStream inputStream) {
 	this.inputStream = inputStream;
@@ -41,6 +42,11 @@ PngIhdrChunk getIhdrChunk() {
 
 PngChunk readNextChunk() {
 	if (headerChunk == null) return getIhdrChunk();
+	if (pendingChunk != null) {
+		PngChunk chunk = pendingChunk;
+		pendingChunk = null;
+		return chunk;
+	}
 	
 	PngChunk chunk = PngChunk.readNextFromStream(inputStream);
 	if (chunk == null) SWT.error(SWT.ERROR_INVALID_IMAGE);
@@ -61,12 +67,20 @@ PngChunk readNextChunk() {
 	return chunk;
 }
 
+/**
+ * Give back a chunk that is already read and validated, it is
+ * answered again by the next call of readNextChunk().
+ */
+void unreadChunk(PngChunk chunk) {
+	pendingChunk = chunk;
+}
+
 boolean readPixelData() {
 	return readState.readPixelData;
 }
 
 boolean hasMoreChunks() {
-	return !readState.readIEND;
+	return pendingChunk != null || !readState.readIEND;
 }
 
 }
@@ -12,25 +12,25 @@ package org.eclipse.swt.internal.image;
 
 
 import java.io.*;
+import java.util.zip.*;
 
 import org.eclipse.swt.*;
 
 public class PngDecodingDataStream extends InputStream {
 	InputStream stream;
-	byte currentByte;
-	int nextBitIndex;
+	boolean endOfStream;
 	
-	PngLzBlockReader lzBlockReader;
-	int adlerValue;
+	/* the bits read ahead, the next bit is the lowest */
+	int bitBuffer;
+	int bitCount;
 	
-	static final int PRIME = 65521;
-	static final int MAX_BIT = 7;		
+	PngLzBlockReader lzBlockReader;
+	Adler32 adler;
 	
 PngDecodingDataStream(InputStream stream) throws IOException {
 	super();
 	this.stream = stream;
-	nextBitIndex = MAX_BIT + 1;
-	adlerValue = 1;
+	adler = new Adler32();
 	lzBlockReader = new PngLzBlockReader(this);
 	readCompressedDataHeader();
 	lzBlockReader.readNextBlockHeader();
@@ -52,49 +52,71 @@ public void close() throws IOException {
 	checkAdler();
 }
 
-int getNextIdatBits(int length) throws IOException {
-	int value = 0;
-	for (int i = 0; i < length; i++) {
-		value |= (getNextIdatBit() << i);
+/**
+ * Make sure that at least length bits are read ahead. Past
+ * the end of the data the bits are 0, they are only seen
+ * by peekIdatBits() on valid data.
+ */
+void fillIdatBits(int length) throws IOException {
+	while (bitCount < length) {
+		int nextByte = endOfStream ? -1 : stream.read();
+		if (nextByte == -1) {
+			endOfStream = true;
+			nextByte = 0;
+		}
+		bitBuffer |= nextByte << bitCount;
+		bitCount += 8;
 	}
+}
+
+int getNextIdatBits(int length) throws IOException {
+	fillIdatBits(length);
+	int value = bitBuffer & ((1 << length) - 1);
+	bitBuffer >>>= length;
+	bitCount -= length;
 	return value;
 }
 
 int getNextIdatBit() throws IOException {
-	if (nextBitIndex > MAX_BIT) {
-		currentByte = getNextIdatByte();
-		nextBitIndex = 0;
-	}
-	return (currentByte & (1 << nextBitIndex)) >> nextBitIndex++;
+	return getNextIdatBits(1);
+}
+
+/**
+ * Answer the next length bits without reading them.
+ */
+int peekIdatBits(int length) throws IOException {
+	fillIdatBits(length);
+	return bitBuffer & ((1 << length) - 1);
 }
 
-byte getNextIdatByte() throws IOException {	
-	byte nextByte = (byte)stream.read();
-	nextBitIndex = MAX_BIT + 1;
-	return nextByte;
+void skipIdatBits(int length) {
+	bitBuffer >>>= length;
+	bitCount -= length;
 }
 
-void updateAdler(byte value) {
-	int low = adlerValue & 0xFFFF;
-	int high = (adlerValue >> 16) & 0xFFFF;
-	int valueInt = value & 0xFF;
-	low = (low + valueInt) % PRIME;
-	high = (low + high) % PRIME;
-	adlerValue = (high << 16) | low;
+/**
+ * Answer the next byte, the bits left of the current
+ * byte are skipped.
+ */
+byte getNextIdatByte() throws IOException {
+	skipIdatBits(bitCount & 7);
+	if (bitCount > 0) {
+		return (byte)getNextIdatBits(8);
+	}
+	return (byte)stream.read();
 }
 
 public int read() throws IOException {
 	byte nextDecodedByte = lzBlockReader.getNextByte();
-	updateAdler(nextDecodedByte);
+	adler.update(nextDecodedByte & 0xFF);
 	return nextDecodedByte & 0xFF;
 }
 
 public int read(byte[] buffer, int off, int len) throws IOException {
 	for (int i = 0; i < len; i++) {
-		int b = read();
-		if (b == -1) return i;
-		buffer[off + i] = (byte)b;
+		buffer[off + i] = lzBlockReader.getNextByte();
 	}
+	adler.update(buffer, off, len);
 	return len;
 }
 
@@ -128,7 +150,7 @@ void checkAdler() throws IOException {
 		| ((getNextIdatByte() & 0xFF) << 16)
 		| ((getNextIdatByte() & 0xFF) << 8)
 		| (getNextIdatByte() & 0xFF);
-	if (storedAdler != adlerValue) error();
+	if (storedAdler != (int)adler.getValue()) error();
 }
 
 }
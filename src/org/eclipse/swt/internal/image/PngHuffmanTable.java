@@ -15,7 +15,14 @@ import java.io.*;
 public class PngHuffmanTable {
 	CodeLengthInfo[] codeLengthInfo;
 	int[] codeValues;
+	/*
+	 * The codes of up to LOOKUP_BITS bits, indexed by the next
+	 * LOOKUP_BITS bits of the stream: (value << 4) | length,
+	 * or 0 if the code is longer.
+	 */
+	int[] lookup;
 	
+	static final int LOOKUP_BITS = 9;
 	static final int MAX_CODE_LENGTH = 15;
 	static final int BAD_CODE = 0xFFFFFFF;
 	static final int incs[] = {1391376, 463792, 198768, 86961, 33936, 13776, 4592, 1968, 861, 336, 112, 48, 21, 7, 3, 1};
@@ -89,9 +96,33 @@ private void generateTable(int[] lengths) {
 		}
 		if (last != 0) codeLengthInfo[last - 1].max = codes[i];
 	}
+	
+	// The bits of a code are stored from its highest bit, so
+	// the index of a code is its bits reversed, followed by all
+	// the values of the bits after it.
+	lookup = new int[1 << LOOKUP_BITS];
+	for (int i = 0; i < lengths.length; i++) {
+		int length = lengths[i];
+		if (length == 0 || length > LOOKUP_BITS) continue;
+		int reversed = 0;
+		for (int bit = 0; bit < length; bit++) {
+			reversed |= ((codes[i] >> bit) & 1) << (length - 1 - bit);
+		}
+		int entry = (codeValues[i] << 4) | length;
+		for (int index = reversed; index < lookup.length; index += 1 << length) {
+			lookup[index] = entry;
+		}
+	}
 }
 
 int getNextValue(PngDecodingDataStream stream) throws IOException {
+	int entry = lookup[stream.peekIdatBits(LOOKUP_BITS)];
+	if (entry != 0) {
+		stream.skipIdatBits(entry & 0xF);
+		return entry >> 4;
+	}
+	
+	// The code is longer than LOOKUP_BITS, read it bit by bit.
 	int code = stream.getNextIdatBit();
 	int codelength = 0;
 
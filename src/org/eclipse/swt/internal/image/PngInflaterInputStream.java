@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2026 y&y and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     y&y - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.internal.image;
+
+import java.io.*;
+import java.util.zip.*;
+
+/**
+ * Inflates the data of the IDAT chunks with java.util.zip.Inflater.
+ * The data of each chunk is given to the inflater where it is, in the
+ * chunk, and the rows are inflated straight into the caller's buffer,
+ * so the compressed data is not copied through an intermediate stream.
+ */
+public class PngInflaterInputStream extends InputStream {
+	PngChunkReader reader;
+	PngChunk chunk;
+	Inflater inflater;
+	byte[] single = new byte[1];
+
+public PngInflaterInputStream(PngIdatChunk chunk, PngChunkReader reader) {
+	this.chunk = chunk;
+	this.reader = reader;
+	inflater = new Inflater();
+	inflater.setInput(chunk.reference, PngChunk.DATA_OFFSET, chunk.getLength());
+}
+
+/**
+ * Give the data of the next IDAT chunk to the inflater. Answer
+ * false when the next chunk is not an IDAT chunk, it is given back
+ * to the chunk reader.
+ */
+private boolean nextChunk() throws IOException {
+	do {
+		chunk = reader.readNextChunk();
+		if (chunk == null) throw new IOException();
+		if (chunk.getChunkType() != PngChunk.CHUNK_IDAT) {
+			reader.unreadChunk(chunk);
+			chunk = null;
+			return false;
+		}
+	} while (chunk.getLength() == 0);
+	inflater.setInput(chunk.reference, PngChunk.DATA_OFFSET, chunk.getLength());
+	return true;
+}
+
+public int available() throws IOException {
+	return inflater.finished() ? 0 : 1;
+}
+
+/**
+ * Skip the IDAT chunks that follow the last row of the image, so
+ * the chunk reader continues from the first chunk after them.
+ */
+public void close() throws IOException {
+	if (inflater == null) return;
+	while (chunk != null && nextChunk()) {
+		// the rest of the data, such as the Adler-32 checksum.
+	}
+	inflater.end();
+	inflater = null;
+}
+
+public int read() throws IOException {
+	return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+}
+
+public int read(byte[] b, int off, int len) throws IOException {
+	if (inflater == null) throw new IOException();
+	if (len == 0) return 0;
+	try {
+		while (true) {
+			int count = inflater.inflate(b, off, len);
+			if (count > 0) return count;
+			if (inflater.finished()) return -1;
+			if (inflater.needsDictionary()) throw new IOException();
+			if (inflater.needsInput() && (chunk == null || !nextChunk())) throw new EOFException();
+		}
+	} catch (DataFormatException e) {
+		throw new IOException(e.getMessage());
+	}
+}
+}
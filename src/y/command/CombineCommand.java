@@ -34,13 +34,12 @@ public class CombineCommand implements Command{
 	public boolean execute() {
         Paragraph next = document.nextParagraph(para);
         if(next==null) {
-            System.out.println("No next paragraph.");
+            Trace.event("CombineCommand.noNext", 0, 0);
         }
         else {
-            System.out.println("Found the next paragraph.");
             para.combine(next, preStringFormats); 
             document.removeParagraph(next);
-            para.debug();
+            Trace.event("CombineCommand.combine", para.getGlyphsCount(), 0);
             document.compose();
             document.updateView();
         }
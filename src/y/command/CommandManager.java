@@ -20,6 +20,15 @@ public final class CommandManager {
 
     private static CommandManager instance = new CommandManager();
 
+    // the operations that are timed, the index in the timers:
+    private static final int EXECUTE = 0;
+    private static final int UNEXECUTE = 1;
+    private static final int REDO = 2;
+    private static final String[] OPERATIONS = { "execute", "unexecute", "redo" };
+
+    // the histograms of each command class, by operation, created on first use:
+    private static final Map<Class<?>, Metrics.Histogram[]> timers = new HashMap<Class<?>, Metrics.Histogram[]>();
+
     // store the command list:
     private List<Command> commands = new ArrayList<Command>();
     // store the position of the current command (just executed):
@@ -43,6 +52,29 @@ public final class CommandManager {
      */
     public static CommandManager instance() { return instance; }
 
+    // execute a new command, and add it to the list if it can undo:
+    private void execute(Command cmd) {
+        long t = System.nanoTime();
+        boolean ok = cmd.execute();
+        timer(EXECUTE, cmd).recordSince(t);
+        Trace.end("Command.execute", t, cmd.getClass().getSimpleName());
+        if(ok && cmd.canUndo())
+            addToCommandList(cmd);
+    }
+
+    // the histogram of the command class, "Command.execute.InsertCommand.ns":
+    private static Metrics.Histogram timer(int op, Command cmd) {
+        Metrics.Histogram[] h = timers.get(cmd.getClass());
+        if(h==null) {
+            h = new Metrics.Histogram[OPERATIONS.length];
+            timers.put(cmd.getClass(), h);
+        }
+        if(h[op]==null)
+            h[op] = Metrics.histogram("Command." + OPERATIONS[op] + "."
+                + cmd.getClass().getSimpleName() + ".ns");
+        return h[op];
+    }
+
     // add the command that just executed:
     private void addToCommandList(Command cmd) {
         Assert.checkTrue(cmd.canUndo()); // must support undo.
@@ -58,7 +90,7 @@ public final class CommandManager {
         }
         commands.add(cmd);
         current++;
-        System.out.println("added a new command: "+cmd.toString());
+        Trace.event("CommandManager.add", current, commands.size());
     }
 
     /**
@@ -71,11 +103,13 @@ public final class CommandManager {
         }
         Command currentCommand = commands.get(current);
         if(currentCommand.canUndo()) {
+            long t = System.nanoTime();
         	currentCommand.unexecute();
+            timer(UNEXECUTE, currentCommand).recordSince(t);
+            Trace.end("Command.unexecute", t, currentCommand.getClass().getSimpleName());
         	current--;
         }
         hasBeenUndo = true;
-        System.out.println(current);
     }
 
     /**
@@ -96,9 +130,11 @@ public final class CommandManager {
         	return;
         }
         Command currentCommand = commands.get(current + 1);
+        long t = System.nanoTime();
     	currentCommand.execute();
+        timer(REDO, currentCommand).recordSince(t);
+        Trace.end("Command.redo", t, currentCommand.getClass().getSimpleName());
     	current++;
-        System.out.println(current);
     }
 
     /**
@@ -117,10 +153,7 @@ public final class CommandManager {
      * @param c The char of the key.
      */
     public void newInsertCommand(Document doc, char c) {
-        Command cmd = new InsertCommand(doc, c);
-        if(cmd.execute() && cmd.canUndo()) {
-            addToCommandList(cmd);
-        }
+        execute(new InsertCommand(doc, c));
     }
 
     /**
@@ -130,10 +163,7 @@ public final class CommandManager {
      * @param filename The picture file name.
      */
     public void newInsertPictureCommand(Document doc, String filename) {
-        Command cmd = new InsertPictureCommand(doc, filename);
-        if(cmd.execute() && cmd.canUndo()) {
-            addToCommandList(cmd);
-        }
+        execute(new InsertPictureCommand(doc, filename));
     }
 
     /**
@@ -148,10 +178,7 @@ public final class CommandManager {
      * @param color The color, or null if ignore.
      */
     public void newFormatCommand(Document doc, String fontName, Integer fontSize, Boolean bold, Boolean italic, Boolean underlined, yColor color) {
-        Command cmd = new FormatCommand(doc, fontName, fontSize, bold, italic, underlined, color);
-        if(cmd.execute() && cmd.canUndo()) {
-            addToCommandList(cmd);
-        }
+        execute(new FormatCommand(doc, fontName, fontSize, bold, italic, underlined, color));
     }
 
     /**
@@ -160,10 +187,7 @@ public final class CommandManager {
      * @param doc The document object.
      */
     public void newDeleteCommand(Document doc) {
-        Command cmd = new DeleteCommand(doc);
-        if(cmd.execute() && cmd.canUndo()) {
-            addToCommandList(cmd);
-        }
+        execute(new DeleteCommand(doc));
     }
 
     /**
@@ -172,10 +196,7 @@ public final class CommandManager {
      * @param doc The document object.
      */
     public void newSplitCommand(Document doc) {
-        Command cmd = new SplitCommand(doc);
-        if(cmd.execute() && cmd.canUndo()) {
-            addToCommandList(cmd);
-        }
+        execute(new SplitCommand(doc));
     }
     
     /**
@@ -185,10 +206,7 @@ public final class CommandManager {
      * @param para The paragraph object.
      */
     public void newCombineCommand(Document doc, Paragraph para) {
-        Command cmd = new CombineCommand(doc, para);
-        if(cmd.execute() && cmd.canUndo()) {
-            addToCommandList(cmd);
-        }
+        execute(new CombineCommand(doc, para));
     }
     
     /**
@@ -198,10 +216,7 @@ public final class CommandManager {
      * @param filePath The path.
      */
     public void newSaveCommand(Document doc) {
-        Command cmd = new SaveCommand(doc);
-        if(cmd.execute() && cmd.canUndo()) {
-            addToCommandList(cmd);
-        }
+        execute(new SaveCommand(doc));
     }
     
     /**
@@ -211,10 +226,7 @@ public final class CommandManager {
      * @param filePath The path.
      */
     public void newSaveAsCommand(Document doc, String filePath) {
-        Command cmd = new SaveAsCommand(doc, filePath);
-        if(cmd.execute() && cmd.canUndo()) {
-            addToCommandList(cmd);
-        }
+        execute(new SaveAsCommand(doc, filePath));
     }
     
     /**
@@ -224,10 +236,38 @@ public final class CommandManager {
      * @param filePath The path.
      */
     public void newOpenCommand(yView view, String filePath) {
-        Command cmd = new OpenCommand(view, filePath);
-        if(cmd.execute() && cmd.canUndo()) {
-            addToCommandList(cmd);
-        }
+        execute(new OpenCommand(view, filePath));
+    }
+    
+    /**
+     * Create a new import text command and execute it. 
+     * 
+     * @param view The view to show the document.
+     * @param filePath The path of the text file.
+     * @param charsetName The charset of the text file.
+     */
+    public void newImportTextCommand(yView view, String filePath, String charsetName) {
+        execute(new ImportTextCommand(view, filePath, charsetName));
+    }
+    
+    /**
+     * Create a new export HTML command and execute it. 
+     * 
+     * @param doc The document object.
+     * @param filePath The path of the HTML file.
+     */
+    public void newExportHtmlCommand(Document doc, String filePath) {
+        execute(new ExportHtmlCommand(doc, filePath));
+    }
+    
+    /**
+     * Create a new export RTF command and execute it. 
+     * 
+     * @param doc The document object.
+     * @param filePath The path of the RTF file.
+     */
+    public void newExportRtfCommand(Document doc, String filePath) {
+        execute(new ExportRtfCommand(doc, filePath));
     }
     
     /**
@@ -237,10 +277,7 @@ public final class CommandManager {
      * @param filePath The path.
      */
     public void newChangeLanguageCommand(yFrame frame, yLanguage language) {
-        Command cmd = new ChangeLanguageCommand(frame, language);
-        if(cmd.execute() && cmd.canUndo()) {
-            addToCommandList(cmd);
-        }
+        execute(new ChangeLanguageCommand(frame, language));
     }
     
     /**
@@ -250,9 +287,6 @@ public final class CommandManager {
      * @param filePath The path.
      */
     public void newNewCommand(yView view) {
-        Command cmd = new NewCommand(view, this);
-        if(cmd.execute() && cmd.canUndo()) {
-            addToCommandList(cmd);
-        }
+        execute(new NewCommand(view, this));
     }
 }
@@ -0,0 +1,70 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.command;
+
+import java.io.IOException;
+
+import y.module.Document;
+import y.module.HtmlExporter;
+import y.module.Metrics;
+
+/**
+ * User export the current document as HTML. 
+ * 
+ * @author y&y
+ */
+public class ExportHtmlCommand implements Command {
+
+	private static final Metrics.Histogram BYTES = Metrics.histogram("ExportHtmlCommand.bytes");
+	private static final Metrics.Histogram EXPORT = Metrics.histogram("ExportHtmlCommand.export.ns");
+	// the throughput in KB/s, MB/s would round most documents to 0:
+	private static final Metrics.Histogram THROUGHPUT = Metrics.histogram("ExportHtmlCommand.KBps");
+	private static final Metrics.Counter FAILED = Metrics.counter("ExportHtmlCommand.failed");
+
+	private Document doc;
+	private String filePath;
+	
+	/**
+	 * @param doc the document to be exported
+	 * @param filePath the path of the HTML file
+	 */
+	public ExportHtmlCommand(Document doc, String filePath) {
+		this.doc = doc;
+		this.filePath = filePath;
+	}
+	
+	@Override
+	public boolean canUndo() {
+		return false;
+	}
+
+	@Override
+	public boolean execute() {
+        if(filePath != null) {
+        	try {
+        		long t = System.nanoTime();
+        		long bytes = HtmlExporter.export(doc, filePath);
+        		long elapsed = System.nanoTime() - t;
+        		EXPORT.record(elapsed);
+        		BYTES.record(bytes);
+        		if(elapsed>0)
+        			THROUGHPUT.record(bytes * 1000000000L / 1024 / elapsed);
+				return true;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+        }
+		FAILED.increment();
+		return false;
+	}
+
+	@Override
+	public void unexecute() {
+		if(!canUndo()) {
+			return;
+		}
+	}
+
+}
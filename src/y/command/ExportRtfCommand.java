@@ -0,0 +1,61 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.command;
+
+import java.io.IOException;
+
+import y.module.Document;
+import y.module.RtfExporter;
+import y.module.Metrics;
+
+/**
+ * User export the current document as RTF. 
+ * 
+ * @author y&y
+ */
+public class ExportRtfCommand implements Command {
+
+	private static final Metrics.Histogram BYTES = Metrics.histogram("ExportRtfCommand.bytes");
+	private static final Metrics.Counter FAILED = Metrics.counter("ExportRtfCommand.failed");
+
+	private Document doc;
+	private String filePath;
+	
+	/**
+	 * @param doc the document to be exported
+	 * @param filePath the path of the RTF file
+	 */
+	public ExportRtfCommand(Document doc, String filePath) {
+		this.doc = doc;
+		this.filePath = filePath;
+	}
+	
+	@Override
+	public boolean canUndo() {
+		return false;
+	}
+
+	@Override
+	public boolean execute() {
+        if(filePath != null) {
+        	try {
+        		BYTES.record(RtfExporter.export(doc, filePath));
+				return true;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+        }
+		FAILED.increment();
+		return false;
+	}
+
+	@Override
+	public void unexecute() {
+		if(!canUndo()) {
+			return;
+		}
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+
+package y.command;
+
+import java.io.IOException;
+
+import y.module.Caret;
+import y.module.Document;
+import y.module.Position;
+import y.module.TextImporter;
+import y.view.yView;
+
+/**
+ * User import a plain text file as a new document. 
+ * 
+ * @author y&y
+ */
+public class ImportTextCommand implements Command {
+
+	private String filePath;
+	private String charsetName;
+	private yView view;
+	
+	public ImportTextCommand(yView view, String filePath, String charsetName) {
+		this.view = view;
+		this.filePath = filePath;
+		this.charsetName = charsetName;
+	}
+	
+	@Override
+	public boolean canUndo() {
+		return false;
+	}
+
+	@Override
+	public boolean execute() {
+    	if(!(filePath == null || filePath == "")) {
+			try {
+				Document document = TextImporter.importText(view, filePath, charsetName);
+				Caret caret = document.getCaret();
+				view.setDocument(document);
+				caret.moveTo(new Position(0, 0, 0));
+				document.updateCaret();
+				document.updateView();
+				return true;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+    	}
+		return false;
+	}
+
+	@Override
+	public void unexecute() {
+		if(!canUndo()) {
+			return;
+		}
+	}
+
+}
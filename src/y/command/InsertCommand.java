@@ -64,8 +64,8 @@ public class InsertCommand implements Command {
         caret.moveTo(new Position(document, caretAbsPos));
         caret.moveRight();
 
-        System.out.println("Move next:");
         Position p = caret.getPosition();
+        Trace.event("InsertCommand.moveRight", p.getRowIndex(), p.getColumnIndex());
         if(p.getColumnIndex()== 0) // if just move to the next row:
             this.document.getCaret().moveRight();
         // notify view:
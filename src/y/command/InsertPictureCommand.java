@@ -4,6 +4,7 @@
  */
 package y.command;
 
+import y.format.PageFormat;
 import y.module.*;
 
 /**
@@ -24,6 +25,16 @@ public class InsertPictureCommand implements Command {
     private Paragraph p;
     // store the inserted index of paragraph
     private int insertIndex;
+    // store the inserted picture:
+    private Picture pic;
+
+    // repaint when the picture is decoded in background:
+    private final Runnable repaint = new Runnable() {
+        public void run() {
+            if(document.getView()!=null)
+                document.updateView();
+        }
+    };
 
     protected InsertPictureCommand(Document document, String filename) {
         this.document = document;
@@ -35,15 +46,18 @@ public class InsertPictureCommand implements Command {
      * @see jexi.core.command.Command#execute()
      */
     public boolean execute() {
-        Picture pic = null;
         try {
-            pic = PictureFactory.instance().createPicture(filename);
+            // a large photo is fitted into the page:
+            PageFormat pf = document.getPageFormat();
+            pic = PictureFactory.instance().createPicture(filename, pf.scaleWidth(), pf.scaleHeight());
         }
         catch(java.io.IOException e) {
             // TODO: MessageBox...
             System.out.println("Load picture failed, filename=" + filename);
             return false;
         }
+        // only the size is known now, the pixels are decoded in background:
+        pic.decodeLater(repaint);
 
         // check if the selection should be removed:
         if(document.getSelection().isSelected())
@@ -67,6 +81,7 @@ public class InsertPictureCommand implements Command {
      * @see jexi.core.command.Command#unexecute()
      */
     public void unexecute() {
+        pic.cancelDecode(repaint);
     	p.removeGlyphs(insertIndex, insertIndex + 1);
     	this.document.compose();
     	this.document.getCaret().moveLeft();
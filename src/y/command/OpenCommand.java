@@ -5,6 +5,7 @@
 
 package y.command;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -16,6 +17,7 @@ import org.eclipse.swt.widgets.Shell;
 
 import y.module.Caret;
 import y.module.Document;
+import y.module.Metrics;
 import y.module.PersistentDocument;
 import y.module.Position;
 import y.view.yFrame;
@@ -29,6 +31,9 @@ import y.view.yView;
  */
 public class OpenCommand implements Command {
 
+	private static final Metrics.Histogram BYTES = Metrics.histogram("OpenCommand.bytes");
+	private static final Metrics.Counter FAILED = Metrics.counter("OpenCommand.failed");
+
 	private String filePath;
 	private yView view;
 	
@@ -56,6 +61,7 @@ public class OpenCommand implements Command {
 				caret.moveTo(new Position(0, 0, 0));
 				document.updateCaret();
 				document.updateView();
+				BYTES.record(new File(filePath).length());
 				return true;
 			} catch (FileNotFoundException e) {
 				// TODO Auto-generated catch block
@@ -67,6 +73,7 @@ public class OpenCommand implements Command {
 				// TODO Auto-generated catch block
 				e.printStackTrace();
 			}
+			FAILED.increment();
     	}
 		return false;
 	}
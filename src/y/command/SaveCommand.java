@@ -4,6 +4,7 @@
  */
 package y.command;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -14,6 +15,7 @@ import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.Shell;
 
 import y.module.Document;
+import y.module.Metrics;
 import y.module.PersistentDocument;
 import y.view.yFrame;
 
@@ -24,6 +26,9 @@ import y.view.yFrame;
  */
 public class SaveCommand implements Command {
 
+	private static final Metrics.Histogram BYTES = Metrics.histogram("SaveCommand.bytes");
+	private static final Metrics.Counter FAILED = Metrics.counter("SaveCommand.failed");
+
 	private Document doc;
 	
 	/**
@@ -49,6 +54,7 @@ public class SaveCommand implements Command {
     			ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filePath));
     			out.writeObject(doc);
     			out.close();
+    			BYTES.record(new File(filePath).length());
     			return true;
 			}
 		} catch (FileNotFoundException e) {
@@ -58,6 +64,7 @@ public class SaveCommand implements Command {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
+		FAILED.increment();
 		return false;
 	}
 
@@ -39,8 +39,7 @@ public class SplitCommand implements Command {
         p = caret.getPargraph();
         p2 = p.split(caret.getInsertIndex());
         document.addParagraph(document.getParagraphIndex(p)+1, p2);
-        p.debug();
-        p2.debug();
+        Trace.event("SplitCommand.split", p.getGlyphsCount(), p2.getGlyphsCount());
 
         // then compose:
         this.document.compose();
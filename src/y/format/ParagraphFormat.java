@@ -46,6 +46,20 @@ public class ParagraphFormat implements Serializable{
         this.width = doc.getPageFormat().scaleWidth();
     }
 
+    /**
+     * Create a copy of the paragraph format. 
+     * 
+     * @param pf The paragraph format to copy.
+     */
+    public ParagraphFormat(ParagraphFormat pf) {
+        this.alignment = pf.alignment;
+        this.width = pf.width;
+        this.firstIndent = pf.firstIndent;
+        this.leftIndent = pf.leftIndent;
+        this.rightIndent = pf.rightIndent;
+        this.rowSpace = pf.rowSpace;
+    }
+
     /**
      * Calculate the available width of the paragraph to layout. 
      * 
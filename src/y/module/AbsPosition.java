@@ -28,11 +28,22 @@ public class AbsPosition {
         // get the paragraph index:
         paragraphIndex = document.indexOfParagraph(row.getParagraph());
         insertIndex = row.getStartIndex() + position.getColumnIndex();
-        System.out.println("AbsPosition: para=" + this.paragraphIndex + ", insert=" + this.insertIndex);
+        Trace.event("AbsPosition", this.paragraphIndex, this.insertIndex);
     }
 
     /**
-     * Get the paragraph index. 
+     * Create the AbsPosition directly.
+     *
+     * @param paragraphIndex The paragraph index.
+     * @param insertIndex The insert index in the paragraph.
+     */
+    public AbsPosition(int paragraphIndex, int insertIndex) {
+        this.paragraphIndex = paragraphIndex;
+        this.insertIndex = insertIndex;
+    }
+
+    /**
+     * Get the paragraph index.
      * 
      * @return The paragraph index.
      */
@@ -183,6 +183,7 @@ public final class Caret implements Serializable{
      * @return The point of the caret.
      */
     public Point getLocation() {
+        long t = Trace.begin();
         ensureIndexAvailable();
 
         Page page = document.getPage(pageIndex);
@@ -201,7 +202,7 @@ public final class Caret implements Serializable{
         if(row.isFirst())
             x += row.getParagraph().getParagraphFormat().getFirstIndent();
 
-        yGraphics g = Application.instance().getFrame().getDefaultGraphics();
+        yMeasurer m = Application.instance().getMeasurer();
         for(int i=row.getStartIndex(); i<insertIndex; i++) {
             Glyph glyph = row.child(i);
             if(glyph instanceof Char) {
@@ -214,8 +215,8 @@ public final class Caret implements Serializable{
                     }
                 }
 
-                g.setFont(paragraph.getStringFormat(i).getFont());
-                x += g.getCharWidth(((Char)glyph).charValue());
+                x += m.getCharWidth(paragraph.getStringFormat(i).getFont(),
+                    ((Char)glyph).charValue());
             }
             else {
                 glyph_height = glyph.height();
@@ -224,7 +225,6 @@ public final class Caret implements Serializable{
             }
         }
 
-        System.out.println("glyph_height="+glyph_height);
         // calculate y.module:
         int y = pageIndex * (pf.getHeight() + Page.PAGE_SPACE)
             + pf.getTopMargin() + Page.PAGE_SPACE / 2;
@@ -248,6 +248,7 @@ public final class Caret implements Serializable{
             }
         }
         y -= ( glyph_height + row.getParagraph().getRowSpace() / 2 );
+        Trace.end("Caret.getLocation", t, insertIndex, glyph_height);
         return new Point(x, y);
     }
 
@@ -260,6 +261,7 @@ public final class Caret implements Serializable{
      * @param y.module The point y.module.
      */
     public void setLocation(int x, int y) {
+        long t = Trace.begin();
         //System.out.println("setLocation(x=" + x + " y.module=" + y.module);
         // first find out which page the user clicked:
         Page page = null;
@@ -267,7 +269,6 @@ public final class Caret implements Serializable{
         while(page_it.hasNext()) {
             page = (Page)page_it.next();
             if(page.isEditRegion(x, y)) {
-                System.out.println("click on page: "+document.indexOfPage(page));
                 this.pageIndex = document.indexOfPage(page);
                 break;
             }
@@ -313,12 +314,12 @@ public final class Caret implements Serializable{
         else {
             int acc_width = 0;
             int last_width = 0;
-            yGraphics g = Application.instance().getFrame().getDefaultGraphics();
+            yMeasurer m = Application.instance().getMeasurer();
             for(int i=row.getStartIndex(); i<=row.getEndIndex(); i++) {
                 Glyph glyph = (Glyph)para.child(i);
                 if(glyph instanceof Char) {
-                    g.setFont(para.getStringFormat(i).getFont());
-                    last_width = g.getCharWidth(((Char)glyph).charValue());
+                    last_width = m.getCharWidth(para.getStringFormat(i).getFont(),
+                        ((Char)glyph).charValue());
                 }
                 else
                     last_width = para.child(i).width();
@@ -339,7 +340,7 @@ public final class Caret implements Serializable{
         //System.out.println("glyph index=" + glyph_index);
         this.columnIndex = glyph_index - row.getStartIndex();
 
-        debug();
+        Trace.end("Caret.setLocation", t, this.pageIndex, this.rowIndex);
         // ok, set new caret:
         document.updateCaret();
     }
@@ -32,8 +32,9 @@ public class Char implements Glyph,Serializable {
 	private static final String UNSUPPORTED_OPERATION = 
 		"width(), height() operations are not supported by Char.";
 
-	// store the "char" and make it immutable:
-    private char c;
+	// store the "char" and make it immutable. It is final, so a Char 
+	// shared by CharFactory is seen with its value by every thread:
+    private final char c;
 
     // decide whether to draw "Return":
     public static boolean showReturn = true;
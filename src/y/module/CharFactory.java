@@ -4,8 +4,6 @@
  */
 package y.module;
 
-import java.util.*;
-
 /**
  * CharFactory is responsible for create Char object. 
  * <b>NOTE</b> it is a singleton pattern.
@@ -17,15 +15,17 @@ public class CharFactory {
 	// Singleton pattern:
 	private static CharFactory instance = new CharFactory();
 
-	// To store & cache all Char objects, may up to 65536 objects:
-	private Hashtable char_map = new Hashtable();
+	// To store & cache all Char objects, may up to 65536 objects. 
+	// Indexed by the char value, so a lookup does not box the char 
+	// and does not lock (the importers call it for every char): 
+	private Char[] char_map = new Char[65536];
 
 	// To make sure it cannot be initialized by client directly:
 	private CharFactory() {
-		// put the static Char object to hash table:
-		char_map.put(new Integer(Char.RETURN.charValue()), Char.RETURN);
-		char_map.put(new Integer(Char.TABLE.charValue()), Char.TABLE);
-		char_map.put(new Integer(Char.SPACE.charValue()), Char.SPACE);
+		// put the static Char object to the table:
+		char_map[Char.RETURN.charValue()] = Char.RETURN;
+		char_map[Char.TABLE.charValue()] = Char.TABLE;
+		char_map[Char.SPACE.charValue()] = Char.SPACE;
 	}
 
 	/**
@@ -45,11 +45,14 @@ public class CharFactory {
 	 * @return A Char object.
 	 */
 	public Char createChar(char c) {
-		Char ch = (Char) char_map.get(new Integer(c));
+		Char ch = char_map[c];
 		if( ch!=null )
 			return ch;
+		// a race may create the same Char twice, which is harmless: 
+		// Char.equals() compares the values, and Char.c is final so 
+		// another thread never sees a Char without its value: 
 		ch = new Char(c);
-		char_map.put(new Integer(c), ch); // <key, value>
+		char_map[c] = ch;
 		return ch;
 	}
 }
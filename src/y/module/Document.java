@@ -50,6 +50,9 @@ public class Document implements Composition, Externalizable{
     
     // the file path of the document;
     private String filePath = null;
+
+    // store the listeners, they are not saved with the document:
+    private transient List listeners = new ArrayList(1);
     
     public Document() {
     	this.compositor.setComposition(this);
@@ -73,7 +76,6 @@ public class Document implements Composition, Externalizable{
         //p.format(8, 8, f, Color.BLUE);
         //p.debug();
         doc.addParagraph(p);
-        p.debug();
 
         doc.compositor.setComposition(doc);
         doc.compose();
@@ -90,19 +92,18 @@ public class Document implements Composition, Externalizable{
     }
 
     /**
-     * Create a document from an existing file. 
+     * Create a document from an existing plain text file (UTF-8). 
      * 
      * @param filename The full path of the file.
      * @return The Document object.
      * @throws IOException If there is any IO error.
      * @throws FileNotFoundException If the file is not existing.
+     * @see y.module.TextImporter
      */
     public static Document createDocument(yView yView, String filename)
         throws IOException, FileNotFoundException
     {
-        Document doc = createEmptyDocument(yView);
-        // TODO...
-        return null;
+        return TextImporter.importText(yView, filename);
     }
 
     /**
@@ -381,6 +382,8 @@ public class Document implements Composition, Externalizable{
         Assert.checkTrue(index>=0 && index<=this.paragraphs.size());
 
         this.paragraphs.add(index, p);
+        for(int i=0; i<listeners.size(); i++)
+            ((DocumentListener)listeners.get(i)).paragraphAdded(p);
     }
 
     /**
@@ -389,7 +392,9 @@ public class Document implements Composition, Externalizable{
      * @param index The index of the paragraph.
      */
     public void removeParagraph(int index) {
-        this.paragraphs.remove(index);
+        Paragraph p = (Paragraph)this.paragraphs.remove(index);
+        for(int i=0; i<listeners.size(); i++)
+            ((DocumentListener)listeners.get(i)).paragraphRemoved(p);
     }
 
     /**
@@ -398,7 +403,41 @@ public class Document implements Composition, Externalizable{
      * @param p The paragraph object.
      */
     public void removeParagraph(Paragraph p) {
-        this.paragraphs.remove(p);
+        if(!this.paragraphs.remove(p))
+            return;
+        for(int i=0; i<listeners.size(); i++)
+            ((DocumentListener)listeners.get(i)).paragraphRemoved(p);
+    }
+
+    /**
+     * Add a listener to be notified when paragraphs change. 
+     * 
+     * @param listener The listener.
+     */
+    public void addDocumentListener(DocumentListener listener) {
+        Assert.checkNull(listener);
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Remove the listener. 
+     * 
+     * @param listener The listener.
+     */
+    public void removeDocumentListener(DocumentListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    // called by Paragraph when it is modified:
+    void fireParagraphChanged(Paragraph p) {
+        for(int i=0; i<listeners.size(); i++)
+            ((DocumentListener)listeners.get(i)).paragraphChanged(p);
+    }
+
+    // called by Paragraph when one glyph is inserted or removed:
+    void fireParagraphChanged(Paragraph p, int index, Glyph g, boolean inserted) {
+        for(int i=0; i<listeners.size(); i++)
+            ((DocumentListener)listeners.get(i)).paragraphChanged(p, index, g, inserted);
     }
 
     /**
@@ -460,6 +499,20 @@ public class Document implements Composition, Externalizable{
         return this.selection;
     }
     
+    /**
+     * Take a read-only snapshot of the document that can be read by 
+     * background threads while editing continues. Must be called on 
+     * the UI thread. See DocumentSnapshot for the cost. 
+     * 
+     * @return The document snapshot.
+     */
+    public DocumentSnapshot snapshot() {
+        ParagraphSnapshot[] ps = new ParagraphSnapshot[this.paragraphs.size()];
+        for(int i=0; i<ps.length; i++)
+            ps[i] = ((Paragraph)this.paragraphs.get(i)).snapshot();
+        return new DocumentSnapshot(ps, this.pageFormat, this.pages.size());
+    }
+
     public PersistentDocument createPersistentDocuemnt() {
     	return new PersistentDocument(this.paragraphs, this.pages, this.compositor, this.pageFormat, this.isSaved, this.filePath); 
     }
@@ -17,12 +17,15 @@ import java.io.Serializable;
  */
 public final class DocumentCompositor implements Compositor, Serializable {
 
+    private static final Metrics.Histogram COMPOSE = Metrics.histogram("DocumentCompositor.compose.ns");
+
     private transient Document document = null;
 
     /* (non-Javadoc)
      * @see jexi.core.Compositor#compose()
      */
     public void compose() {
+        long t = System.nanoTime();
         int org_pages = document.getPageCount();
 
         // first clear all pages:
@@ -52,7 +55,7 @@ public final class DocumentCompositor implements Compositor, Serializable {
                     // this page cannot contain row any more, 
                     // so we put it to the document:
                     document.addPage(page);
-                    page.debug();
+                    Trace.event("DocumentCompositor.page", document.getPageCount(), page.getRowsCount());
                     // and create a new page to accepte the row:
                     page = new Page(document);
                     page.addRow(row);
@@ -64,7 +67,11 @@ public final class DocumentCompositor implements Compositor, Serializable {
         else
             if(document.lastPage()!=page) document.addPage(page);
 
-        if(document.getPageCount()!=org_pages) {
+        COMPOSE.recordSince(t);
+        Trace.end("DocumentCompositor.compose", t, document.getParagraphCount(), document.getPageCount());
+
+        // no view when paginated by a batch job:
+        if(document.getPageCount()!=org_pages && document.getView()!=null) {
             document.getView().onDocumentSizeChanged();
             document.updateCaret();
         }
@@ -0,0 +1,59 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.module;
+
+/**
+ * DocumentListener is notified when the paragraphs of a document
+ * change, so that indexes and statistics can be updated without
+ * scanning the whole document. <br>
+ * <b>NOTE</b>: The events are fired on the thread that edits the
+ * document, keep the handlers cheap (usually just mark the paragraph
+ * as dirty and do the real work later).
+ *
+ * @see y.module.Document#addDocumentListener(DocumentListener)
+ *
+ * @author y&y
+ */
+public interface DocumentListener {
+
+    /**
+     * A paragraph was inserted into the document.
+     *
+     * @param p The new paragraph.
+     */
+    void paragraphAdded(Paragraph p);
+
+    /**
+     * A paragraph was removed from the document.
+     *
+     * @param p The removed paragraph.
+     */
+    void paragraphRemoved(Paragraph p);
+
+    /**
+     * The glyphs or the string formats of a paragraph were modified.
+     * <b>NOTE</b>: It may also be fired for a paragraph that is not
+     * (or not yet) in the document, for example while splitting.
+     *
+     * @param p The modified paragraph.
+     */
+    void paragraphChanged(Paragraph p);
+
+    /**
+     * One glyph was inserted into or removed from a paragraph, this is
+     * fired instead of paragraphChanged(Paragraph) so that the handler
+     * can apply the change without reading the whole paragraph. The
+     * paragraph already contains the change when it is fired. <br>
+     * <b>NOTE</b>: It may also be fired for a paragraph that is not
+     * (or not yet) in the document, for example while splitting.
+     *
+     * @param p The modified paragraph.
+     * @param index The index of the inserted glyph, or the index where
+     *        the removed glyph was.
+     * @param g The inserted or removed glyph.
+     * @param inserted True if the glyph was inserted, false if removed.
+     */
+    void paragraphChanged(Paragraph p, int index, Glyph g, boolean inserted);
+}
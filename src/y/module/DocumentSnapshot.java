@@ -0,0 +1,77 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.module;
+
+import y.format.PageFormat;
+
+/**
+ * DocumentSnapshot is a read-only view of the whole document taken
+ * at one moment. Autosave, export, search indexing and statistics
+ * can run on it in a background thread while the user keeps typing. <br>
+ *
+ * <b>Cost</b>: Each edit only drops the cached snapshot of the modified
+ * paragraph, which is O(1). Taking a snapshot is O(paragraphs) to
+ * collect the cached paragraph snapshots, plus O(glyphs + runs) for
+ * each paragraph that was modified since the last snapshot. Unchanged
+ * paragraphs are shared between snapshots and never copied again. <br>
+ *
+ * <b>NOTE</b>: Document.snapshot() must be called on the UI thread
+ * (the thread that edits the document). The snapshot it returns can
+ * then be handed to any thread.
+ *
+ * @see y.module.Document#snapshot()
+ *
+ * @author y&y
+ */
+public final class DocumentSnapshot {
+
+    private final ParagraphSnapshot[] paragraphs;
+    private final PageFormat pageFormat;
+    private final int pageCount;
+
+    // package-private, created by Document.snapshot():
+    DocumentSnapshot(ParagraphSnapshot[] paragraphs, PageFormat pageFormat, int pageCount) {
+        this.paragraphs = paragraphs;
+        this.pageFormat = pageFormat;
+        this.pageCount = pageCount;
+    }
+
+    /**
+     * Get the count of the paragraphs.
+     *
+     * @return How many paragraphs.
+     */
+    public int getParagraphCount() {
+        return this.paragraphs.length;
+    }
+
+    /**
+     * Get the specified paragraph.
+     *
+     * @param index The index of the paragraph.
+     * @return The paragraph snapshot.
+     */
+    public ParagraphSnapshot getParagraph(int index) {
+        return this.paragraphs[index];
+    }
+
+    /**
+     * Get the page format.
+     *
+     * @return The page format.
+     */
+    public PageFormat getPageFormat() {
+        return this.pageFormat;
+    }
+
+    /**
+     * Get the count of the pages when the snapshot was taken.
+     *
+     * @return How many pages.
+     */
+    public int getPageCount() {
+        return this.pageCount;
+    }
+}
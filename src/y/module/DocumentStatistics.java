@@ -0,0 +1,255 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.module;
+
+import java.util.*;
+
+/**
+ * DocumentStatistics keeps the word, character, paragraph and page
+ * counts of a document for the status bar. <br>
+ * The counts are kept per paragraph. A glyph inserted or removed is
+ * applied at once from the change in the event, looking only at the
+ * glyphs beside it, so a keystroke costs O(1). Other changes (split,
+ * combine, import) only mark the paragraph, and a query recounts those
+ * paragraphs and adjusts the totals by the difference. The totals
+ * themselves are read in O(1). The page count comes from the last
+ * pagination (DocumentCompositor). yFrame shows them in its status
+ * bar. <br>
+ *
+ * Words are runs of non-space chars, except that every CJK ideograph
+ * or kana counts as a word of its own. Characters are Char glyphs, not counting
+ * the end flag '\r' of each paragraph. <br>
+ *
+ * <b>NOTE</b>: Must be used on the UI thread, call dispose() when the
+ * document is closed.
+ *
+ * @author y&y
+ */
+public final class DocumentStatistics implements DocumentListener {
+
+    // index of the counts in the int[] of each paragraph:
+    private static final int CHARS = 0;
+    private static final int CHARS_NO_SPACE = 1;
+    private static final int WORDS = 2;
+
+    private final Document document;
+
+    // Paragraph -> its counts:
+    private final Map<Paragraph, int[]> counts = new HashMap<Paragraph, int[]>();
+
+    // paragraphs modified since the last query:
+    private final Set<Paragraph> dirty = new HashSet<Paragraph>();
+
+    // the totals:
+    private int chars = 0;
+    private int charsNoSpace = 0;
+    private int words = 0;
+
+    /**
+     * Create the statistics of the document.
+     *
+     * @param document The document.
+     */
+    public DocumentStatistics(Document document) {
+        Assert.checkNull(document);
+        this.document = document;
+        for(int i=0; i<document.getParagraphCount(); i++)
+            paragraphAdded(document.getParagraph(i));
+        document.addDocumentListener(this);
+    }
+
+    /**
+     * Stop tracking the document.
+     */
+    public void dispose() {
+        this.document.removeDocumentListener(this);
+        this.counts.clear();
+        this.dirty.clear();
+    }
+
+    /* (non-Javadoc)
+     * @see y.module.DocumentListener#paragraphAdded(y.module.Paragraph)
+     */
+    public void paragraphAdded(Paragraph p) {
+        if(!this.counts.containsKey(p))
+            this.counts.put(p, new int[3]);
+        this.dirty.add(p);
+    }
+
+    /* (non-Javadoc)
+     * @see y.module.DocumentListener#paragraphRemoved(y.module.Paragraph)
+     */
+    public void paragraphRemoved(Paragraph p) {
+        int[] c = this.counts.remove(p);
+        if(c!=null) {
+            this.chars -= c[CHARS];
+            this.charsNoSpace -= c[CHARS_NO_SPACE];
+            this.words -= c[WORDS];
+        }
+        this.dirty.remove(p);
+    }
+
+    /* (non-Javadoc)
+     * @see y.module.DocumentListener#paragraphChanged(y.module.Paragraph)
+     */
+    public void paragraphChanged(Paragraph p) {
+        // ignore paragraphs that are not in the document (yet):
+        if(this.counts.containsKey(p))
+            this.dirty.add(p);
+    }
+
+    /* (non-Javadoc)
+     * @see y.module.DocumentListener#paragraphChanged(y.module.Paragraph, int, y.module.Glyph, boolean)
+     */
+    public void paragraphChanged(Paragraph p, int index, Glyph g, boolean inserted) {
+        int[] c = this.counts.get(p);
+        // not in the document, or it is recounted anyway:
+        if(c==null || this.dirty.contains(p))
+            return;
+        if(!(g instanceof Char))
+            return; // a picture never joins two words.
+        // the glyphs beside g, the '\r' is always after it:
+        Glyph prev = index>0 ? p.child(index-1) : null;
+        Glyph next = p.child(inserted ? index+1 : index);
+        int dChars = 1;
+        int dNoSpace = isWordChar(g) ? 1 : 0;
+        int dWords = startsWord(prev, g) + startsWord(g, next) - startsWord(prev, next);
+        if(!inserted) {
+            dChars = -dChars;
+            dNoSpace = -dNoSpace;
+            dWords = -dWords;
+        }
+        c[CHARS] += dChars;
+        c[CHARS_NO_SPACE] += dNoSpace;
+        c[WORDS] += dWords;
+        this.chars += dChars;
+        this.charsNoSpace += dNoSpace;
+        this.words += dWords;
+    }
+
+    /**
+     * Get the document.
+     *
+     * @return The document.
+     */
+    public Document getDocument() {
+        return this.document;
+    }
+
+    /**
+     * Get the count of the words.
+     *
+     * @return How many words.
+     */
+    public int getWordCount() {
+        update();
+        return this.words;
+    }
+
+    /**
+     * Get the count of the characters.
+     *
+     * @return How many characters.
+     */
+    public int getCharCount() {
+        update();
+        return this.chars;
+    }
+
+    /**
+     * Get the count of the characters that are not spaces.
+     *
+     * @return How many characters that are not spaces.
+     */
+    public int getCharCountNoSpace() {
+        update();
+        return this.charsNoSpace;
+    }
+
+    /**
+     * Get the count of the paragraphs.
+     *
+     * @return How many paragraphs.
+     */
+    public int getParagraphCount() {
+        return this.document.getParagraphCount();
+    }
+
+    /**
+     * Get the count of the pages of the last composition.
+     *
+     * @return How many pages.
+     */
+    public int getPageCount() {
+        return this.document.getPageCount();
+    }
+
+    // recount the dirty paragraphs and apply the difference:
+    private void update() {
+        if(this.dirty.isEmpty())
+            return;
+        Iterator<Paragraph> it = this.dirty.iterator();
+        while(it.hasNext()) {
+            Paragraph p = it.next();
+            int[] c = this.counts.get(p);
+            this.chars -= c[CHARS];
+            this.charsNoSpace -= c[CHARS_NO_SPACE];
+            this.words -= c[WORDS];
+            count(p, c);
+            this.chars += c[CHARS];
+            this.charsNoSpace += c[CHARS_NO_SPACE];
+            this.words += c[WORDS];
+        }
+        this.dirty.clear();
+    }
+
+    // count one paragraph of the document, without a snapshot:
+    private static void count(Paragraph p, int[] result) {
+        int nChars = 0;
+        int nNoSpace = 0;
+        int nWords = 0;
+        Glyph prev = null;
+        int n = p.getGlyphsCount() - 1; // skip the '\r'.
+        for(int i=0; i<n; i++) {
+            Glyph g = p.child(i);
+            if(g instanceof Char) {
+                nChars++;
+                if(isWordChar(g))
+                    nNoSpace++;
+                nWords += startsWord(prev, g);
+            }
+            prev = g;
+        }
+        result[CHARS] = nChars;
+        result[CHARS_NO_SPACE] = nNoSpace;
+        result[WORDS] = nWords;
+    }
+
+    // a Char that is not a space:
+    private static boolean isWordChar(Glyph g) {
+        return g instanceof Char && !Character.isWhitespace(((Char)g).charValue());
+    }
+
+    // 1 if g starts a word when prev (may be null) is before it, else 0.
+    // every ideograph is a word, other chars continue the word of prev:
+    private static int startsWord(Glyph prev, Glyph g) {
+        if(!isWordChar(g))
+            return 0;
+        if(isIdeograph(((Char)g).charValue()))
+            return 1;
+        if(isWordChar(prev) && !isIdeograph(((Char)prev).charValue()))
+            return 0;
+        return 1;
+    }
+
+    private static boolean isIdeograph(char c) {
+        Character.UnicodeBlock b = Character.UnicodeBlock.of(c);
+        return b==Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+            || b==Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
+            || b==Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS
+            || b==Character.UnicodeBlock.HIRAGANA
+            || b==Character.UnicodeBlock.KATAKANA;
+    }
+}
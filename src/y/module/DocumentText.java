@@ -0,0 +1,239 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.module;
+
+/**
+ * DocumentText is a CharSequence view of a range of paragraphs, so
+ * java.util.regex, tokenizers and exporters can read the document
+ * without copying it into a String. Each paragraph contributes all its
+ * glyphs including the end flag '\r', and a glyph that is not a Char
+ * is read as ParagraphSnapshot.OBJECT_CHAR. <br>
+ *
+ * A global offset is mapped to (paragraph, index) by a binary search
+ * on the start offsets of the paragraphs, which is O(log n). Only
+ * that offset table is built, the text itself is never copied. <br>
+ *
+ * <b>NOTE</b>: A view of the live Document is only valid until the
+ * next edit and must be used on the UI thread. A view of a
+ * DocumentSnapshot never changes and can be used by any thread.
+ *
+ * @author y&y
+ */
+public final class DocumentText implements CharSequence {
+
+    // exactly one of them is used:
+    private final Paragraph[] paragraphs;
+    private final ParagraphSnapshot[] snapshots;
+
+    // the document index of paragraphs[0]:
+    private final int firstParagraph;
+
+    // starts[i] is the offset of paragraph i, starts[n] is the total length:
+    private final int[] starts;
+
+    // this view is [base, base + length) of the whole range:
+    private final int base;
+    private final int length;
+
+    // the last paragraph found, most readers go forward:
+    private int last = 0;
+
+    /**
+     * Create a view of the whole live document.
+     *
+     * @param document The document.
+     */
+    public DocumentText(Document document) {
+        this(document, 0, document.getParagraphCount());
+    }
+
+    /**
+     * Create a view of the paragraphs [fromParagraph, toParagraph) of
+     * the live document.
+     *
+     * @param document The document.
+     * @param fromParagraph The first paragraph index.
+     * @param toParagraph The paragraph index after the last one.
+     */
+    public DocumentText(Document document, int fromParagraph, int toParagraph) {
+        Assert.checkTrue(0<=fromParagraph && fromParagraph<=toParagraph
+            && toParagraph<=document.getParagraphCount());
+        this.paragraphs = new Paragraph[toParagraph - fromParagraph];
+        this.snapshots = null;
+        this.firstParagraph = fromParagraph;
+        this.starts = new int[this.paragraphs.length + 1];
+        for(int i=0; i<this.paragraphs.length; i++) {
+            this.paragraphs[i] = document.getParagraph(fromParagraph + i);
+            this.starts[i+1] = this.starts[i] + this.paragraphs[i].getGlyphsCount();
+        }
+        this.base = 0;
+        this.length = this.starts[this.paragraphs.length];
+    }
+
+    /**
+     * Create a view of the whole snapshot.
+     *
+     * @param snapshot The document snapshot.
+     */
+    public DocumentText(DocumentSnapshot snapshot) {
+        this(snapshot, 0, snapshot.getParagraphCount());
+    }
+
+    /**
+     * Create a view of the paragraphs [fromParagraph, toParagraph) of
+     * the snapshot.
+     *
+     * @param snapshot The document snapshot.
+     * @param fromParagraph The first paragraph index.
+     * @param toParagraph The paragraph index after the last one.
+     */
+    public DocumentText(DocumentSnapshot snapshot, int fromParagraph, int toParagraph) {
+        Assert.checkTrue(0<=fromParagraph && fromParagraph<=toParagraph
+            && toParagraph<=snapshot.getParagraphCount());
+        this.paragraphs = null;
+        this.snapshots = new ParagraphSnapshot[toParagraph - fromParagraph];
+        this.firstParagraph = fromParagraph;
+        this.starts = new int[this.snapshots.length + 1];
+        for(int i=0; i<this.snapshots.length; i++) {
+            this.snapshots[i] = snapshot.getParagraph(fromParagraph + i);
+            this.starts[i+1] = this.starts[i] + this.snapshots[i].getGlyphsCount();
+        }
+        this.base = 0;
+        this.length = this.starts[this.snapshots.length];
+    }
+
+    // used by subSequence(), shares everything but the window:
+    private DocumentText(DocumentText text, int base, int length) {
+        this.paragraphs = text.paragraphs;
+        this.snapshots = text.snapshots;
+        this.firstParagraph = text.firstParagraph;
+        this.starts = text.starts;
+        this.base = base;
+        this.length = length;
+        this.last = text.last;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.CharSequence#length()
+     */
+    public int length() {
+        return this.length;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.CharSequence#charAt(int)
+     */
+    public char charAt(int index) {
+        if(index<0 || index>=this.length)
+            throw new IndexOutOfBoundsException("Index out of bound: " + index);
+        int offset = this.base + index;
+        int k = find(offset);
+        int i = offset - this.starts[k];
+        if(this.snapshots!=null)
+            return this.snapshots[k].charAt(i);
+        Glyph g = this.paragraphs[k].child(i);
+        if(g instanceof Char)
+            return ((Char)g).charValue();
+        return ParagraphSnapshot.OBJECT_CHAR;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.CharSequence#subSequence(int, int)
+     */
+    public CharSequence subSequence(int start, int end) {
+        if(start<0 || end>this.length || start>end)
+            throw new IndexOutOfBoundsException("start=" + start + ", end=" + end);
+        return new DocumentText(this, this.base + start, end - start);
+    }
+
+    /**
+     * Copy the text into a String. This is the only method that copies.
+     */
+    public String toString() {
+        StringBuffer sb = new StringBuffer(this.length);
+        for(int i=0; i<this.length; i++)
+            sb.append(charAt(i));
+        return sb.toString();
+    }
+
+    /**
+     * Get the document index of the paragraph that contains the offset.
+     *
+     * @param offset The offset in this CharSequence.
+     * @return The paragraph index in the document.
+     */
+    public int getParagraphIndex(int offset) {
+        return this.firstParagraph + find(this.base + offset);
+    }
+
+    /**
+     * Get the glyph index in its paragraph of the offset.
+     *
+     * @param offset The offset in this CharSequence.
+     * @return The glyph index in the paragraph.
+     */
+    public int getInsertIndex(int offset) {
+        int o = this.base + offset;
+        return o - this.starts[find(o)];
+    }
+
+    /**
+     * Map the offset to (paragraphIndex, insertIndex). The offset of
+     * length() is the end of the view, mapped to the last insert
+     * position before the '\r' of the last paragraph.
+     *
+     * @param offset The offset in this CharSequence, may equal length().
+     * @return The AbsPosition.
+     */
+    public AbsPosition toAbsPosition(int offset) {
+        int o = this.base + offset;
+        int k = find(o);
+        if(k==this.starts.length - 1) // no paragraph.
+            return new AbsPosition(this.firstParagraph, 0);
+        // never after the '\r' of the paragraph:
+        int last = this.starts[k+1] - this.starts[k] - 1;
+        return new AbsPosition(this.firstParagraph + k, Math.min(o - this.starts[k], last));
+    }
+
+    /**
+     * Map (paragraphIndex, insertIndex) to the offset.
+     *
+     * @param paragraphIndex The paragraph index in the document.
+     * @param insertIndex The glyph index in the paragraph.
+     * @return The offset in this CharSequence.
+     */
+    public int toOffset(int paragraphIndex, int insertIndex) {
+        int k = paragraphIndex - this.firstParagraph;
+        Assert.checkTrue(k>=0 && k<this.starts.length-1);
+        return this.starts[k] + insertIndex - this.base;
+    }
+
+    // find the paragraph k that starts[k] <= offset < starts[k+1]:
+    private int find(int offset) {
+        int n = this.starts.length - 1;
+        if(n==0)
+            return 0;
+        if(offset>=this.starts[n])
+            return n - 1; // the end of the text.
+        int k = this.last;
+        if(this.starts[k]<=offset && offset<this.starts[k+1])
+            return k;
+        if(k+1<n && this.starts[k+1]<=offset && offset<this.starts[k+2]) {
+            this.last = k + 1;
+            return k + 1;
+        }
+        int low = 0;
+        int high = n - 1;
+        while(low<high) {
+            int mid = (low + high + 1) >>> 1;
+            if(this.starts[mid]<=offset)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        this.last = low;
+        return low;
+    }
+}
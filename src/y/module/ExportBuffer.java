@@ -0,0 +1,77 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.module;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * ExportBuffer collects the output of HtmlExporter and RtfExporter in a
+ * char array and writes it to the Writer when it is full, faster than a
+ * write() for every char.
+ *
+ * @author y&y
+ */
+final class ExportBuffer {
+
+    private static final int SIZE = 8 * 1024;
+
+    private final Writer out;
+    private final char[] buffer = new char[SIZE];
+    private int count = 0;
+
+    /**
+     * @param out Receive the output.
+     */
+    ExportBuffer(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Put a char, not escaped.
+     *
+     * @param c The char.
+     * @throws IOException If there is any IO error.
+     */
+    void put(char c) throws IOException {
+        if(count==buffer.length)
+            drain();
+        buffer[count++] = c;
+    }
+
+    /**
+     * Put a string, not escaped.
+     *
+     * @param s The string.
+     * @throws IOException If there is any IO error.
+     */
+    void put(String s) throws IOException {
+        int n = s.length();
+        if(count + n>buffer.length) {
+            drain();
+            if(n>buffer.length) {
+                out.write(s);
+                return;
+            }
+        }
+        s.getChars(0, n, buffer, count);
+        count += n;
+    }
+
+    /**
+     * Write the buffered chars and flush the Writer, it is not closed.
+     *
+     * @throws IOException If there is any IO error.
+     */
+    void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer, 0, count);
+        count = 0;
+    }
+}
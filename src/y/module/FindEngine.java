@@ -0,0 +1,417 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.module;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * FindEngine searches text in a document. <br>
+ * It keeps an inverted trigram index: for each 3-char sequence
+ * (case folded), the set of paragraphs that contain it. The index is
+ * maintained incrementally through DocumentListener, and only the
+ * paragraphs modified since the last search are re-indexed, from the
+ * text of the paragraph, which is not kept. A search intersects the
+ * postings of the trigrams of the pattern and only verifies the
+ * candidate paragraphs, so its cost depends on the number of
+ * candidates rather than the size of the document. <br>
+ *
+ * Patterns shorter than 3 chars cannot be served by the index, they
+ * are searched by a brute-force scan on a DocumentSnapshot split
+ * across all processors. <br>
+ *
+ * <b>NOTE</b>: Matches never span paragraphs. FindEngine must be used
+ * on the UI thread, call dispose() when the document is closed.
+ *
+ * @author y&y
+ */
+public final class FindEngine implements DocumentListener {
+
+    // length of the indexed grams:
+    private static final int GRAM = 3;
+
+    // paragraphs per task of the brute-force scan:
+    private static final int CHUNK = 256;
+
+    // shared by all engines, daemon threads so it never blocks exit:
+    private static ExecutorService executor = null;
+
+    private final Document document;
+
+    // the paragraphs in the postings:
+    private final Set<Paragraph> indexed = new HashSet<Paragraph>();
+
+    // paragraphs removed from the document, still in the postings:
+    private final Set<Paragraph> removed = new HashSet<Paragraph>();
+
+    // trigram -> paragraphs that contain it:
+    private final Map<Long, Set<Paragraph>> postings = new HashMap<Long, Set<Paragraph>>();
+
+    // paragraphs modified since the last search:
+    private final Set<Paragraph> dirty = new HashSet<Paragraph>();
+
+    // Paragraph -> its index in the document, rebuilt after split or combine:
+    private final Map<Paragraph, Integer> order = new IdentityHashMap<Paragraph, Integer>();
+    private boolean orderDirty = true;
+
+    /**
+     * Create a find engine and index the document.
+     *
+     * @param document The document to search.
+     */
+    public FindEngine(Document document) {
+        Assert.checkNull(document);
+        this.document = document;
+        for(int i=0; i<document.getParagraphCount(); i++)
+            this.dirty.add(document.getParagraph(i));
+        document.addDocumentListener(this);
+    }
+
+    /**
+     * Stop tracking the document and release the index.
+     */
+    public void dispose() {
+        this.document.removeDocumentListener(this);
+        this.indexed.clear();
+        this.removed.clear();
+        this.postings.clear();
+        this.dirty.clear();
+        this.order.clear();
+    }
+
+    /* (non-Javadoc)
+     * @see y.module.DocumentListener#paragraphAdded(y.module.Paragraph)
+     */
+    public void paragraphAdded(Paragraph p) {
+        this.dirty.add(p);
+        this.orderDirty = true;
+    }
+
+    /* (non-Javadoc)
+     * @see y.module.DocumentListener#paragraphRemoved(y.module.Paragraph)
+     */
+    public void paragraphRemoved(Paragraph p) {
+        this.dirty.remove(p);
+        if(this.indexed.remove(p))
+            this.removed.add(p);
+        this.orderDirty = true;
+    }
+
+    /* (non-Javadoc)
+     * @see y.module.DocumentListener#paragraphChanged(y.module.Paragraph)
+     */
+    public void paragraphChanged(Paragraph p) {
+        // ignore paragraphs that are not in the document (yet):
+        if(this.indexed.contains(p))
+            this.dirty.add(p);
+    }
+
+    /* (non-Javadoc)
+     * @see y.module.DocumentListener#paragraphChanged(y.module.Paragraph, int, y.module.Glyph, boolean)
+     */
+    public void paragraphChanged(Paragraph p, int index, Glyph g, boolean inserted) {
+        // the grams around the glyph change, index the paragraph again:
+        paragraphChanged(p);
+    }
+
+    /**
+     * Check if the pattern can be served by the index.
+     *
+     * @param pattern The pattern.
+     * @return True if the index is used for this pattern.
+     */
+    public static boolean isIndexable(String pattern) {
+        return pattern.length()>=GRAM;
+    }
+
+    /**
+     * Find all matches in document order.
+     *
+     * @param pattern The text to find.
+     * @param matchCase If the case must match.
+     * @return List of Match, empty if not found.
+     */
+    public List<Match> findAll(String pattern, boolean matchCase) {
+        if(pattern.length()==0)
+            return new ArrayList<Match>(0);
+        if(!isIndexable(pattern))
+            return bruteForce(document.snapshot(), pattern, matchCase);
+
+        List<Match> result = new ArrayList<Match>();
+        List<Paragraph> candidates = candidates(pattern);
+        for(int i=0; i<candidates.size(); i++) {
+            Paragraph p = candidates.get(i);
+            int pIndex = order.get(p).intValue();
+            search(p, text(p), pIndex, pattern, matchCase, 0, result);
+        }
+        return result;
+    }
+
+    /**
+     * Find the next match at or after (paragraphIndex, index). If there
+     * is no match till the end of the document, the search wraps to
+     * the beginning.
+     *
+     * @param pattern The text to find.
+     * @param matchCase If the case must match.
+     * @param paragraphIndex The paragraph to start from.
+     * @param index The glyph index to start from.
+     * @return The next Match, or null if not found at all.
+     */
+    public Match findNext(String pattern, boolean matchCase, int paragraphIndex, int index) {
+        if(pattern.length()==0)
+            return null;
+        if(!isIndexable(pattern)) {
+            List<Match> all = bruteForce(document.snapshot(), pattern, matchCase);
+            for(int i=0; i<all.size(); i++) {
+                Match m = all.get(i);
+                if(m.getParagraphIndex()>paragraphIndex
+                    || (m.getParagraphIndex()==paragraphIndex && m.getIndex()>=index))
+                    return m;
+            }
+            return all.isEmpty() ? null : all.get(0);
+        }
+
+        List<Paragraph> candidates = candidates(pattern);
+        List<Match> found = new ArrayList<Match>(1);
+        // from the start point to the end:
+        for(int i=0; i<candidates.size(); i++) {
+            Paragraph p = candidates.get(i);
+            int pIndex = order.get(p).intValue();
+            if(pIndex<paragraphIndex)
+                continue;
+            int from = (pIndex==paragraphIndex) ? index : 0;
+            if(searchFirst(p, text(p), pIndex, pattern, matchCase, from, found))
+                return found.get(0);
+        }
+        // wrap to the beginning:
+        for(int i=0; i<candidates.size(); i++) {
+            Paragraph p = candidates.get(i);
+            int pIndex = order.get(p).intValue();
+            if(pIndex>paragraphIndex)
+                break;
+            if(searchFirst(p, text(p), pIndex, pattern, matchCase, 0, found))
+                return found.get(0);
+        }
+        return null;
+    }
+
+    /**
+     * Find all matches by scanning every paragraph of the snapshot. The
+     * paragraphs are split into chunks that are scanned in parallel.
+     * This can be called from any thread.
+     *
+     * @param snapshot The document snapshot.
+     * @param pattern The text to find.
+     * @param matchCase If the case must match.
+     * @return List of Match in document order.
+     */
+    public static List<Match> bruteForce(final DocumentSnapshot snapshot, final String pattern, final boolean matchCase) {
+        List<Match> result = new ArrayList<Match>();
+        if(pattern.length()==0)
+            return result;
+        int count = snapshot.getParagraphCount();
+        List<Future<List<Match>>> futures = new ArrayList<Future<List<Match>>>();
+        for(int start=0; start<count; start+=CHUNK) {
+            final int from = start;
+            final int to = Math.min(count, start + CHUNK);
+            futures.add(executor().submit(new Callable<List<Match>>() {
+                public List<Match> call() {
+                    List<Match> part = new ArrayList<Match>();
+                    for(int i=from; i<to; i++) {
+                        ParagraphSnapshot ps = snapshot.getParagraph(i);
+                        search(ps.getParagraph(), text(ps), i, pattern, matchCase, 0, part);
+                    }
+                    return part;
+                }
+            }));
+        }
+        try {
+            for(int i=0; i<futures.size(); i++)
+                result.addAll(futures.get(i).get());
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Find was interrupted.", e);
+        }
+        catch(ExecutionException e) {
+            throw new RuntimeException("Find failed.", e.getCause());
+        }
+        return result;
+    }
+
+    // get the paragraphs that contain all trigrams of the pattern, in document order:
+    private List<Paragraph> candidates(String pattern) {
+        update();
+        long[] grams = patternGrams(pattern);
+        // start from the smallest posting set:
+        Set<Paragraph> smallest = null;
+        for(int i=0; i<grams.length; i++) {
+            Set<Paragraph> s = postings.get(Long.valueOf(grams[i]));
+            if(s==null)
+                return new ArrayList<Paragraph>(0);
+            if(smallest==null || s.size()<smallest.size())
+                smallest = s;
+        }
+        List<Paragraph> result = new ArrayList<Paragraph>(smallest.size());
+        Iterator<Paragraph> it = smallest.iterator();
+        while(it.hasNext()) {
+            Paragraph p = it.next();
+            boolean all = true;
+            for(int i=0; i<grams.length && all; i++)
+                all = postings.get(Long.valueOf(grams[i])).contains(p);
+            if(all)
+                result.add(p);
+        }
+        Collections.sort(result, new Comparator<Paragraph>() {
+            public int compare(Paragraph p1, Paragraph p2) {
+                return order.get(p1).intValue() - order.get(p2).intValue();
+            }
+        });
+        return result;
+    }
+
+    // re-index all dirty paragraphs:
+    private void update() {
+        if(orderDirty) {
+            order.clear();
+            for(int i=0; i<document.getParagraphCount(); i++)
+                order.put(document.getParagraph(i), Integer.valueOf(i));
+            orderDirty = false;
+        }
+        if(dirty.isEmpty() && removed.isEmpty())
+            return;
+        // the old text is not kept, so remove the changed and the removed
+        // paragraphs from all postings, in one pass:
+        Set<Paragraph> stale = new HashSet<Paragraph>(removed);
+        Iterator<Paragraph> it = dirty.iterator();
+        while(it.hasNext()) {
+            Paragraph p = it.next();
+            if(indexed.contains(p))
+                stale.add(p);
+        }
+        if(!stale.isEmpty()) {
+            Iterator<Set<Paragraph>> sets = postings.values().iterator();
+            while(sets.hasNext()) {
+                Set<Paragraph> s = sets.next();
+                s.removeAll(stale);
+                if(s.isEmpty())
+                    sets.remove();
+            }
+        }
+        removed.clear();
+        it = dirty.iterator();
+        while(it.hasNext()) {
+            Paragraph p = it.next();
+            indexed.add(p);
+            long[] grams = grams(text(p));
+            for(int i=0; i<grams.length; i++) {
+                Long key = Long.valueOf(grams[i]);
+                Set<Paragraph> s = postings.get(key);
+                if(s==null) {
+                    s = new HashSet<Paragraph>(4);
+                    postings.put(key, s);
+                }
+                s.add(p);
+            }
+        }
+        dirty.clear();
+    }
+
+    // the text of the paragraph without the end flag '\r', a glyph that
+    // is not a Char is OBJECT_CHAR:
+    private static String text(Paragraph p) {
+        char[] text = new char[p.getGlyphsCount() - 1];
+        for(int i=0; i<text.length; i++) {
+            Glyph g = p.child(i);
+            text[i] = (g instanceof Char) ? ((Char)g).charValue() : ParagraphSnapshot.OBJECT_CHAR;
+        }
+        return new String(text);
+    }
+
+    private static String text(ParagraphSnapshot ps) {
+        char[] text = new char[ps.getGlyphsCount() - 1];
+        for(int i=0; i<text.length; i++)
+            text[i] = ps.charAt(i);
+        return new String(text);
+    }
+
+    // distinct trigrams of the text:
+    private static long[] grams(String text) {
+        Set<Long> set = new HashSet<Long>();
+        for(int i=0; i+GRAM<=text.length(); i++)
+            set.add(Long.valueOf(gram(
+                fold(text.charAt(i)), fold(text.charAt(i+1)), fold(text.charAt(i+2)))));
+        long[] result = new long[set.size()];
+        int k = 0;
+        Iterator<Long> it = set.iterator();
+        while(it.hasNext())
+            result[k++] = it.next().longValue();
+        return result;
+    }
+
+    // all trigrams of the pattern:
+    private static long[] patternGrams(String pattern) {
+        long[] result = new long[pattern.length() - GRAM + 1];
+        for(int i=0; i<result.length; i++)
+            result[i] = gram(fold(pattern.charAt(i)), fold(pattern.charAt(i+1)), fold(pattern.charAt(i+2)));
+        return result;
+    }
+
+    private static long gram(char c0, char c1, char c2) {
+        return ((long)c0<<32) | ((long)c1<<16) | c2;
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(c);
+    }
+
+    // append all matches in the paragraph text from the index:
+    private static void search(Paragraph p, String text, int pIndex, String pattern, boolean matchCase, int from, List<Match> result) {
+        int last = text.length() - pattern.length();
+        for(int i=from; i<=last; i++) {
+            if(matches(text, i, pattern, matchCase))
+                result.add(new Match(p, pIndex, i, pattern.length()));
+        }
+    }
+
+    // append the first match in the paragraph text from the index:
+    private static boolean searchFirst(Paragraph p, String text, int pIndex, String pattern, boolean matchCase, int from, List<Match> result) {
+        int last = text.length() - pattern.length();
+        for(int i=from; i<=last; i++) {
+            if(matches(text, i, pattern, matchCase)) {
+                result.add(new Match(p, pIndex, i, pattern.length()));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(String text, int at, String pattern, boolean matchCase) {
+        for(int j=0; j<pattern.length(); j++) {
+            char c = text.charAt(at + j);
+            char pc = pattern.charAt(j);
+            if(c!=pc && (matchCase || fold(c)!=fold(pc)))
+                return false;
+        }
+        return true;
+    }
+
+    private static synchronized ExecutorService executor() {
+        if(executor==null) {
+            executor = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "FindEngine");
+                        t.setDaemon(true);
+                        return t;
+                    }
+                }
+            );
+        }
+        return executor;
+    }
+}
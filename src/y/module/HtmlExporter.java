@@ -0,0 +1,277 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.module;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.*;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+
+import y.format.ParagraphFormat;
+import y.view.yColor;
+import y.view.yFont;
+import y.view.yPicture;
+
+/**
+ * HtmlExporter writes a document as HTML. <br>
+ * Each paragraph becomes a &lt;p&gt; and each string format run a
+ * &lt;span&gt;. One pre-pass over the runs (not the glyphs) collects
+ * the distinct styles, so every font/color pair is one CSS class and
+ * every paragraph format is one more. Then the body is written to the
+ * Writer paragraph by paragraph, the output is never built in memory. <br>
+ *
+ * Pictures are written as PNG sidecar files and referenced by
+ * &lt;img&gt;, a picture that appears twice is written once. <br>
+ *
+ * <b>NOTE</b>: It reads a DocumentSnapshot, not the document itself.
+ * ExportHtmlCommand runs it on the UI thread.
+ *
+ * @author y&y
+ */
+public final class HtmlExporter {
+
+    private final DocumentSnapshot snapshot;
+
+    // style key -> css class index, in the order of first use:
+    private final Map<String, Integer> spanStyles = new LinkedHashMap<String, Integer>();
+    private final Map<String, Integer> paragraphStyles = new LinkedHashMap<String, Integer>();
+
+    // the first run/paragraph of each style, used to write the css:
+    private final List<Object[]> spanSamples = new ArrayList<Object[]>();
+    private final List<ParagraphFormat> paragraphSamples = new ArrayList<ParagraphFormat>();
+
+    // picture -> the url of its sidecar file:
+    private final Map<Glyph, String> pictures = new IdentityHashMap<Glyph, String>();
+
+    private ExportBuffer buffer;
+    private File pictureDir;
+    private String pictureUrl;
+
+    /**
+     * Create an exporter of the snapshot.
+     *
+     * @param snapshot The document snapshot.
+     */
+    public HtmlExporter(DocumentSnapshot snapshot) {
+        Assert.checkNull(snapshot);
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Export the document to a UTF-8 HTML file. The pictures are
+     * written into the directory "&lt;name&gt;_files" beside it.
+     *
+     * @param document The document.
+     * @param filename The full path of the HTML file.
+     * @return How many bytes are written (pictures not included).
+     * @throws IOException If there is any IO error.
+     */
+    public static long export(Document document, String filename) throws IOException {
+        File file = new File(filename);
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        if(dot>0)
+            name = name.substring(0, dot);
+        File dir = new File(file.getParentFile(), name + "_files");
+
+        HtmlExporter exporter = new HtmlExporter(document.snapshot());
+        Writer writer = new BufferedWriter(
+            new OutputStreamWriter(new FileOutputStream(file), "UTF-8"), 64 * 1024);
+        try {
+            exporter.export(writer, name, dir, dir.getName() + "/");
+        }
+        finally {
+            writer.close();
+        }
+        return file.length();
+    }
+
+    /**
+     * Export the document. The Writer is flushed but not closed.
+     *
+     * @param out Receive the HTML.
+     * @param title The title of the page.
+     * @param pictureDir The directory for the pictures, created when needed.
+     * @param pictureUrl The url of pictureDir in the HTML, ends with '/'.
+     * @throws IOException If there is any IO error.
+     */
+    public void export(Writer out, String title, File pictureDir, String pictureUrl)
+        throws IOException
+    {
+        buffer = new ExportBuffer(out);
+        this.pictureDir = pictureDir;
+        this.pictureUrl = pictureUrl;
+        collectStyles();
+        writeHead(title);
+        int n = snapshot.getParagraphCount();
+        for(int i=0; i<n; i++)
+            writeParagraph(snapshot.getParagraph(i));
+        buffer.put("</body>\n</html>\n");
+        buffer.flush();
+    }
+
+    // the pre-pass, only looks at the runs:
+    private void collectStyles() {
+        int n = snapshot.getParagraphCount();
+        for(int i=0; i<n; i++) {
+            ParagraphSnapshot ps = snapshot.getParagraph(i);
+            ParagraphFormat pf = ps.getParagraphFormat();
+            String pkey = paragraphKey(pf);
+            if(!paragraphStyles.containsKey(pkey)) {
+                paragraphStyles.put(pkey, Integer.valueOf(paragraphSamples.size()));
+                paragraphSamples.add(pf);
+            }
+            for(int r=0; r<ps.getRunCount(); r++) {
+                String key = spanKey(ps.getRunFont(r), ps.getRunColor(r));
+                if(!spanStyles.containsKey(key)) {
+                    spanStyles.put(key, Integer.valueOf(spanSamples.size()));
+                    spanSamples.add(new Object[] { ps.getRunFont(r), ps.getRunColor(r) });
+                }
+            }
+        }
+    }
+
+    private static String spanKey(yFont font, yColor color) {
+        return (font==null ? "" : font.toString()) + "#" + color.getKey();
+    }
+
+    private static String paragraphKey(ParagraphFormat pf) {
+        return pf.getAlignment() + "," + pf.getFirstIndent() + "," + pf.getLeftIndent()
+            + "," + pf.getRightIndent() + "," + pf.getRowSpace();
+    }
+
+    private void writeHead(String title) throws IOException {
+        buffer.put("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>");
+        if(title!=null)
+            putText(title);
+        buffer.put("</title>\n<style>\n");
+        buffer.put("body { width: " + snapshot.getPageFormat().scaleWidth() + "px; }\n");
+        buffer.put("p { margin-top: 0; white-space: pre-wrap; }\n");
+        for(int i=0; i<paragraphSamples.size(); i++) {
+            ParagraphFormat pf = paragraphSamples.get(i);
+            buffer.put(".p" + i + " { text-align: " + alignment(pf.getAlignment())
+                + "; text-indent: " + pf.getFirstIndent()
+                + "px; margin-left: " + pf.getLeftIndent()
+                + "px; margin-right: " + pf.getRightIndent()
+                + "px; margin-bottom: " + pf.getRowSpace() + "px; }\n");
+        }
+        for(int i=0; i<spanSamples.size(); i++) {
+            Object[] sample = spanSamples.get(i);
+            yFont font = (yFont)sample[0];
+            yColor color = (yColor)sample[1];
+            buffer.put(".s" + i + " {");
+            if(font!=null) {
+                buffer.put(" font-family: '" + font.getName().replace('\'', ' ') + "';");
+                buffer.put(" font-size: " + font.getSize() + "pt;");
+                if(font.getBold())
+                    buffer.put(" font-weight: bold;");
+                if(font.getItalic())
+                    buffer.put(" font-style: italic;");
+                if(font.getUnderlined())
+                    buffer.put(" text-decoration: underline;");
+            }
+            buffer.put(" color: #" + hex(color.getKey().intValue()) + "; }\n");
+        }
+        buffer.put("</style>\n</head>\n<body>\n");
+    }
+
+    private static String alignment(int alignment) {
+        if(alignment==ParagraphFormat.ALIGN_CENTER)
+            return "center";
+        if(alignment==ParagraphFormat.ALIGN_RIGHT)
+            return "right";
+        return "left";
+    }
+
+    private static String hex(int rgb) {
+        String s = Integer.toHexString(rgb & 0xffffff);
+        return "000000".substring(s.length()) + s;
+    }
+
+    private void writeParagraph(ParagraphSnapshot ps) throws IOException {
+        Integer pclass = paragraphStyles.get(paragraphKey(ps.getParagraphFormat()));
+        buffer.put("<p class=\"p" + pclass + "\">");
+        int last = ps.getGlyphsCount() - 1; // skip the '\r'.
+        if(last==0)
+            buffer.put("<br>");
+        for(int r=0; r<ps.getRunCount(); r++) {
+            int start = ps.getRunStart(r);
+            int end = Math.min(ps.getRunEnd(r), last - 1);
+            if(start>end)
+                continue;
+            Integer sclass = spanStyles.get(spanKey(ps.getRunFont(r), ps.getRunColor(r)));
+            buffer.put("<span class=\"s" + sclass + "\">");
+            for(int i=start; i<=end; i++) {
+                Glyph g = ps.child(i);
+                if(g instanceof Char)
+                    putChar(((Char)g).charValue());
+                else if(g instanceof Picture)
+                    writePicture((Picture)g);
+            }
+            buffer.put("</span>");
+        }
+        buffer.put("</p>\n");
+    }
+
+    private void writePicture(Picture p) throws IOException {
+        String url = pictures.get(p);
+        if(url==null) {
+            if(!(p instanceof yPicture))
+                return;
+            if(!pictureDir.isDirectory() && !pictureDir.mkdirs())
+                throw new IOException("Cannot create " + pictureDir);
+            String name = "image" + (pictures.size() + 1) + ".png";
+            ImageLoader loader = new ImageLoader();
+            loader.data = new ImageData[] { ((yPicture)p).getImageData() };
+            OutputStream os = new BufferedOutputStream(
+                new FileOutputStream(new File(pictureDir, name)));
+            try {
+                loader.save(os, SWT.IMAGE_PNG);
+            }
+            finally {
+                os.close();
+            }
+            url = pictureUrl + name;
+            pictures.put(p, url);
+        }
+        buffer.put("<img src=\"");
+        putText(url);
+        buffer.put("\" width=\"" + p.width() + "\" height=\"" + p.height() + "\">");
+    }
+
+    private void putText(String s) throws IOException {
+        for(int i=0; i<s.length(); i++)
+            putChar(s.charAt(i));
+    }
+
+    // put a char of the text, escaped:
+    private void putChar(char c) throws IOException {
+        switch(c) {
+        case '<':
+            buffer.put("&lt;");
+            break;
+        case '>':
+            buffer.put("&gt;");
+            break;
+        case '&':
+            buffer.put("&amp;");
+            break;
+        case '"':
+            buffer.put("&quot;");
+            break;
+        default:
+            buffer.put(c);
+        }
+    }
+}
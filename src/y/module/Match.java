@@ -0,0 +1,97 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.module;
+
+/**
+ * Match is a search result located by (paragraphIndex, index).
+ * The matched glyphs are [index, index + length) of the paragraph.
+ *
+ * @see y.module.FindEngine
+ *
+ * @author y&y
+ */
+public final class Match {
+
+    private final Paragraph paragraph;
+    private final int paragraphIndex;
+    private final int index;
+    private final int length;
+
+    /**
+     * Create a match.
+     *
+     * @param paragraph The paragraph.
+     * @param paragraphIndex The index of the paragraph.
+     * @param index The index of the first matched glyph.
+     * @param length How many glyphs are matched.
+     */
+    public Match(Paragraph paragraph, int paragraphIndex, int index, int length) {
+        this.paragraph = paragraph;
+        this.paragraphIndex = paragraphIndex;
+        this.index = index;
+        this.length = length;
+    }
+
+    /**
+     * Get the paragraph.
+     *
+     * @return The paragraph.
+     */
+    public Paragraph getParagraph() {
+        return this.paragraph;
+    }
+
+    /**
+     * Get the paragraph index.
+     *
+     * @return The paragraph index.
+     */
+    public int getParagraphIndex() {
+        return this.paragraphIndex;
+    }
+
+    /**
+     * Get the index of the first matched glyph.
+     *
+     * @return The start index.
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Get the count of the matched glyphs.
+     *
+     * @return The length.
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    /**
+     * Get the start of the match as an AbsPosition.
+     *
+     * @return The start position.
+     */
+    public AbsPosition getStart() {
+        return new AbsPosition(this.paragraphIndex, this.index);
+    }
+
+    /**
+     * Get the end of the match (exclusive) as an AbsPosition.
+     *
+     * @return The end position.
+     */
+    public AbsPosition getEnd() {
+        return new AbsPosition(this.paragraphIndex, this.index + this.length);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+        return "[Match para=" + paragraphIndex + ", index=" + index + ", length=" + length + "]";
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.module;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Metrics is the registry of the counters, gauges and histograms of the
+ * editor. Unlike Trace it keeps no single events, only totals, so it is
+ * always on: a histogram records a value by two atomic increments and
+ * one CAS for the max. <br>
+ *
+ * The metrics are created by name on first use, callers should keep the
+ * returned object in a static field. Durations are recorded in
+ * nanoseconds and their names end with ".ns". <br>
+ *
+ * dump() writes all metrics as text sorted by name. With
+ * "-Dy.metrics.file=&lt;path&gt;" they are also written when the JVM
+ * exits.
+ *
+ * @author y&y
+ */
+public final class Metrics {
+
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+    private static final Map<String, Gauge> gauges = new ConcurrentHashMap<String, Gauge>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+    static {
+        final String file = System.getProperty("y.metrics.file");
+        if(file!=null) {
+            Runtime.getRuntime().addShutdownHook(new Thread("Metrics dump") {
+                public void run() {
+                    try {
+                        dump(file);
+                    }
+                    catch(IOException e) {
+                        System.err.println("Metrics: cannot write " + file + ": " + e);
+                    }
+                }
+            });
+        }
+    }
+
+    // prevent the client to create instance:
+    private Metrics() {}
+
+    /**
+     * A value that only grows.
+     */
+    public static final class Counter {
+
+        private final AtomicLong value = new AtomicLong();
+
+        private Counter() {}
+
+        public void increment() {
+            value.incrementAndGet();
+        }
+
+        public void add(long n) {
+            value.addAndGet(n);
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+
+    /**
+     * A value that is read when the metrics are dumped.
+     */
+    public interface Gauge {
+
+        /**
+         * Get the current value.
+         *
+         * @return The value.
+         */
+        long value();
+    }
+
+    /**
+     * A histogram in the style of HdrHistogram: the values are counted
+     * in buckets of exponentially growing width, every power of 2 is
+     * split into 16 buckets, so a percentile is within about 6% of the
+     * real value, for any value from 0 to Long.MAX_VALUE, in a fixed
+     * array of 976 counts.
+     */
+    public static final class Histogram {
+
+        // values below SUB have a bucket each, above it every power of 2 has HALF buckets:
+        private static final int SUB_BITS = 5;
+        private static final int SUB = 1 << SUB_BITS;
+        private static final int HALF = SUB / 2;
+        private static final int BUCKETS = SUB + (63 - (SUB_BITS - 1)) * HALF;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        private Histogram() {}
+
+        /**
+         * Record a value, negative values are recorded as 0.
+         *
+         * @param value The value.
+         */
+        public void record(long value) {
+            if(value<0)
+                value = 0;
+            buckets.incrementAndGet(bucketOf(value));
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            long m;
+            while(value>(m = max.get())) {
+                if(max.compareAndSet(m, value))
+                    break;
+            }
+        }
+
+        /**
+         * Record the time since start.
+         *
+         * @param start The value of System.nanoTime() at the start.
+         */
+        public void recordSince(long start) {
+            record(System.nanoTime() - start);
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        public double getMean() {
+            long n = count.get();
+            return n==0 ? 0.0 : (double)sum.get() / n;
+        }
+
+        /**
+         * Get the value at the percentile.
+         *
+         * @param percentile From 0 to 100.
+         * @return The value, the middle of its bucket.
+         */
+        public long getPercentile(double percentile) {
+            long n = count.get();
+            if(n==0)
+                return 0;
+            long rank = (long)Math.ceil(percentile / 100.0 * n);
+            if(rank<1)
+                rank = 1;
+            long acc = 0;
+            for(int i=0; i<BUCKETS; i++) {
+                acc += buckets.get(i);
+                if(acc>=rank)
+                    return Math.min(valueOf(i), max.get());
+            }
+            return max.get();
+        }
+
+        private static int bucketOf(long value) {
+            if(value<SUB)
+                return (int)value;
+            int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BITS - 1);
+            int top = (int)(value >>> shift); // in [HALF, SUB)
+            return SUB + (shift - 1) * HALF + (top - HALF);
+        }
+
+        // the middle value of the bucket:
+        private static long valueOf(int bucket) {
+            if(bucket<SUB)
+                return bucket;
+            int shift = (bucket - SUB) / HALF + 1;
+            long top = (bucket - SUB) % HALF + HALF;
+            return (top << shift) + (1L << (shift - 1));
+        }
+    }
+
+    /**
+     * Get the counter of the name, create it if it does not exist.
+     *
+     * @param name The name.
+     * @return The counter.
+     */
+    public static Counter counter(String name) {
+        Counter c = counters.get(name);
+        if(c==null) {
+            synchronized(counters) {
+                c = counters.get(name);
+                if(c==null) {
+                    c = new Counter();
+                    counters.put(name, c);
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Get the histogram of the name, create it if it does not exist.
+     *
+     * @param name The name.
+     * @return The histogram.
+     */
+    public static Histogram histogram(String name) {
+        Histogram h = histograms.get(name);
+        if(h==null) {
+            synchronized(histograms) {
+                h = histograms.get(name);
+                if(h==null) {
+                    h = new Histogram();
+                    histograms.put(name, h);
+                }
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Register a gauge, replace the old one of the same name.
+     *
+     * @param name The name.
+     * @param gauge The gauge.
+     */
+    public static void gauge(String name, Gauge gauge) {
+        Assert.checkNull(gauge);
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Write all metrics to a file.
+     *
+     * @param filename The full path of the file.
+     * @throws IOException If there is any IO error.
+     */
+    public static void dump(String filename) throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filename), "UTF-8"));
+        try {
+            dump(w);
+        }
+        finally {
+            w.close();
+        }
+    }
+
+    /**
+     * Write all metrics, one per line, sorted by name.
+     *
+     * @param out Receive the metrics.
+     * @throws IOException If there is any IO error.
+     */
+    public static void dump(Writer out) throws IOException {
+        out.write("# metrics at " + new Date() + "\n");
+        Iterator<Map.Entry<String, Counter>> ci = new TreeMap<String, Counter>(counters).entrySet().iterator();
+        while(ci.hasNext()) {
+            Map.Entry<String, Counter> e = ci.next();
+            out.write("counter " + e.getKey() + " " + e.getValue().get() + "\n");
+        }
+        Iterator<Map.Entry<String, Gauge>> gi = new TreeMap<String, Gauge>(gauges).entrySet().iterator();
+        while(gi.hasNext()) {
+            Map.Entry<String, Gauge> e = gi.next();
+            out.write("gauge " + e.getKey() + " " + e.getValue().value() + "\n");
+        }
+        Iterator<Map.Entry<String, Histogram>> hi = new TreeMap<String, Histogram>(histograms).entrySet().iterator();
+        while(hi.hasNext()) {
+            Map.Entry<String, Histogram> e = hi.next();
+            Histogram h = e.getValue();
+            out.write("histogram " + e.getKey()
+                + " count=" + h.getCount()
+                + " mean=" + Math.round(h.getMean())
+                + " p50=" + h.getPercentile(50)
+                + " p90=" + h.getPercentile(90)
+                + " p99=" + h.getPercentile(99)
+                + " p99.9=" + h.getPercentile(99.9)
+                + " max=" + h.getMax() + "\n");
+        }
+        out.flush();
+    }
+}
@@ -58,6 +58,9 @@ public class Paragraph implements Composition, Serializable{
     // formatted or not:
     private boolean formatted = false;
 
+    // cache the read-only snapshot until the paragraph is modified:
+    private transient ParagraphSnapshot snapshot = null;
+
     
     public Paragraph() {
         currentStringFormat =  new StringFormat(this,
@@ -119,6 +122,7 @@ public class Paragraph implements Composition, Serializable{
 
     public void resetStringFormats(ArrayList<StringFormat> sf) {
     	this.stringFormats = sf;
+    	setFormatted(false);
     }
     
     /**
@@ -142,7 +146,14 @@ public class Paragraph implements Composition, Serializable{
     		StringFormat sf = (StringFormat)it.next();
     		previousSF.add(new StringFormat(sf));
     	}
-    	setFormatted(false);
+        formatStrings(startIndex, endIndex, fontName, fontSize, bold, italic, underlined, color);
+        // the listeners see the new string formats:
+        setFormatted(false);
+        return previousSF;
+    }
+
+    // create, break or modify the string formats of format():
+    private void formatStrings(int startIndex, int endIndex, String fontName, Integer fontSize, Boolean bold, Boolean italic, Boolean underlined, yColor color) {
         if(startIndex>endIndex) {
             // swap:
             int temp = endIndex;
@@ -219,7 +230,7 @@ public class Paragraph implements Composition, Serializable{
                     endIndex+1,
                     e3)
                 );
-                return previousSF;
+                return;
             }
             if(end_ok && !start_ok) {
                 // just break the start part:
@@ -244,7 +255,7 @@ public class Paragraph implements Composition, Serializable{
                         s2, e2
                     )
                 );
-                return previousSF;
+                return;
             }
             if(start_ok && !end_ok) {
                 // just break the end part:
@@ -269,7 +280,7 @@ public class Paragraph implements Composition, Serializable{
                         startIndex, endIndex
                     )
                 );
-                return previousSF;
+                return;
             }
             // ok, just modify:
             current.setFont(yFontFactory.instance().createFont(
@@ -280,7 +291,7 @@ public class Paragraph implements Composition, Serializable{
                 underlined==null?current.getFont().getUnderlined():underlined.booleanValue()
             ));
             current.setColor(color==null?current.getColor():color);
-            return previousSF;
+            return;
         }
 
         int formatFrom = start;
@@ -327,8 +338,6 @@ public class Paragraph implements Composition, Serializable{
                 sf.setFont(font);
             }
         }
-        this.debug();
-        return previousSF;
 //        StringFormat current = (StringFormat)stringFormats.get(deleteFrom);
         // now first we delete all between [deleteFrom, deleteEnd]:
 //        for(int i=deleteEnd; i>=deleteFrom; i--)
@@ -358,10 +367,56 @@ public class Paragraph implements Composition, Serializable{
 
     /**
      * Set this paragraph formatted or not. 
+     * <b>NOTE</b>: Every modification sets the paragraph unformatted, 
+     * so the cached snapshot is dropped and the document listeners 
+     * are notified here as well. 
      */
     public void setFormatted(boolean formatted)
     {
         this.formatted = formatted;
+        if(!formatted) {
+            this.snapshot = null;
+            if(this.document!=null)
+                this.document.fireParagraphChanged(this);
+        }
+    }
+
+    // one glyph was inserted or removed, set unformatted and 
+    // notify the listeners with the change:
+    private void changed(int index, Glyph g, boolean inserted) {
+        this.formatted = false;
+        this.snapshot = null;
+        if(this.document!=null)
+            this.document.fireParagraphChanged(this, index, g, inserted);
+    }
+
+    /**
+     * Get a read-only snapshot of this paragraph. The snapshot is 
+     * cached and the same object is returned until the paragraph 
+     * is modified, so it costs O(glyphs) only once per modification. 
+     * <b>NOTE</b>: Must be called on the thread that edits the document. 
+     * 
+     * @return The snapshot of this paragraph.
+     */
+    public ParagraphSnapshot snapshot() {
+        if(this.snapshot==null) {
+            Glyph[] g = (Glyph[])this.glyphs.toArray(new Glyph[this.glyphs.size()]);
+            int n = this.stringFormats.size();
+            int[] starts = new int[n];
+            int[] ends = new int[n];
+            yFont[] fonts = new yFont[n];
+            yColor[] colors = new yColor[n];
+            for(int i=0; i<n; i++) {
+                StringFormat sf = (StringFormat)this.stringFormats.get(i);
+                starts[i] = sf.getStartIndex();
+                ends[i] = sf.getEndIndex();
+                fonts[i] = sf.getFont();
+                colors[i] = sf.getColor();
+            }
+            this.snapshot = new ParagraphSnapshot(this, g, starts, ends, fonts, colors,
+                new ParagraphFormat(this.paragraphFormat));
+        }
+        return this.snapshot;
     }
 
     /**
@@ -562,7 +617,7 @@ public class Paragraph implements Composition, Serializable{
 		    }
 		}
 		// set to unformatted:
-		setFormatted(false);
+		changed(index, g, true);
     
 	}
 
@@ -579,6 +634,8 @@ public class Paragraph implements Composition, Serializable{
 		if(item.hasDeletedStringFormat) {
 			stringFormats.add(item.indexOfDeletedSF, item.deletedStringFormat);
 		}
+		// add() fired before the string format was back:
+		setFormatted(false);
 	}
 	
     /**
@@ -613,6 +670,24 @@ public class Paragraph implements Composition, Serializable{
         add(CharFactory.instance().createChar(c));
     }
 
+    /**
+     * Append the chars before '\r' in one step, they take the style
+     * of the last string format. Used by the importers instead of
+     * calling add() for each char.
+     *
+     * @param chars The Char objects.
+     * @param length How many of them are appended.
+     */
+    void append(Char[] chars, int length) {
+        if(length==0)
+            return;
+        this.glyphs.addAll(glyphs.size()-1, Arrays.asList(chars).subList(0, length));
+        // the last string format always contains the '\r':
+        StringFormat last_sf = (StringFormat)this.stringFormats.get(stringFormats.size()-1);
+        last_sf.increase(length);
+        setFormatted(false);
+    }
+
 	/**
 	 * Get the specified child glyph.
 	 * 
@@ -662,7 +737,7 @@ public class Paragraph implements Composition, Serializable{
                 }
             }
         }
-        setFormatted(false);
+        changed(index, item.deletedGryph, false);
         return item;
     }
     
@@ -25,6 +25,8 @@ public final class ParagraphCompositor implements Compositor {
 
 	private static transient char[] BREAK_CHAR = {' ', ',', '.', ';', ':', '\r', '\t', '?', '!'};
 
+    private static final Metrics.Histogram COMPOSE = Metrics.histogram("ParagraphCompositor.compose.ns");
+
     private Paragraph paragraph = null;
 
     // if it can break after the glyph 'g':
@@ -46,36 +48,42 @@ public final class ParagraphCompositor implements Compositor {
      * or created by pasting. 
      */
     public void compose() {
+        long t = System.nanoTime();
         paragraph.clearAllRows();
 
-        yGraphics g = Application.instance().getFrame().getDefaultGraphics();
+        yMeasurer m = Application.instance().getMeasurer();
 
         int startIndex = 0;
         int endIndex;
         boolean first = true;
         do {
-            endIndex = clip(startIndex, first, g);
+            endIndex = clip(startIndex, first, m);
             first = false;
             paragraph.appendRow(new Row(paragraph, startIndex, endIndex));
             startIndex = endIndex+1;
         } while(endIndex!=paragraph.getGlyphsCount()-1);
 
         paragraph.setFormatted(true);
+        COMPOSE.recordSince(t);
+        Trace.end("ParagraphCompositor.compose", t, paragraph.getGlyphsCount(), paragraph.getRows().size());
     }
 
     // clip the new row, from glyph index,
     // return the last index of the glyph.
-    private int clip(int startIndex, boolean firstRow, yGraphics g) {
+    private int clip(int startIndex, boolean firstRow, yMeasurer m) {
         int glyph_width = 0;
         // get the row width:
         int row_width = paragraph.getParagraphFormat().scaleWidth(firstRow);
         int acc_width = 0;
+        // the string format of the last char, most chars share it:
+        StringFormat sf = null;
 
         for(int i=startIndex; i<paragraph.getGlyphsCount(); i++) {
             Glyph glyph = (Glyph)paragraph.child(i);
             if(glyph instanceof Char) {
-                g.setFont(paragraph.getStringFormat(i).getFont());
-                glyph_width = g.getCharWidth(((Char)glyph).charValue());
+                if(sf==null || !sf.contains(i))
+                    sf = paragraph.getStringFormat(i);
+                glyph_width = m.getCharWidth(sf.getFont(), ((Char)glyph).charValue());
             }
             else
                 glyph_width = glyph.width();
@@ -0,0 +1,180 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.module;
+
+import y.format.ParagraphFormat;
+import y.view.yColor;
+import y.view.yFont;
+
+/**
+ * ParagraphSnapshot is a read-only copy of a Paragraph taken at one
+ * moment. It holds the glyphs and the string format runs as arrays,
+ * so it can be read by any thread while the paragraph is edited. <br>
+ * <b>NOTE</b>: Use Paragraph.snapshot() to get one. The paragraph
+ * caches its snapshot until it is modified, so unchanged paragraphs
+ * share the same snapshot object between two document snapshots.
+ *
+ * @see y.module.DocumentSnapshot
+ *
+ * @author y&y
+ */
+public final class ParagraphSnapshot {
+
+    /**
+     * The char returned by charAt() for a glyph that is not a Char.
+     */
+    public static final char OBJECT_CHAR = '\uFFFC';
+
+    // the live paragraph, only used to map results back:
+    private final Paragraph paragraph;
+
+    // the glyphs, the last one is always '\r':
+    private final Glyph[] glyphs;
+
+    // string format runs, run i covers [runStarts[i], runEnds[i]]:
+    private final int[] runStarts;
+    private final int[] runEnds;
+    private final yFont[] fonts;
+    private final yColor[] colors;
+
+    // a private copy of the paragraph format:
+    private final ParagraphFormat paragraphFormat;
+
+    // package-private, created by Paragraph.snapshot():
+    ParagraphSnapshot(Paragraph paragraph, Glyph[] glyphs, int[] runStarts, int[] runEnds,
+        yFont[] fonts, yColor[] colors, ParagraphFormat paragraphFormat)
+    {
+        this.paragraph = paragraph;
+        this.glyphs = glyphs;
+        this.runStarts = runStarts;
+        this.runEnds = runEnds;
+        this.fonts = fonts;
+        this.colors = colors;
+        this.paragraphFormat = paragraphFormat;
+    }
+
+    /**
+     * Get the paragraph this snapshot was taken from. <br>
+     * <b>NOTE</b>: The paragraph may have been changed since, only
+     * use it on the UI thread to locate the result of a background job.
+     *
+     * @return The live paragraph.
+     */
+    public Paragraph getParagraph() {
+        return this.paragraph;
+    }
+
+    /**
+     * Get the count of the glyphs, including the end flag '\r'.
+     *
+     * @return The count of the glyphs.
+     */
+    public int getGlyphsCount() {
+        return this.glyphs.length;
+    }
+
+    /**
+     * Get the specified glyph.
+     *
+     * @param index The glyph index.
+     * @return The glyph.
+     */
+    public Glyph child(int index) {
+        return this.glyphs[index];
+    }
+
+    /**
+     * Get the char value of the specified glyph, or OBJECT_CHAR
+     * if the glyph is not a Char (a Picture, for example).
+     *
+     * @param index The glyph index.
+     * @return The char value.
+     */
+    public char charAt(int index) {
+        Glyph g = this.glyphs[index];
+        if(g instanceof Char)
+            return ((Char)g).charValue();
+        return OBJECT_CHAR;
+    }
+
+    /**
+     * Get the count of the string format runs.
+     *
+     * @return How many runs.
+     */
+    public int getRunCount() {
+        return this.runStarts.length;
+    }
+
+    /**
+     * Get the start index of the run.
+     *
+     * @param run The run index.
+     * @return The index of the first glyph in this run.
+     */
+    public int getRunStart(int run) {
+        return this.runStarts[run];
+    }
+
+    /**
+     * Get the end index of the run (inclusive).
+     *
+     * @param run The run index.
+     * @return The index of the last glyph in this run.
+     */
+    public int getRunEnd(int run) {
+        return this.runEnds[run];
+    }
+
+    /**
+     * Get the font of the run.
+     *
+     * @param run The run index.
+     * @return The font.
+     */
+    public yFont getRunFont(int run) {
+        return this.fonts[run];
+    }
+
+    /**
+     * Get the color of the run.
+     *
+     * @param run The run index.
+     * @return The color.
+     */
+    public yColor getRunColor(int run) {
+        return this.colors[run];
+    }
+
+    /**
+     * Find the run that contains the glyph, by binary search.
+     *
+     * @param index The glyph index.
+     * @return The run index.
+     */
+    public int findRun(int index) {
+        Assert.checkTrue(index>=0 && index<glyphs.length);
+        int low = 0;
+        int high = runStarts.length - 1;
+        while(low<high) {
+            int mid = (low + high + 1) >>> 1;
+            if(runStarts[mid]<=index)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        return low;
+    }
+
+    /**
+     * Get the paragraph format at the time the snapshot was taken.
+     * <b>NOTE</b>: It is a private copy, do not modify it.
+     *
+     * @return The paragraph format.
+     */
+    public ParagraphFormat getParagraphFormat() {
+        return this.paragraphFormat;
+    }
+}
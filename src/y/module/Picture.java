@@ -12,6 +12,25 @@ import java.io.Serializable;
  */
 public abstract class Picture implements Glyph, Serializable {
 
+    /**
+     * Decode the pixels in the background, so the first paint does not 
+     * wait for them. The picture is painted as a placeholder until the 
+     * callback is run on the UI thread. 
+     * 
+     * @param done The callback, run when the picture can be painted.
+     */
+    public void decodeLater(Runnable done) {
+        done.run();
+    }
+
+    /**
+     * Cancel decodeLater() if it is not done yet, the callback will 
+     * not be run. 
+     * 
+     * @param done The callback given to decodeLater().
+     */
+    public void cancelDecode(Runnable done) {}
+
     /* (non-Javadoc)
      * @see java.lang.Object#toString()
      */
@@ -36,4 +36,16 @@ public abstract class PictureFactory {
      */
     public abstract Picture createPicture(String filename) throws java.io.IOException;
 
+    /**
+     * Create a Picture from file, scaled down to fit the size if it is 
+     * larger. The pixels are not scaled, only the painted size. 
+     * 
+     * @param filename The full file name, including path.
+     * @param maxWidth The max width of the picture.
+     * @param maxHeight The max height of the picture.
+     * @return The Picture object.
+     * @throws IOException If any io error. (such as 'file is not exist')
+     */
+    public abstract Picture createPicture(String filename, int maxWidth, int maxHeight) throws java.io.IOException;
+
 }
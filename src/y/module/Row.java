@@ -199,8 +199,13 @@ public class Row implements Serializable/*implements Glyph*/ {
                     g.setForecolor(sf.getColor());
                 }
                 glyph.draw(g);
-                // calculate the next position:
-                start_x += g.getCharWidth(((Char)glyph).charValue());
+                // calculate the next position, by the graphics that draws
+                // (its font is already set), the measurer only in headless mode:
+                char c = ((Char)glyph).charValue();
+                if(Application.instance().isHeadless())
+                    start_x += Application.instance().getMeasurer().getCharWidth(font, c);
+                else
+                    start_x += g.getCharWidth(c);
             }
             else {
                 int offset = height() - space - glyph.height();
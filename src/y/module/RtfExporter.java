@@ -0,0 +1,247 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.module;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.*;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+
+import y.format.ParagraphFormat;
+import y.view.yColor;
+import y.view.yFont;
+import y.view.yPicture;
+
+/**
+ * RtfExporter writes a document as RTF. <br>
+ * It builds the font and color tables the same way as the RTFWriter
+ * of org.eclipse.swt.custom.StyledText (the index of an entry is its
+ * position in a Vector), but the tables are filled by one pre-pass
+ * over the string format runs, so the header can be written first and
+ * the body is then written to the Writer paragraph by paragraph instead
+ * of being collected into one StringBuffer. <br>
+ *
+ * Chars above 0x7F are written as \\uN, so the output is plain ASCII.
+ * Pictures are embedded as \\dibitmap, one picture in memory at a time. <br>
+ *
+ * <b>NOTE</b>: It reads a DocumentSnapshot, not the document itself.
+ * ExportRtfCommand runs it on the UI thread.
+ *
+ * @author y&y
+ */
+public final class RtfExporter {
+
+    // screen pixels (96 dpi) to twips:
+    private static final int TWIPS_PER_PIXEL = 15;
+
+    // the size of BITMAPFILEHEADER, a BMP file without it is a DIB:
+    private static final int BMP_FILE_HEADER = 14;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final DocumentSnapshot snapshot;
+
+    // font names and colors, the index is used in the body:
+    private final Vector fontTable = new Vector();
+    private final Vector colorTable = new Vector();
+
+    private ExportBuffer buffer;
+
+    /**
+     * Create an exporter of the snapshot.
+     *
+     * @param snapshot The document snapshot.
+     */
+    public RtfExporter(DocumentSnapshot snapshot) {
+        Assert.checkNull(snapshot);
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Export the document to a RTF file.
+     *
+     * @param document The document.
+     * @param filename The full path of the RTF file.
+     * @return How many bytes are written.
+     * @throws IOException If there is any IO error.
+     */
+    public static long export(Document document, String filename) throws IOException {
+        File file = new File(filename);
+        RtfExporter exporter = new RtfExporter(document.snapshot());
+        Writer writer = new BufferedWriter(
+            new OutputStreamWriter(new FileOutputStream(file), "US-ASCII"), 64 * 1024);
+        try {
+            exporter.export(writer);
+        }
+        finally {
+            writer.close();
+        }
+        return file.length();
+    }
+
+    /**
+     * Export the document. The Writer is flushed but not closed.
+     *
+     * @param out Receive the RTF.
+     * @throws IOException If there is any IO error.
+     */
+    public void export(Writer out) throws IOException {
+        buffer = new ExportBuffer(out);
+        buildTables();
+        writeHeader();
+        int n = snapshot.getParagraphCount();
+        for(int i=0; i<n; i++)
+            writeParagraph(snapshot.getParagraph(i));
+        buffer.put("}\n");
+        buffer.flush();
+    }
+
+    // the pre-pass, only looks at the runs:
+    private void buildTables() {
+        int n = snapshot.getParagraphCount();
+        for(int i=0; i<n; i++) {
+            ParagraphSnapshot ps = snapshot.getParagraph(i);
+            for(int r=0; r<ps.getRunCount(); r++) {
+                getFontIndex(ps.getRunFont(r));
+                getColorIndex(ps.getRunColor(r));
+            }
+        }
+        if(fontTable.isEmpty())
+            fontTable.addElement("Arial");
+    }
+
+    private int getFontIndex(yFont font) {
+        if(font==null)
+            return 0;
+        int index = fontTable.indexOf(font.getName());
+        if(index==-1) {
+            index = fontTable.size();
+            fontTable.addElement(font.getName());
+        }
+        return index;
+    }
+
+    private int getColorIndex(yColor color) {
+        Integer rgb = color.getKey();
+        int index = colorTable.indexOf(rgb);
+        if(index==-1) {
+            index = colorTable.size();
+            colorTable.addElement(rgb);
+        }
+        return index;
+    }
+
+    private void writeHeader() throws IOException {
+        buffer.put("{\\rtf1\\ansi\\uc0\\deff0{\\fonttbl");
+        for(int i=0; i<fontTable.size(); i++) {
+            buffer.put("{\\f" + i + "\\fnil ");
+            putText((String)fontTable.elementAt(i));
+            buffer.put(";}");
+        }
+        buffer.put("}\n{\\colortbl");
+        for(int i=0; i<colorTable.size(); i++) {
+            int rgb = ((Integer)colorTable.elementAt(i)).intValue();
+            buffer.put("\\red" + ((rgb>>16) & 0xff) + "\\green" + ((rgb>>8) & 0xff)
+                + "\\blue" + (rgb & 0xff) + ";");
+        }
+        int w = snapshot.getPageFormat().scaleWidth() * TWIPS_PER_PIXEL;
+        buffer.put("}\n\\paperw" + w + "\\margl0\\margr0\n");
+    }
+
+    private void writeParagraph(ParagraphSnapshot ps) throws IOException {
+        ParagraphFormat pf = ps.getParagraphFormat();
+        buffer.put("\\pard\\fi" + pf.getFirstIndent() * TWIPS_PER_PIXEL
+            + "\\li" + pf.getLeftIndent() * TWIPS_PER_PIXEL
+            + "\\ri" + pf.getRightIndent() * TWIPS_PER_PIXEL
+            + "\\sa" + pf.getRowSpace() * TWIPS_PER_PIXEL);
+        switch(pf.getAlignment()) {
+        case ParagraphFormat.ALIGN_CENTER:
+            buffer.put("\\qc ");
+            break;
+        case ParagraphFormat.ALIGN_RIGHT:
+            buffer.put("\\qr ");
+            break;
+        default:
+            buffer.put("\\ql ");
+        }
+        int last = ps.getGlyphsCount() - 1; // skip the '\r'.
+        for(int r=0; r<ps.getRunCount(); r++) {
+            int start = ps.getRunStart(r);
+            int end = Math.min(ps.getRunEnd(r), last - 1);
+            if(start>end)
+                continue;
+            yFont font = ps.getRunFont(r);
+            buffer.put("{\\f" + getFontIndex(font) + "\\cf" + getColorIndex(ps.getRunColor(r)));
+            if(font!=null) {
+                buffer.put("\\fs" + font.getSize() * 2);
+                if(font.getBold())
+                    buffer.put("\\b");
+                if(font.getItalic())
+                    buffer.put("\\i");
+                if(font.getUnderlined())
+                    buffer.put("\\ul");
+            }
+            buffer.put(" ");
+            for(int i=start; i<=end; i++) {
+                Glyph g = ps.child(i);
+                if(g instanceof Char)
+                    putChar(((Char)g).charValue());
+                else if(g instanceof yPicture)
+                    writePicture((yPicture)g);
+            }
+            buffer.put("}");
+        }
+        buffer.put("\\par\n");
+    }
+
+    private void writePicture(yPicture p) throws IOException {
+        ImageData pixels = p.getImageData();
+        ImageLoader loader = new ImageLoader();
+        loader.data = new ImageData[] { pixels };
+        ByteArrayOutputStream bmp = new ByteArrayOutputStream();
+        loader.save(bmp, SWT.IMAGE_BMP);
+        byte[] data = bmp.toByteArray();
+        // the bitmap has the full size, the goal is the painted size:
+        buffer.put("{\\pict\\dibitmap0\\picw" + pixels.width + "\\pich" + pixels.height
+            + "\\picwgoal" + p.width() * TWIPS_PER_PIXEL
+            + "\\pichgoal" + p.height() * TWIPS_PER_PIXEL + "\n");
+        for(int i=BMP_FILE_HEADER; i<data.length; i++) {
+            buffer.put(HEX[(data[i]>>4) & 0xf]);
+            buffer.put(HEX[data[i] & 0xf]);
+            if((i - BMP_FILE_HEADER) % 64==63)
+                buffer.put("\n");
+        }
+        buffer.put("}");
+    }
+
+    private void putText(String s) throws IOException {
+        for(int i=0; i<s.length(); i++)
+            putChar(s.charAt(i));
+    }
+
+    // put a char of the text, escaped like RTFWriter.write(String, int, int):
+    private void putChar(char c) throws IOException {
+        if(c>0x7F) {
+            buffer.put("\\u" + (short)c + " ");
+        }
+        else if(c=='}' || c=='{' || c=='\\') {
+            buffer.put("\\" + c);
+        }
+        else if(c=='\t') {
+            buffer.put("\\tab ");
+        }
+        else {
+            buffer.put(c);
+        }
+    }
+}
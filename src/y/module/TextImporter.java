@@ -0,0 +1,167 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.module;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import y.view.yView;
+
+/**
+ * TextImporter reads a plain text file into a new document. <br>
+ * The file is streamed through a FileChannel and a CharsetDecoder in
+ * blocks of 64K, so the file is never held in memory as bytes or as a
+ * String. Every line ("\r", "\n" or "\r\n") becomes a Paragraph with
+ * the default style, the chars of a line are appended in one step by
+ * Paragraph.append(), and the document is composed only once when the
+ * whole file is read. <br>
+ *
+ * Malformed input is replaced by U+FFFD and a leading byte order mark
+ * is skipped.
+ *
+ * @author y&y
+ */
+public final class TextImporter {
+
+    /**
+     * The default charset of the imported files.
+     */
+    public static final String DEFAULT_CHARSET = "UTF-8";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final char BOM = '\uFEFF';
+
+    private final Document document;
+
+    // the chars of the current line:
+    private Char[] line = new Char[256];
+    private int length = 0;
+
+    // the last char was '\r', so a following '\n' is skipped:
+    private boolean afterReturn = false;
+
+    // nothing has been read yet, skip the BOM:
+    private boolean first = true;
+
+    private TextImporter(Document document) {
+        this.document = document;
+    }
+
+    /**
+     * Import a UTF-8 text file.
+     *
+     * @param view The yView reference.
+     * @param filename The full path of the file.
+     * @return The composed Document object.
+     * @throws IOException If there is any IO error.
+     */
+    public static Document importText(yView view, String filename) throws IOException {
+        return importText(view, filename, DEFAULT_CHARSET);
+    }
+
+    /**
+     * Import a text file in the specified charset.
+     *
+     * @param view The yView reference.
+     * @param filename The full path of the file.
+     * @param charsetName The charset name, for example "UTF-8" or "GBK".
+     * @return The composed Document object.
+     * @throws IOException If there is any IO error.
+     */
+    public static Document importText(yView view, String filename, String charsetName)
+        throws IOException
+    {
+        Assert.checkNull(filename);
+        CharsetDecoder decoder = Charset.forName(charsetName).newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        Document doc = new Document();
+        doc.setView(view);
+        TextImporter importer = new TextImporter(doc);
+
+        FileInputStream in = new FileInputStream(filename);
+        try {
+            FileChannel channel = in.getChannel();
+            ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+            boolean eof = false;
+            while(!eof) {
+                eof = channel.read(bytes)<0;
+                bytes.flip();
+                CoderResult result;
+                do {
+                    result = decoder.decode(bytes, chars, eof);
+                    importer.append(chars);
+                } while(result.isOverflow());
+                bytes.compact();
+            }
+            while(decoder.flush(chars).isOverflow())
+                importer.append(chars);
+            importer.append(chars);
+        }
+        finally {
+            in.close();
+        }
+        importer.finish();
+
+        // compose only once:
+        doc.compose();
+        return doc;
+    }
+
+    // consume the decoded chars and clear the buffer:
+    private void append(CharBuffer chars) {
+        chars.flip();
+        char[] a = chars.array();
+        int end = chars.arrayOffset() + chars.limit();
+        CharFactory factory = CharFactory.instance();
+        for(int i=chars.arrayOffset() + chars.position(); i<end; i++) {
+            char c = a[i];
+            if(this.first) {
+                this.first = false;
+                if(c==BOM)
+                    continue;
+            }
+            if(c=='\n' && this.afterReturn) {
+                this.afterReturn = false;
+                continue;
+            }
+            if(c=='\r' || c=='\n') {
+                endLine();
+                this.afterReturn = (c=='\r');
+                continue;
+            }
+            this.afterReturn = false;
+            if(this.length==this.line.length) {
+                Char[] temp = new Char[this.length * 2];
+                System.arraycopy(this.line, 0, temp, 0, this.length);
+                this.line = temp;
+            }
+            this.line[this.length++] = factory.createChar(c);
+        }
+        chars.clear();
+    }
+
+    // the last line has no line break, and an empty file is one empty paragraph:
+    private void finish() {
+        endLine();
+    }
+
+    private void endLine() {
+        Paragraph p = new Paragraph(this.document);
+        p.append(this.line, this.length);
+        this.document.addParagraph(p);
+        this.length = 0;
+    }
+}
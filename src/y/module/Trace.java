@@ -0,0 +1,238 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.module;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trace records what the editor does (compose, paint, commands, caret)
+ * into a fixed ring buffer in memory, instead of printing it. It is off
+ * by default, then every call returns after reading one volatile field.
+ * When it is on, recording an event takes a slot by one atomic increment
+ * and fills it, there is no lock and no output, so it can stay on while
+ * typing. The oldest events are overwritten. <br>
+ *
+ * Turn it on by "-Dy.trace=true" or setEnabled(true). With
+ * "-Dy.trace.file=&lt;path&gt;" the buffer is also written to the file
+ * when the JVM exits. <br>
+ *
+ * A timed event is recorded by: <br>
+ * <code>
+ *     long t = Trace.begin(); <br>
+ *     ... <br>
+ *     Trace.end("DocumentCompositor.compose", t, paragraphs, pages); <br>
+ * </code>
+ * <b>NOTE</b>: The detail object is only converted to a String when the
+ * buffer is dumped, so pass immutable objects, or objects whose
+ * toString() does not change.
+ *
+ * @author y&y
+ */
+public final class Trace {
+
+    // must be a power of 2:
+    private static final int CAPACITY = 1 << 14;
+
+    private static volatile boolean enabled = Boolean.getBoolean("y.trace");
+
+    // the sequence number of the next event:
+    private static final AtomicLong next = new AtomicLong();
+
+    private static final Event[] events = new Event[CAPACITY];
+
+    // the time of the first event, all times are relative to it:
+    private static final long origin = System.nanoTime();
+
+    static {
+        for(int i=0; i<CAPACITY; i++)
+            events[i] = new Event();
+        final String file = System.getProperty("y.trace.file");
+        if(file!=null) {
+            Runtime.getRuntime().addShutdownHook(new Thread("Trace dump") {
+                public void run() {
+                    try {
+                        dump(file);
+                    }
+                    catch(IOException e) {
+                        System.err.println("Trace: cannot write " + file + ": " + e);
+                    }
+                }
+            });
+        }
+    }
+
+    // prevent the client to create instance:
+    private Trace() {}
+
+    // one slot of the ring buffer:
+    private static final class Event {
+        // the sequence number when complete, or -1 while it is written:
+        volatile long seq = -1;
+        String name;
+        long time;
+        long duration;
+        int arg0;
+        int arg1;
+        Object detail;
+    }
+
+    /**
+     * Is the trace on? Callers that must build a detail object can check
+     * it first.
+     *
+     * @return True if the events are recorded.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turn the trace on or off. The recorded events are kept.
+     *
+     * @param b True to record the events.
+     */
+    public static void setEnabled(boolean b) {
+        enabled = b;
+    }
+
+    /**
+     * Get the start time of a timed event.
+     *
+     * @return The current time in nanoseconds, or 0 if the trace is off.
+     */
+    public static long begin() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Record a timed event.
+     *
+     * @param name The event name, "Class.method" by convention.
+     * @param begin The value returned by begin() or System.nanoTime().
+     * @param arg0 The first parameter.
+     * @param arg1 The second parameter.
+     */
+    public static void end(String name, long begin, int arg0, int arg1) {
+        if(enabled && begin!=0L)
+            record(name, begin, System.nanoTime() - begin, arg0, arg1, null);
+    }
+
+    /**
+     * Record a timed event.
+     *
+     * @param name The event name, "Class.method" by convention.
+     * @param begin The value returned by begin() or System.nanoTime().
+     * @param detail The detail object, may be null.
+     */
+    public static void end(String name, long begin, Object detail) {
+        if(enabled && begin!=0L)
+            record(name, begin, System.nanoTime() - begin, 0, 0, detail);
+    }
+
+    /**
+     * Record an instant event.
+     *
+     * @param name The event name, "Class.method" by convention.
+     * @param arg0 The first parameter.
+     * @param arg1 The second parameter.
+     */
+    public static void event(String name, int arg0, int arg1) {
+        if(enabled)
+            record(name, System.nanoTime(), -1L, arg0, arg1, null);
+    }
+
+    /**
+     * Record an instant event.
+     *
+     * @param name The event name, "Class.method" by convention.
+     * @param detail The detail object, may be null.
+     */
+    public static void event(String name, Object detail) {
+        if(enabled)
+            record(name, System.nanoTime(), -1L, 0, 0, detail);
+    }
+
+    private static void record(String name, long time, long duration, int arg0, int arg1, Object detail) {
+        long seq = next.getAndIncrement();
+        Event e = events[(int)seq & (CAPACITY - 1)];
+        e.seq = -1L;
+        e.name = name;
+        e.time = time;
+        e.duration = duration;
+        e.arg0 = arg0;
+        e.arg1 = arg1;
+        e.detail = detail;
+        e.seq = seq;
+    }
+
+    /**
+     * Drop all recorded events.
+     */
+    public static void clear() {
+        // events recorded while clearing may be lost, that is fine:
+        for(int i=0; i<CAPACITY; i++)
+            events[i].seq = -1L;
+    }
+
+    /**
+     * Write the recorded events to a file.
+     *
+     * @param filename The full path of the file.
+     * @throws IOException If there is any IO error.
+     */
+    public static void dump(String filename) throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filename), "UTF-8"));
+        try {
+            dump(w);
+        }
+        finally {
+            w.close();
+        }
+    }
+
+    /**
+     * Write the recorded events, the oldest first, one per line:
+     * "time(us) duration(us) name arg0 arg1 detail". The duration of an
+     * instant event is "-".
+     *
+     * @param out Receive the events.
+     * @throws IOException If there is any IO error.
+     */
+    public static void dump(Writer out) throws IOException {
+        long last = next.get();
+        long first = Math.max(0L, last - CAPACITY);
+        StringBuffer sb = new StringBuffer(128);
+        for(long seq=first; seq<last; seq++) {
+            Event e = events[(int)seq & (CAPACITY - 1)];
+            if(e.seq!=seq)
+                continue; // being written, or already overwritten.
+            String name = e.name;
+            long time = e.time;
+            long duration = e.duration;
+            int arg0 = e.arg0;
+            int arg1 = e.arg1;
+            Object detail = e.detail;
+            if(e.seq!=seq)
+                continue; // overwritten while reading.
+            sb.setLength(0);
+            sb.append((time - origin) / 1000).append(' ');
+            if(duration<0)
+                sb.append('-');
+            else
+                sb.append(duration / 1000);
+            sb.append(' ').append(name).append(' ').append(arg0).append(' ').append(arg1);
+            if(detail!=null)
+                sb.append(' ').append(detail);
+            sb.append('\n');
+            out.write(sb.toString());
+        }
+        out.flush();
+    }
+}
@@ -25,6 +25,12 @@ public class Application {
     // store file argument:
     private String argFile = null;
 
+    // layout without a Display, set by -Dy.headless=true or setHeadless():
+    private boolean headless = Boolean.getBoolean("y.headless");
+
+    // measure the chars and fonts for the layout:
+    private yMeasurer measurer = null;
+
     /**
      * Get the file name from command line, or null if no file is specified. 
      * 
@@ -116,4 +122,41 @@ public class Application {
     public yFrame getFrame() {
         return this.frame;
     }
+
+    /**
+     * If the application runs without a Display. In this case fonts 
+     * and colors have no native resources and the layout is measured 
+     * by yHeadlessMeasurer. 
+     * 
+     * @return True if it is headless.
+     */
+    public boolean isHeadless() {
+        return this.headless;
+    }
+
+    /**
+     * Set the application to run without a Display, it must be called 
+     * before any font or color is created. 
+     * 
+     * @param headless True if no Display is used.
+     */
+    public void setHeadless(boolean headless) {
+        this.headless = headless;
+        this.measurer = null;
+    }
+
+    /**
+     * Get the measurer used by the layout. 
+     * 
+     * @return The yMeasurer object.
+     */
+    public yMeasurer getMeasurer() {
+        if(this.measurer==null) {
+            if(this.headless)
+                this.measurer = yHeadlessMeasurer.instance();
+            else
+                this.measurer = new yGraphicsMeasurer();
+        }
+        return this.measurer;
+    }
 }
@@ -38,6 +38,11 @@ public class yChineseLanguage implements yLanguage {
 		return "ϵ";
 	}
 
+	@Override
+	public String getDumpMetricsLabel() {
+		return "ͳ...";
+	}
+
 	@Override
 	public String getDeleteLabel() {
 		return "ɾ";
@@ -122,6 +127,36 @@ public class yChineseLanguage implements yLanguage {
 		return new String[] {"洢ļ(*.yy)"};
 	}
 	
+	@Override
+	public String[] getTextFilterNames() {
+		return new String[] {"ıļ(*.txt;*.log)", "ļ(*.*)"};
+	}
+	
+	@Override
+	public String getImportTextLabel() {
+		return "ı...";
+	}
+	
+	@Override
+	public String[] getHtmlFilterNames() {
+		return new String[] {"ҳ(*.html)"};
+	}
+	
+	@Override
+	public String getExportHtmlLabel() {
+		return "HTML...";
+	}
+	
+	@Override
+	public String[] getRtfFilterNames() {
+		return new String[] {"RTFĵ(*.rtf)"};
+	}
+	
+	@Override
+	public String getExportRtfLabel() {
+		return "RTF...";
+	}
+	
 	@Override
 	public String getRedoLabel() {
 		return "\tCtrl+Y";
@@ -198,4 +233,9 @@ public class yChineseLanguage implements yLanguage {
 		// TODO Auto-generated method stub
 		return "һҳ";
 	}
+
+	@Override
+	public String getStatusBarFormat() {
+		return "ҳ: %d   : %d   : %d   ַ: %d (ƿո %d)";
+	}
 }
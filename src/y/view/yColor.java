@@ -87,7 +87,8 @@ public final class yColor implements Serializable{
         removeRef();
         if(this.refCount>0)
             return;
-        this.color.dispose();
+        if(this.color!=null)
+            this.color.dispose();
         ((yColorFactory)yColorFactory.instance()).remove(this);
     }
 
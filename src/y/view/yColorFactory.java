@@ -6,6 +6,8 @@ package y.view;
 
 import java.util.*;
 
+import y.module.Metrics;
+
 /**
  * The implementation of ColorFactory. 
  * 
@@ -25,6 +27,12 @@ public class yColorFactory{
 
     // store the Display object:
     private org.eclipse.swt.widgets.Display display = null;
+
+    private yColorFactory() {
+        Metrics.gauge("yColorFactory.colors", new Metrics.Gauge() {
+            public long value() { return size(); }
+        });
+    }
     
     /**
      * Get the singleton instance of the ColorFactory. 
@@ -58,7 +66,7 @@ public class yColorFactory{
      * @param b Blue, 0-255.
      * @return The RGB color.
      */
-    public yColor createColor(int r, int g, int b) {
+    public synchronized yColor createColor(int r, int g, int b) {
         // first check if it already cached:
         Integer key = yColor.toKey(r, g, b);
         Object o = colors.get(key);
@@ -68,11 +76,15 @@ public class yColorFactory{
             return color;
         }
 
-        // if not found, we create a new color:
-        if(this.display==null) {
-            this.display = ((y.view.yFrame)(y.view.Application.instance().getFrame())).getDisplay();
+        // if not found, we create a new color (no native color if headless):
+        org.eclipse.swt.graphics.Color c = null;
+        if(!Application.instance().isHeadless()) {
+            if(this.display==null) {
+                this.display = ((y.view.yFrame)(y.view.Application.instance().getFrame())).getDisplay();
+            }
+            c = new org.eclipse.swt.graphics.Color(display, r, g, b);
         }
-        yColor newColor = new yColor(key, new org.eclipse.swt.graphics.Color(display, r, g, b));
+        yColor newColor = new yColor(key, c);
         // put it to cache:
         colors.put(key, newColor);
         return newColor;
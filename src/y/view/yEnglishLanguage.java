@@ -38,6 +38,11 @@ public class yEnglishLanguage implements yLanguage {
 		return "&Contact Author...";
 	}
 
+	@Override
+	public String getDumpMetricsLabel() {
+		return "&Dump Metrics...";
+	}
+
 	@Override
 	public String getDeleteLabel() {
 		return "&Delete";
@@ -157,6 +162,36 @@ public class yEnglishLanguage implements yLanguage {
 		return new String[] {"file(*.yy)"};
 	}
 
+	@Override
+	public String[] getTextFilterNames() {
+		return new String[] {"Text files(*.txt;*.log)", "All files(*.*)"};
+	}
+
+	@Override
+	public String getImportTextLabel() {
+		return "&Import Text...";
+	}
+
+	@Override
+	public String[] getHtmlFilterNames() {
+		return new String[] {"Web page(*.html)"};
+	}
+
+	@Override
+	public String getExportHtmlLabel() {
+		return "Export &HTML...";
+	}
+
+	@Override
+	public String[] getRtfFilterNames() {
+		return new String[] {"Rich text(*.rtf)"};
+	}
+
+	@Override
+	public String getExportRtfLabel() {
+		return "Export &RTF...";
+	}
+
 	@Override
 	public String getTitle() {
 		return "Word Editor";
@@ -198,4 +233,9 @@ public class yEnglishLanguage implements yLanguage {
 		// TODO Auto-generated method stub
 		return "Pre";
 	}
+
+	@Override
+	public String getStatusBarFormat() {
+		return "Pages: %d   Paragraphs: %d   Words: %d   Characters: %d (%d without spaces)";
+	}
 }
@@ -60,9 +60,6 @@ public class yFont implements Externalizable{
 
     private String m_toString = null; // cache "toString()"
 
-    // store the defaultGraphics:
-    private yGraphics g = null;
-
     yFont(String name, int size, boolean bold, boolean italic, boolean underlined,
         org.eclipse.swt.graphics.Font font)
     {
@@ -76,16 +73,7 @@ public class yFont implements Externalizable{
         this.font = font;
 
         // try to measure the font height:
-        if(g==null)
-            g = (yGraphics)y.view.Application.instance().getFrame().getDefaultGraphics();
-        // store the original font:
-        org.eclipse.swt.graphics.Font orgFont = g.gc.getFont();
-        // set new font:
-        g.gc.setFont(font);
-        // get the font height:
-        this.height = g.gc.getFontMetrics().getHeight();
-        // ok, restore the original font:
-        g.gc.setFont(orgFont);
+        this.height = Application.instance().getMeasurer().getFontHeight(this);
 
         // once it created, it has one reference:
         addRef();
@@ -96,16 +84,7 @@ public class yFont implements Externalizable{
     }
     
     private void resortGraphics() {
-        if(g==null)
-            g = (yGraphics)y.view.Application.instance().getFrame().getDefaultGraphics();
-        // store the original font:
-        org.eclipse.swt.graphics.Font orgFont = g.gc.getFont();
-        // set new font:
-        g.gc.setFont(font);
-        // get the font height:
-        this.height = g.gc.getFontMetrics().getHeight();
-        // ok, restore the original font:
-        g.gc.setFont(orgFont);
+        this.height = Application.instance().getMeasurer().getFontHeight(this);
     }
     /**
      * @return Returns the font name.
@@ -207,7 +186,8 @@ public class yFont implements Externalizable{
             return;
         // if no other object which referenced this font, 
         // then distroy it:
-        font.dispose();
+        if(font!=null)
+            font.dispose();
         ((yFontFactory)yFontFactory.instance()).remove(this);
     }
 
@@ -9,6 +9,8 @@ import java.util.*;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Display;
 
+import y.module.Metrics;
+
 
 /**
  * The implementation of FontFactory. 
@@ -35,7 +37,11 @@ public class yFontFactory{
     private static yFontFactory instance = new yFontFactory();
 
     // to prevent the client to create a new instance:
-    protected yFontFactory() {}
+    protected yFontFactory() {
+        Metrics.gauge("yFontFactory.fonts", new Metrics.Gauge() {
+            public long value() { return fontCount(); }
+        });
+    }
     
     /**
      * Get the instance of the FontFactory. 
@@ -51,7 +57,7 @@ public class yFontFactory{
      * 
      * @see y.module.ui.FontFactory#createFont(java.lang.String, int, boolean, boolean, boolean)
      */
-    public yFont createFont(String name, int size, boolean bold, boolean italic, boolean underlined) {
+    public synchronized yFont createFont(String name, int size, boolean bold, boolean italic, boolean underlined) {
         // first lookup if it already existed:
         String key = yFont.toKey(name, size, bold, italic, underlined);
         Object obj = fonts.get(key);
@@ -62,14 +68,17 @@ public class yFontFactory{
             return _font;
         }
 
-        if(display==null) {
-            yFrame frame = (yFrame)Application.instance().getFrame();
-            display = frame.getDisplay();
+        // no native font if headless:
+        org.eclipse.swt.graphics.Font f = null;
+        if(!Application.instance().isHeadless()) {
+            if(display==null) {
+                yFrame frame = (yFrame)Application.instance().getFrame();
+                display = frame.getDisplay();
+            }
+            // create real font resource:
+            int style = ( bold ? SWT.BOLD : SWT.NORMAL ) | ( italic ? SWT.ITALIC : SWT.NORMAL );
+            f = new org.eclipse.swt.graphics.Font(display, name, size, style);
         }
-        // create real font resource:
-        int style = ( bold ? SWT.BOLD : SWT.NORMAL ) | ( italic ? SWT.ITALIC : SWT.NORMAL );
-        org.eclipse.swt.graphics.Font f = new org.eclipse.swt.graphics.Font(
-            display, name, size, style);
         // wrap as jexi.ui.Font:
         yFont font = new yFont(name, size, bold, italic, underlined, f);
         // cache it:
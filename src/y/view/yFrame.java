@@ -14,6 +14,8 @@ import org.eclipse.swt.widgets.*;
 import org.eclipse.swt.program.*;
 
 import y.command.CommandManager;
+import y.module.DocumentStatistics;
+import y.module.Metrics;
 
 /**
  * The implementation of Frame. And this is the real window 
@@ -68,6 +70,9 @@ public class yFrame{
     private  MenuItem mnuFile;
     private  MenuItem mnuFileNew;
     private  MenuItem mnuFileOpen;
+    private  MenuItem mnuFileImportText;
+    private  MenuItem mnuFileExportHtml;
+    private  MenuItem mnuFileExportRtf;
 //    private  MenuItem mnuFileClose;
     private  MenuItem mnuFileSave;
     private  MenuItem mnuFileSaveAs;
@@ -81,6 +86,7 @@ public class yFrame{
     private  MenuItem mnuInsertPictureFromFile;
     private  MenuItem mnuHelp;
     private  MenuItem mnuHelpContactAuthor;
+    private  MenuItem mnuHelpDumpMetrics;
     private  MenuItem mnuHelpAbout;
     
     private  ToolItem tbNew;
@@ -105,6 +111,10 @@ public class yFrame{
     private transient ToolItem pageNext;
     private transient ToolItem pagePre;
 //    private transient ToolItem page;
+
+    private Label statusBar;
+    // the counts shown in the status bar, of the document in the view:
+    private DocumentStatistics statistics = null;
     /**
      * Get the display object. 
      * 
@@ -173,6 +183,8 @@ public class yFrame{
         
         createNavigationToolBar();
 
+        createStatusBar();
+
         ///////////////////////////////////////////////////////////////////////
         // ok, create the view:
         //this.view = new yTextView(this.textView);
@@ -307,6 +319,24 @@ public class yFrame{
             }
         });
         
+        mnuFileImportText.addSelectionListener(new SelectionAdapter() {
+            public void widgetSelected(SelectionEvent e) {
+                view.onImportTextButtonClick();
+            }
+        });
+        
+        mnuFileExportHtml.addSelectionListener(new SelectionAdapter() {
+            public void widgetSelected(SelectionEvent e) {
+                view.onExportHtmlButtonClick();
+            }
+        });
+        
+        mnuFileExportRtf.addSelectionListener(new SelectionAdapter() {
+            public void widgetSelected(SelectionEvent e) {
+                view.onExportRtfButtonClick();
+            }
+        });
+        
         mnuFileExit.addSelectionListener(new SelectionAdapter() {
             public void widgetSelected(SelectionEvent e) {
                 System.out.println(e.toString());
@@ -476,6 +506,18 @@ public class yFrame{
         mnuFileOpen.setEnabled(true);
         mnuFileOpen.setText(language.getOpenLabel());
 
+        mnuFileImportText = new MenuItem(popupmenu, SWT.NONE);
+        mnuFileImportText.setEnabled(true);
+        mnuFileImportText.setText(language.getImportTextLabel());
+
+        mnuFileExportHtml = new MenuItem(popupmenu, SWT.NONE);
+        mnuFileExportHtml.setEnabled(true);
+        mnuFileExportHtml.setText(language.getExportHtmlLabel());
+
+        mnuFileExportRtf = new MenuItem(popupmenu, SWT.NONE);
+        mnuFileExportRtf.setEnabled(true);
+        mnuFileExportRtf.setText(language.getExportRtfLabel());
+
 //        mnuFileClose = new MenuItem(popupmenu, SWT.NONE);
 //        mnuFileClose.setEnabled(true);
 //        mnuFileClose.setText(language.getCloseLabel());
@@ -559,6 +601,25 @@ public class yFrame{
         mnuHelpContactAuthor.setText(language.getContactAuthorLabel());
         mnuHelpContactAuthor.setEnabled(false);
 
+        mnuHelpDumpMetrics = new MenuItem(popupmenu_8, SWT.NONE);
+        mnuHelpDumpMetrics.setText(language.getDumpMetricsLabel());
+        mnuHelpDumpMetrics.addSelectionListener(new SelectionAdapter() {
+            public void widgetSelected(SelectionEvent e) {
+                FileDialog dialog = new FileDialog (shell, SWT.SAVE);
+                dialog.setFilterNames (language.getTextFilterNames());
+                dialog.setFilterExtensions (new String [] {"*.txt;*.log", "*.*"});
+                String filePath = dialog.open();
+                if(filePath!=null) {
+                    try {
+                        Metrics.dump(filePath);
+                    }
+                    catch(java.io.IOException ex) {
+                        ex.printStackTrace();
+                    }
+                }
+            }
+        });
+
         new MenuItem(popupmenu_8, SWT.SEPARATOR);
 
         mnuHelpAbout = new MenuItem(popupmenu_8, SWT.NONE);
@@ -924,6 +985,9 @@ new ToolItem(toolBarFormat, SWT.SEPARATOR);
     	mnuFile.setText(language.getFileLabel());
     	mnuFileNew.setText(language.getFileLabel());
     	mnuFileOpen.setText(language.getOpenLabel());
+    	mnuFileImportText.setText(language.getImportTextLabel());
+    	mnuFileExportHtml.setText(language.getExportHtmlLabel());
+    	mnuFileExportRtf.setText(language.getExportRtfLabel());
 //    	mnuFileClose.setText(language.getCloseLabel());
     	mnuFileSave.setText(language.getSaveDocumentLabel());
     	mnuFileSaveAs.setText(language.getSaveAsLabel());
@@ -938,6 +1002,7 @@ new ToolItem(toolBarFormat, SWT.SEPARATOR);
 
         mnuHelp.setText(language.getHelpLabel());
         mnuHelpContactAuthor.setText(language.getContactAuthorLabel());
+        mnuHelpDumpMetrics.setText(language.getDumpMetricsLabel());
         mnuHelpAbout.setText(language.getAboutLabel());
         
     	String[] color_names = language.getColorNames();
@@ -947,6 +1012,7 @@ new ToolItem(toolBarFormat, SWT.SEPARATOR);
     	
     	String[] fonts = language.getFontNames();
     	cmbFontName.setItems(fonts);
+    	updateStatusBar();
     }
     
     public void creatMouseRBtnMenu(){
@@ -985,6 +1051,33 @@ new ToolItem(toolBarFormat, SWT.SEPARATOR);
     	}
     }
     
+    // create the status bar at the bottom of the window:
+    private void createStatusBar() {
+        statusBar = new Label(shell, SWT.NONE);
+        statusBar.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+    }
+
+    /**
+     * Show the counts of the document in the status bar. It is called
+     * after the view is drawn, only the paragraphs changed since the
+     * last call are counted again.
+     */
+    public void updateStatusBar() {
+        y.module.Document document = view.getDocument();
+        if(statistics==null || statistics.getDocument()!=document) {
+            // a new document was created or opened:
+            if(statistics!=null)
+                statistics.dispose();
+            statistics = new DocumentStatistics(document);
+        }
+        String text = String.format(language.getStatusBarFormat(),
+            statistics.getPageCount(), statistics.getParagraphCount(),
+            statistics.getWordCount(), statistics.getCharCount(),
+            statistics.getCharCountNoSpace());
+        if(!text.equals(statusBar.getText()))
+            statusBar.setText(text);
+    }
+
     public boolean isPageChanged(){
     	return !(navigationPage.size() == (view.pageChangedNotif()+ 2));
     }
@@ -0,0 +1,42 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.view;
+
+/**
+ * yGraphicsMeasurer measures by the default graphics of the frame. 
+ * <b>NOTE</b>: It needs the Display, so it must be used on the UI thread. 
+ * 
+ * @author y&y
+ */
+public final class yGraphicsMeasurer implements yMeasurer {
+
+    /* (non-Javadoc)
+     * @see y.view.yMeasurer#getCharWidth(y.view.yFont, char)
+     */
+    public int getCharWidth(yFont font, char c) {
+        // the end of paragraph has no width, no need to switch the font:
+        if(c=='\r')
+            return 0;
+        yGraphics g = Application.instance().getFrame().getDefaultGraphics();
+        g.setFont(font);
+        return g.getCharWidth(c);
+    }
+
+    /* (non-Javadoc)
+     * @see y.view.yMeasurer#getFontHeight(y.view.yFont)
+     */
+    public int getFontHeight(yFont font) {
+        yGraphics g = Application.instance().getFrame().getDefaultGraphics();
+        // store the original font:
+        org.eclipse.swt.graphics.Font orgFont = g.gc.getFont();
+        // set new font:
+        g.gc.setFont(font.nativeFont());
+        // get the font height:
+        int height = g.gc.getFontMetrics().getHeight();
+        // ok, restore the original font:
+        g.gc.setFont(orgFont);
+        return height;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.view;
+
+/**
+ * yHeadlessMeasurer measures by bundled metric tables, it needs no 
+ * Display and no native font, so batch jobs and tests can paginate 
+ * documents on servers. <br>
+ * 
+ * The tables are the advance widths of the printable ASCII chars in 
+ * 1/1000 em, taken from the AFM files of the standard PostScript fonts 
+ * Helvetica, Times and Courier (regular and bold; italic uses the same 
+ * widths). A font is mapped to the nearest of them by its name. CJK and 
+ * full-width chars are 1 em, the other chars use the width of 'n', and 
+ * a tab is 4 spaces. The font size is in points at 96 dpi. <br>
+ * 
+ * The widths are close to, but not the same as, the ones of the 
+ * native fonts, so a headless layout may break rows differently. 
+ * <b>NOTE</b>: It has no state and can be used by any thread. 
+ * 
+ * @author y&y
+ */
+public final class yHeadlessMeasurer implements yMeasurer {
+
+    // the height of a font in em, including the leading:
+    private static final float LINE_HEIGHT = 1.15f;
+
+    // the fixed width of Courier:
+    private static final int COURIER = 600;
+
+    // the full width of CJK chars:
+    private static final int WIDE = 1000;
+
+    // advance widths of ' '..'~' in 1/1000 em:
+    private static final short[] HELVETICA = {
+        278, 278, 355, 556, 556, 889, 667, 191, 333, 333, 389, 584, 278, 333, 278, 278,
+        556, 556, 556, 556, 556, 556, 556, 556, 556, 556, 278, 278, 584, 584, 584, 556,
+        1015, 667, 667, 722, 722, 667, 611, 778, 722, 278, 500, 667, 556, 833, 722, 778,
+        667, 778, 722, 667, 611, 722, 667, 944, 667, 667, 611, 278, 278, 278, 469, 556,
+        333, 556, 556, 500, 556, 556, 278, 556, 556, 222, 222, 500, 222, 833, 556, 556,
+        556, 556, 333, 500, 278, 556, 500, 722, 500, 500, 500, 334, 260, 334, 584
+    };
+
+    private static final short[] HELVETICA_BOLD = {
+        278, 333, 474, 556, 556, 889, 722, 238, 333, 333, 389, 584, 278, 333, 278, 278,
+        556, 556, 556, 556, 556, 556, 556, 556, 556, 556, 333, 333, 584, 584, 584, 611,
+        975, 722, 722, 722, 722, 667, 611, 778, 722, 278, 556, 722, 611, 833, 722, 778,
+        667, 778, 722, 667, 611, 722, 667, 944, 667, 667, 611, 333, 278, 333, 584, 556,
+        333, 556, 611, 556, 611, 556, 333, 611, 611, 278, 278, 556, 278, 889, 611, 611,
+        611, 611, 389, 556, 333, 611, 556, 778, 556, 556, 500, 389, 280, 389, 584
+    };
+
+    private static final short[] TIMES = {
+        250, 333, 408, 500, 500, 833, 778, 180, 333, 333, 500, 564, 250, 333, 250, 278,
+        500, 500, 500, 500, 500, 500, 500, 500, 500, 500, 278, 278, 564, 564, 564, 444,
+        921, 722, 667, 667, 722, 611, 556, 722, 722, 333, 389, 722, 611, 889, 722, 722,
+        556, 722, 667, 556, 611, 722, 722, 944, 722, 722, 611, 333, 278, 333, 469, 500,
+        333, 444, 500, 444, 500, 444, 333, 500, 500, 278, 278, 500, 278, 778, 500, 500,
+        500, 500, 333, 389, 278, 500, 500, 722, 500, 500, 444, 480, 200, 480, 541
+    };
+
+    private static final short[] TIMES_BOLD = {
+        250, 333, 555, 500, 500, 1000, 833, 278, 333, 333, 500, 570, 250, 333, 250, 278,
+        500, 500, 500, 500, 500, 500, 500, 500, 500, 500, 333, 333, 570, 570, 570, 500,
+        930, 722, 667, 722, 722, 667, 611, 778, 778, 389, 500, 778, 667, 944, 722, 778,
+        611, 778, 722, 556, 667, 722, 722, 1000, 722, 722, 667, 333, 278, 333, 581, 500,
+        333, 500, 556, 444, 556, 444, 333, 500, 556, 278, 333, 556, 278, 833, 556, 500,
+        556, 556, 444, 389, 333, 556, 500, 722, 500, 500, 444, 394, 220, 394, 520
+    };
+
+    private static final yHeadlessMeasurer instance = new yHeadlessMeasurer();
+
+    private yHeadlessMeasurer() {}
+
+    /**
+     * Get the singleton instance. 
+     * 
+     * @return The headless measurer.
+     */
+    public static yHeadlessMeasurer instance() {
+        return instance;
+    }
+
+    /* (non-Javadoc)
+     * @see y.view.yMeasurer#getCharWidth(y.view.yFont, char)
+     */
+    public int getCharWidth(yFont font, char c) {
+        if(c=='\r')
+            return 0;
+        return Math.round(emWidth(font, c) * pixelSize(font) / 1000f);
+    }
+
+    /* (non-Javadoc)
+     * @see y.view.yMeasurer#getFontHeight(y.view.yFont)
+     */
+    public int getFontHeight(yFont font) {
+        return Math.round(pixelSize(font) * LINE_HEIGHT);
+    }
+
+    // the em size in pixels:
+    private static float pixelSize(yFont font) {
+        return font.getSize() * 96 / 72f;
+    }
+
+    // the width in 1/1000 em:
+    private static int emWidth(yFont font, char c) {
+        short[] table = table(font);
+        int n = 1;
+        if(c=='\t') {
+            c = ' ';
+            n = 4;
+        }
+        if(c>=' ' && c<='~')
+            return n * (table==null ? COURIER : table[c - ' ']);
+        if(isWide(c))
+            return WIDE;
+        return table==null ? COURIER : table['n' - ' '];
+    }
+
+    // find the table of the font, or null if it is Courier:
+    private static short[] table(yFont font) {
+        String name = font.getName().toLowerCase();
+        if(name.indexOf("courier")>=0 || name.indexOf("mono")>=0
+            || name.indexOf("consol")>=0 || name.indexOf("fixed")>=0)
+            return null;
+        boolean serif = name.indexOf("times")>=0 || name.indexOf("roman")>=0
+            || name.indexOf("serif")>=0 && name.indexOf("sans")<0
+            || name.indexOf("song")>=0 || name.indexOf("georgia")>=0;
+        if(serif)
+            return font.getBold() ? TIMES_BOLD : TIMES;
+        return font.getBold() ? HELVETICA_BOLD : HELVETICA;
+    }
+
+    // CJK ideographs, kana, hangul and full-width forms:
+    private static boolean isWide(char c) {
+        return (c>=0x1100 && c<=0x115f)
+            || (c>=0x2e80 && c<=0xa4cf)
+            || (c>=0xac00 && c<=0xd7a3)
+            || (c>=0xf900 && c<=0xfaff)
+            || (c>=0xfe30 && c<=0xfe4f)
+            || (c>=0xff00 && c<=0xff60)
+            || (c>=0xffe0 && c<=0xffe6);
+    }
+}
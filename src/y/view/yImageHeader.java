@@ -0,0 +1,111 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.view;
+
+/**
+ * Read the size of a picture from the header of its file, without 
+ * decoding the pixels. PNG, GIF, BMP and JPEG are known, for the other 
+ * formats the picture must be decoded to know its size. 
+ * 
+ * @author y&y
+ */
+final class yImageHeader {
+
+    private yImageHeader() {}
+
+    /**
+     * Read the size of the picture. 
+     * 
+     * @param b The bytes of the picture file.
+     * @return {width, height}, or null if the format is unknown or the 
+     *         header is broken.
+     */
+    static int[] readSize(byte[] b) {
+        try {
+            if(b.length>=24 && (b[0] & 0xff)==0x89 && b[1]=='P' && b[2]=='N' && b[3]=='G')
+                return check(int32(b, 16), int32(b, 20)); // IHDR is the first chunk.
+            if(b.length>=13 && b[0]=='G' && b[1]=='I' && b[2]=='F')
+                return readGifSize(b);
+            if(b.length>=26 && b[0]=='B' && b[1]=='M') {
+                if(int32le(b, 14)==12) // OS/2 BITMAPCOREHEADER
+                    return check(int16le(b, 18), int16le(b, 20));
+                return check(int32le(b, 18), Math.abs(int32le(b, 22)));
+            }
+            if(b.length>=4 && (b[0] & 0xff)==0xff && (b[1] & 0xff)==0xd8)
+                return readJpegSize(b);
+        }
+        catch(ArrayIndexOutOfBoundsException e) {
+            // truncated file
+        }
+        return null;
+    }
+
+    // the size of the first image, which is decoded, not of the logical
+    // screen, it can be smaller:
+    private static int[] readGifSize(byte[] b) {
+        int i = 13;
+        int packed = b[10] & 0xff;
+        if((packed & 0x80)!=0) // global color table
+            i += 3 << ((packed & 0x7) + 1);
+        while(true) {
+            int block = b[i] & 0xff;
+            if(block==0x2c) // image descriptor
+                return check(int16le(b, i + 5), int16le(b, i + 7));
+            if(block!=0x21) // the trailer, or a broken file
+                return null;
+            // skip the extension: its label, then the sub-blocks up to the empty one:
+            i += 2;
+            while(b[i]!=0)
+                i += 1 + (b[i] & 0xff);
+            i++;
+        }
+    }
+
+    // walk the segments to the frame header (SOFn):
+    private static int[] readJpegSize(byte[] b) {
+        int i = 2;
+        while(i + 4<b.length) {
+            if((b[i] & 0xff)!=0xff)
+                return null;
+            int marker = b[i+1] & 0xff;
+            if(marker==0xff) { // fill byte
+                i++;
+                continue;
+            }
+            if(marker==0x01 || (marker>=0xd0 && marker<=0xd7)) { // no length
+                i += 2;
+                continue;
+            }
+            if(marker>=0xc0 && marker<=0xcf && marker!=0xc4 && marker!=0xc8 && marker!=0xcc)
+                return check(int16(b, i + 7), int16(b, i + 5));
+            if(marker==0xd9 || marker==0xda) // end of image, or start of scan before a frame
+                return null;
+            i += 2 + int16(b, i + 2);
+        }
+        return null;
+    }
+
+    private static int[] check(int width, int height) {
+        if(width<=0 || height<=0)
+            return null;
+        return new int[] { width, height };
+    }
+
+    private static int int16(byte[] b, int i) {
+        return ((b[i] & 0xff)<<8) | (b[i+1] & 0xff);
+    }
+
+    private static int int16le(byte[] b, int i) {
+        return (b[i] & 0xff) | ((b[i+1] & 0xff)<<8);
+    }
+
+    private static int int32(byte[] b, int i) {
+        return (int16(b, i)<<16) | int16(b, i + 2);
+    }
+
+    private static int int32le(byte[] b, int i) {
+        return int16le(b, i) | (int16le(b, i + 2)<<16);
+    }
+}
@@ -16,6 +16,9 @@ public interface yLanguage {
 	public String getFileLabel();
 	public String getNewDocumentLabel();
 	public String getOpenLabel();
+	public String getImportTextLabel();
+	public String getExportHtmlLabel();
+	public String getExportRtfLabel();
 	public String getCloseLabel();
 	public String getSaveDocumentLabel();
 	public String getSaveAsLabel();
@@ -35,10 +38,14 @@ public interface yLanguage {
 	public String getPictureFromFileLabel();
 	public String[] getFilterNames();
 	public String[] getExtensionsFilterNames();
+	public String[] getTextFilterNames();
+	public String[] getHtmlFilterNames();
+	public String[] getRtfFilterNames();
 	
 	public String getHelpLabel();
 	public String getFontLabel();
 	public String getContactAuthorLabel();
+	public String getDumpMetricsLabel();
 	
 	public String getAboutLabel();
 	public String getAboutViewTitle();
@@ -60,4 +67,6 @@ public interface yLanguage {
 	
 	public String getNextPage();	
 	public String getPrePage();
+
+	public String getStatusBarFormat();
 }
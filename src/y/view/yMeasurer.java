@@ -0,0 +1,36 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.view;
+
+/**
+ * yMeasurer measures the advance width of chars and the height of 
+ * fonts for the layout (ParagraphCompositor, Row, Caret and yFont). <br>
+ * 
+ * yGraphicsMeasurer measures by the default SWT GC of the frame, 
+ * yHeadlessMeasurer by bundled metric tables, so documents can be 
+ * paginated without a Display. Use Application.getMeasurer() to get 
+ * the current one. 
+ * 
+ * @author y&y
+ */
+public interface yMeasurer {
+
+    /**
+     * Get the advance width of the char. 
+     * 
+     * @param font The font of the char.
+     * @param c The char, '\r' is always 0.
+     * @return The width in pixels.
+     */
+    int getCharWidth(yFont font, char c);
+
+    /**
+     * Get the height of the font, including the leading. 
+     * 
+     * @param font The font.
+     * @return The height in pixels.
+     */
+    int getFontHeight(yFont font);
+}
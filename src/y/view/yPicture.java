@@ -7,8 +7,8 @@ package y.view;
 import java.io.*;
 
 
-import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.graphics.Rectangle;
 
 import y.module.Picture;
@@ -22,29 +22,73 @@ import y.module.Picture;
  */
 public class yPicture extends Picture implements Serializable {
 
-    private Image image;
+    // shared by the pictures of the same content:
+    private yPictureData data;
+    // the painted size, may be smaller than the pixels:
     private int width;
     private int height;
 
-    yPicture(String filename) throws IOException {
-        try {
-            image = new Image(Display.getCurrent(), filename);
-            Rectangle r = image.getBounds();
-            this.width = r.width;
-            this.height = r.height;
+    yPicture(byte[] bytes, int maxWidth, int maxHeight) throws IOException {
+        this.data = yPictureCache.instance().acquire(bytes, this);
+        this.width = data.getWidth();
+        this.height = data.getHeight();
+        // keep the aspect ratio:
+        if(this.width>maxWidth) {
+            this.height = Math.max(1, (int)((long)this.height * maxWidth / this.width));
+            this.width = maxWidth;
         }
-        catch(Exception e) {
-            e.printStackTrace();
-            throw new IOException();
+        if(this.height>maxHeight) {
+            this.width = Math.max(1, (int)((long)this.width * maxHeight / this.height));
+            this.height = maxHeight;
         }
     }
 
+    // the data is already shared by yPictureData.readResolve():
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        yPictureCache.instance().attach(this.data, this);
+    }
+
     /* (non-Javadoc)
      * @see jexi.core.Glyph#draw(jexi.ui.Graphics)
      */
     public void draw(yGraphics g) {
         yGraphics swtg = (yGraphics)g;
-        swtg.gc.drawImage(image, g.getCurrentX(), g.getCurrentY());
+        Image image = data.getImage(width, height);
+        if(image!=null) {
+            swtg.gc.drawImage(image, g.getCurrentX(), g.getCurrentY());
+            return;
+        }
+        // not decoded yet:
+        Image preview = data.getPreview();
+        if(preview!=null) {
+            // crop the black bars of a thumbnail of another aspect ratio:
+            Rectangle r = preview.getBounds();
+            int w = r.width;
+            int h = r.height;
+            if((long)w * height > (long)h * width)
+                w = Math.max(1, (int)((long)h * width / height));
+            else
+                h = Math.max(1, (int)((long)w * height / width));
+            swtg.gc.drawImage(preview, (r.width - w) / 2, (r.height - h) / 2, w, h,
+                g.getCurrentX(), g.getCurrentY(), width, height);
+        }
+        else
+            swtg.gc.drawRectangle(g.getCurrentX(), g.getCurrentY(), width - 1, height - 1);
+    }
+
+    /* (non-Javadoc)
+     * @see y.module.Picture#decodeLater(java.lang.Runnable)
+     */
+    public void decodeLater(Runnable done) {
+        data.decodeLater(width, height, done);
+    }
+
+    /* (non-Javadoc)
+     * @see y.module.Picture#cancelDecode(java.lang.Runnable)
+     */
+    public void cancelDecode(Runnable done) {
+        data.cancelDecode(done);
     }
 
     /* (non-Javadoc)
@@ -61,4 +105,14 @@ public class yPicture extends Picture implements Serializable {
         return this.height;
     }
 
+    /**
+     * Get the full size pixels of the picture, used by the exporters. 
+     * They are decoded from the bytes, the painted Image is smaller. 
+     * 
+     * @return The image data.
+     */
+    public ImageData getImageData() {
+        return data.decode();
+    }
+
 }
@@ -0,0 +1,203 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.view;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import org.eclipse.swt.widgets.Display;
+
+import y.module.Metrics;
+
+/**
+ * yPictureCache shares the data of identical pictures. The key is the 
+ * SHA-1 of the file bytes, not the file name, so the same logo inserted 
+ * a hundred times, or copied to another file, is decoded once and kept 
+ * once. <br>
+ * 
+ * Every yPicture holds a reference of its yPictureData. A picture is 
+ * released when it is garbage collected (it may still be in the undo 
+ * list after it is deleted from the document, so there is no explicit 
+ * release), and the data is evicted and its Image disposed when the 
+ * last picture is released. A daemon thread waits for the collected 
+ * pictures and releases them on the UI thread, so the Images do not 
+ * wait for the next picture to be inserted. <br>
+ * 
+ * <b>NOTE</b>: Must be used on the UI thread, because it creates and 
+ * disposes Images.
+ * 
+ * @author y&y
+ */
+public final class yPictureCache {
+
+    private static yPictureCache instance = new yPictureCache();
+
+    // key -> data:
+    private final Map<String, yPictureData> entries = new HashMap<String, yPictureData>();
+
+    // the collected pictures are put in the queue:
+    private final ReferenceQueue<yPicture> queue = new ReferenceQueue<yPicture>();
+
+    // reference of a picture -> its data:
+    private final Map<Reference<yPicture>, yPictureData> owners = new HashMap<Reference<yPicture>, yPictureData>();
+
+    // waits for the collected pictures, started by the first picture:
+    private Thread reaper;
+
+    private yPictureCache() {
+        Metrics.gauge("yPictureCache.pictures", new Metrics.Gauge() {
+            public long value() { return size(); }
+        });
+    }
+
+    /**
+     * Get the singleton instance of the picture cache. 
+     * 
+     * @return The picture cache.
+     */
+    public static yPictureCache instance() {
+        return instance;
+    }
+
+    /**
+     * Get the data of the bytes for a new picture. 
+     * 
+     * @param bytes The bytes of the picture file.
+     * @param owner The picture that uses the data.
+     * @return The data, shared with the other pictures of the same bytes.
+     * @throws IOException If the bytes cannot be decoded.
+     */
+    synchronized yPictureData acquire(byte[] bytes, yPicture owner) throws IOException {
+        purge();
+        String key = hash(bytes);
+        yPictureData data = entries.get(key);
+        if(data==null) {
+            try {
+                data = new yPictureData(key, bytes);
+            }
+            catch(RuntimeException e) {
+                // SWTException of an invalid or unsupported image:
+                throw new IOException("Cannot decode the picture: " + e.getMessage());
+            }
+            entries.put(key, data);
+        }
+        attach(data, owner);
+        return data;
+    }
+
+    /**
+     * Get the cached data of the same key as the data read from a file, 
+     * or cache the data if it is new. 
+     * 
+     * @param data The data read from a document file.
+     * @return The data that should be used.
+     */
+    synchronized yPictureData intern(yPictureData data) {
+        yPictureData cached = entries.get(data.getKey());
+        if(cached!=null)
+            return cached;
+        entries.put(data.getKey(), data);
+        return data;
+    }
+
+    /**
+     * Add a picture of the data, used when the picture is read from a 
+     * file. 
+     * 
+     * @param data The data returned by intern().
+     * @param owner The picture that uses the data.
+     */
+    synchronized void attach(yPictureData data, yPicture owner) {
+        purge();
+        data.refs++;
+        owners.put(new WeakReference<yPicture>(owner, queue), data);
+        startReaper();
+    }
+
+    // release each collected picture as soon as it is queued, the Images
+    // must be disposed on the UI thread. Without a display there is no
+    // Image, so acquire() and attach() purge enough:
+    private void startReaper() {
+        if(this.reaper!=null)
+            return;
+        final Display display = Display.getCurrent();
+        if(display==null)
+            return;
+        this.reaper = new Thread("Picture reaper") {
+            public void run() {
+                try {
+                    while(!display.isDisposed()) {
+                        final Reference<? extends yPicture> ref = queue.remove();
+                        if(display.isDisposed())
+                            return;
+                        display.asyncExec(new Runnable() {
+                            public void run() {
+                                release(ref);
+                            }
+                        });
+                    }
+                }
+                catch(InterruptedException e) {
+                    // stop.
+                }
+                catch(RuntimeException e) {
+                    // SWTException, the display is disposed.
+                }
+            }
+        };
+        this.reaper.setDaemon(true);
+        this.reaper.start();
+    }
+
+    /**
+     * Release the data of the collected pictures, and evict the data 
+     * that no picture uses. 
+     */
+    public synchronized void purge() {
+        Reference<? extends yPicture> ref;
+        while((ref = queue.poll())!=null)
+            release(ref);
+    }
+
+    // release the data of a collected picture, evict it if it is the last:
+    private synchronized void release(Reference<? extends yPicture> ref) {
+        yPictureData data = owners.remove(ref);
+        if(data!=null && --data.refs==0) {
+            entries.remove(data.getKey());
+            data.dispose();
+        }
+    }
+
+    /**
+     * Get how many distinct pictures are cached. 
+     * 
+     * @return The count of the cached pictures.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static String hash(byte[] bytes) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        }
+        catch(NoSuchAlgorithmException e) {
+            throw new RuntimeException(e); // every JRE has SHA-1.
+        }
+        byte[] digest = md.digest(bytes);
+        StringBuffer sb = new StringBuffer(digest.length * 2);
+        for(int i=0; i<digest.length; i++) {
+            sb.append(Character.forDigit((digest[i]>>4) & 0xf, 16));
+            sb.append(Character.forDigit(digest[i] & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Created on 2026-10-19
+ * Author: y&y, Copyright (C) 2026, y&y.
+ */
+package y.view;
+
+import java.io.ByteArrayInputStream;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * The shared data of the pictures that have the same content: the 
+ * encoded file bytes and the decoded Image. It is created and released 
+ * only by yPictureCache. <br>
+ * 
+ * It is saved with the document as the original bytes (PNG, JPEG...) 
+ * and the size. Serialization writes a shared object once, so the 
+ * pictures of the same content are stored once in the file. When it is 
+ * read back, nothing is decoded: the size is known, and the Image is 
+ * created the first time the picture is painted. <br>
+ * 
+ * A new picture only reads its size from the file header. Its pixels 
+ * are decoded in the background by decodeLater(), and the callbacks are 
+ * run on the UI thread when the Image can be created. Until then the 
+ * picture is painted as a placeholder: the thumbnail embedded in the 
+ * file (a camera JPEG has one), or else a frame. <br>
+ * 
+ * The Image is a proxy of the size the picture is painted, scaled by 
+ * yImageScaler. The full size pixels are not kept: they are decoded 
+ * again from the bytes when they are needed (export). A JPEG proxy is 
+ * decoded at 1/2, 1/4 or 1/8 of the size when that still covers the 
+ * painted size, which costs a fraction of the full decoding. 
+ * 
+ * @author y&y
+ */
+final class yPictureData implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // decode the pictures in the background:
+    private static final ExecutorService DECODER = Executors.newFixedThreadPool(
+        Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+        new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Picture decoder");
+                t.setDaemon(true);
+                t.setPriority(Thread.NORM_PRIORITY - 1);
+                return t;
+            }
+        });
+
+    // the hex SHA-1 of the bytes:
+    private final String key;
+    // the bytes of the picture file (PNG, JPEG, GIF...):
+    private final byte[] bytes;
+    private final int width;
+    private final int height;
+
+    // the images of each painted size, created when it is painted first:
+    private transient Map<Long, Image> images;
+    // the pixels decoded before the Image is created:
+    private transient ImageData pending;
+
+    // the pixels cannot be decoded, paint the placeholder:
+    private transient boolean failed;
+
+    // the embedded thumbnail, painted until the pixels are decoded:
+    private transient Image preview;
+    private transient boolean previewRead;
+
+    // the decoding in background, and the callbacks waiting for it:
+    private transient Future<?> decoding;
+    private transient List<Runnable> waiters;
+    // increased when the decoding is cancelled, to drop its late result:
+    private transient int generation;
+
+    // how many yPicture objects use it:
+    transient int refs = 0;
+
+    yPictureData(String key, byte[] bytes) {
+        this.key = key;
+        this.bytes = bytes;
+        int[] size = yImageHeader.readSize(bytes);
+        if(size==null) {
+            // unknown header, decode it now:
+            ImageData data = decode();
+            size = new int[] { data.width, data.height };
+            if(!Application.instance().isHeadless())
+                this.pending = data;
+        }
+        this.width = size[0];
+        this.height = size[1];
+    }
+
+    // share the data already in the cache:
+    private Object readResolve() throws ObjectStreamException {
+        return yPictureCache.instance().intern(this);
+    }
+
+    String getKey() {
+        return this.key;
+    }
+
+    byte[] getBytes() {
+        return this.bytes;
+    }
+
+    int getWidth() {
+        return this.width;
+    }
+
+    int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Get the Image of the painted size, create it if needed. 
+     * 
+     * @param w The painted width.
+     * @param h The painted height.
+     * @return The Image, or null when headless, while it is decoded in 
+     *         background, or if it cannot be decoded.
+     */
+    Image getImage(int w, int h) {
+        Image image = (this.images==null) ? null : this.images.get(sizeKey(w, h));
+        if(image==null && this.decoding==null && !this.failed
+            && !Application.instance().isHeadless())
+        {
+            ImageData data = this.pending;
+            this.pending = null;
+            try {
+                if(data==null || data.width<w || data.height<h)
+                    data = decode(w, h);
+                image = new Image(Display.getCurrent(), yImageScaler.scale(data, w, h));
+            }
+            catch(RuntimeException e) {
+                // SWTException of a broken picture:
+                this.failed = true;
+                return null;
+            }
+            if(this.images==null)
+                this.images = new HashMap<Long, Image>();
+            this.images.put(sizeKey(w, h), image);
+        }
+        return image;
+    }
+
+    private static Long sizeKey(int w, int h) {
+        return Long.valueOf(((long)w<<32) | h);
+    }
+
+    /**
+     * Decode and scale the pixels in the background. When it is done, 
+     * the callback is run on the UI thread, then getImage() of the size 
+     * returns without decoding. If the pixels are decoded already, or 
+     * there is no display, the callback is run at once. 
+     * 
+     * @param w The painted width.
+     * @param h The painted height.
+     * @param done The callback.
+     */
+    void decodeLater(final int w, final int h, Runnable done) {
+        final Display display = Display.getCurrent();
+        if((this.images!=null && this.images.containsKey(sizeKey(w, h)))
+            || (this.pending!=null && this.pending.width>=w && this.pending.height>=h)
+            || this.failed || display==null)
+        {
+            done.run();
+            return;
+        }
+        if(this.waiters==null)
+            this.waiters = new ArrayList<Runnable>();
+        this.waiters.add(done);
+        if(this.decoding!=null)
+            return;
+        loadPreview(display);
+        final int gen = this.generation;
+        this.decoding = DECODER.submit(new Runnable() {
+            public void run() {
+                ImageData data = null;
+                try {
+                    data = yImageScaler.scale(decode(w, h), w, h);
+                }
+                catch(RuntimeException e) {
+                    // it is reported as failed below.
+                }
+                final ImageData result = data;
+                if(!display.isDisposed()) {
+                    display.asyncExec(new Runnable() {
+                        public void run() {
+                            decoded(gen, result);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    // read the thumbnail embedded in the file, it only parses the header:
+    private void loadPreview(Display display) {
+        if(this.previewRead)
+            return;
+        this.previewRead = true;
+        try {
+            ImageData thumbnail = new ImageLoader().loadThumbnail(new ByteArrayInputStream(this.bytes));
+            if(thumbnail!=null)
+                this.preview = new Image(display, thumbnail);
+        }
+        catch(RuntimeException e) {
+            // no preview, the frame is painted.
+        }
+    }
+
+    /**
+     * Get the thumbnail embedded in the file, to paint scaled while the 
+     * pixels are decoded in the background. 
+     * 
+     * @return The thumbnail, or null if there is none or the pixels are 
+     *         decoded.
+     */
+    Image getPreview() {
+        return this.preview;
+    }
+
+    private void disposePreview() {
+        if(this.preview!=null) {
+            this.preview.dispose();
+            this.preview = null;
+        }
+    }
+
+    /**
+     * Remove a callback given to decodeLater(). The decoding is 
+     * cancelled when no callback waits for it. 
+     * 
+     * @param done The callback.
+     */
+    void cancelDecode(Runnable done) {
+        if(this.waiters==null || !this.waiters.remove(done))
+            return;
+        if(this.waiters.isEmpty() && this.decoding!=null) {
+            this.decoding.cancel(false);
+            this.decoding = null;
+            this.generation++;
+            // nobody paints the placeholder now, read it again if needed:
+            disposePreview();
+            this.previewRead = false;
+        }
+    }
+
+    // the background decoding is done, on the UI thread:
+    private void decoded(int gen, ImageData data) {
+        if(gen!=this.generation)
+            return; // cancelled.
+        this.decoding = null;
+        if(data==null)
+            this.failed = true;
+        else
+            this.pending = data;
+        disposePreview();
+        List<Runnable> list = this.waiters;
+        this.waiters = null;
+        for(int i=0; i<list.size(); i++)
+            list.get(i).run();
+    }
+
+    // decode the pixels from the bytes:
+    ImageData decode() {
+        return new ImageData(new ByteArrayInputStream(this.bytes));
+    }
+
+    // decode the pixels, the size can be reduced to not less than (w, h):
+    private ImageData decode(int w, int h) {
+        ImageLoader loader = new ImageLoader();
+        loader.targetWidth = w;
+        loader.targetHeight = h;
+        return loader.load(new ByteArrayInputStream(this.bytes))[0];
+    }
+
+    void dispose() {
+        if(this.decoding!=null) {
+            this.decoding.cancel(false);
+            this.decoding = null;
+            this.generation++;
+        }
+        this.waiters = null;
+        this.pending = null;
+        disposePreview();
+        if(this.images!=null) {
+            Iterator<Image> it = this.images.values().iterator();
+            while(it.hasNext())
+                it.next().dispose();
+            this.images = null;
+        }
+    }
+}
@@ -5,6 +5,7 @@
 package y.view;
 
 import java.io.IOException;
+import java.io.RandomAccessFile;
 
 import y.module.Picture;
 import y.module.PictureFactory;
@@ -12,7 +13,8 @@ import y.module.PictureFactory;
 
 
 /**
- * TODO Description here...
+ * Create the yPicture objects, the pictures of the same file content 
+ * share their data by yPictureCache.
  * 
  * @author Xuefeng
  */
@@ -22,8 +24,30 @@ public class yPictureFactory extends PictureFactory {
      * @see jexi.core.PictureFactory#createPicture(java.lang.String)
      */
     public Picture createPicture(String filename) throws IOException {
-        // TODO Auto-generated method stub
-        return new yPicture(filename);
+        return new yPicture(readFile(filename), Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /* (non-Javadoc)
+     * @see y.module.PictureFactory#createPicture(java.lang.String, int, int)
+     */
+    public Picture createPicture(String filename, int maxWidth, int maxHeight) throws IOException {
+        return new yPicture(readFile(filename), maxWidth, maxHeight);
+    }
+
+    // read the whole file, the picture cache needs the bytes for the key:
+    private static byte[] readFile(String filename) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        try {
+            long length = file.length();
+            if(length>Integer.MAX_VALUE)
+                throw new IOException("File too large: " + filename);
+            byte[] bytes = new byte[(int)length];
+            file.readFully(bytes);
+            return bytes;
+        }
+        finally {
+            file.close();
+        }
     }
 
 }
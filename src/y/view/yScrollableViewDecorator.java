@@ -10,6 +10,7 @@ import org.eclipse.swt.events.*;
 import org.eclipse.swt.widgets.*;
 
 import y.module.Document;
+import y.module.Trace;
 
 
 /**
@@ -54,7 +55,7 @@ public final class yScrollableViewDecorator extends yViewDecorator {
     }
 
     private void onVScrollChanged() {
-        System.out.println(sliderV.getSelection());
+        Trace.event("yScrollableViewDecorator.onVScrollChanged", sliderV.getSelection(), 0);
         setOffsetY(-sliderV.getSelection());
         this.component.getDocument().updateCaret();
     }
@@ -104,7 +105,7 @@ public final class yScrollableViewDecorator extends yViewDecorator {
      * @see jexi.ui.View#onDocumentSizeChanged()
      */
     public void onDocumentSizeChanged() {
-        System.out.println("Document size changed!!!!!!!!!!!!!!!!!");
+        Trace.event("yScrollableViewDecorator.onDocumentSizeChanged", 0, 0);
         this.component.onDocumentSizeChanged();
         resetScroll();
     }
@@ -120,7 +121,6 @@ public final class yScrollableViewDecorator extends yViewDecorator {
             else {
                 sliderV.setEnabled(true);
                 //max = max > 0 ? max : 0;
-                System.out.println("vscroll max=" + max);
                 sliderV.setMaximum(max + sliderV.getThumb());
                 sliderV.setPageIncrement( getHeight() - PAGE_STEP > 0 ? getHeight() - PAGE_STEP : 0 );
             }
@@ -132,7 +132,6 @@ public final class yScrollableViewDecorator extends yViewDecorator {
             }
             else {
                 sliderH.setEnabled(true);
-                System.out.println("hscroll max=" + max);
                 sliderH.setMaximum(max + sliderH.getThumb());
                 sliderH.setPageIncrement( getWidth() - PAGE_STEP > 0 ? getWidth() - PAGE_STEP : 0 );
             }
@@ -209,6 +208,21 @@ public final class yScrollableViewDecorator extends yViewDecorator {
 		this.component.onOpenButtonClick();
 	}
 
+	@Override
+	public void onImportTextButtonClick() {
+		this.component.onImportTextButtonClick();
+	}
+
+	@Override
+	public void onExportHtmlButtonClick() {
+		this.component.onExportHtmlButtonClick();
+	}
+
+	@Override
+	public void onExportRtfButtonClick() {
+		this.component.onExportRtfButtonClick();
+	}
+
 	@Override
 	public void onSaveAsButtonClick() {
 		this.component.onSaveAsButtonClick();
@@ -17,9 +17,12 @@ import org.eclipse.swt.widgets.*;
 
 import y.command.*;
 import y.module.Document;
+import y.module.Metrics;
 import y.module.Page;
 import y.module.PersistentDocument;
 import y.module.Position;
+import y.module.TextImporter;
+import y.module.Trace;
 
 
 
@@ -44,6 +47,8 @@ public final class yTextView implements yView {
     private static final int KEY_HOME = 16777223;
     private static final int KEY_END  = 16777224;
 
+    private static final Metrics.Histogram UPDATE = Metrics.histogram("yTextView.update.ns");
+
     // store the document:
     protected Document document;
     
@@ -138,6 +143,7 @@ public final class yTextView implements yView {
      * @see y.view.yView.View#update()
      */
     public void update() {
+        long t = System.nanoTime();
         // the drawing start point is (offset_x, offset_y):
         offset_x = getOffsetX();
         offset_y = getOffsetY();
@@ -168,6 +174,7 @@ public final class yTextView implements yView {
         if(frame.isPageChanged()){
         	frame.changePageNavigation();
         }
+        frame.updateStatusBar();
         // copy to canvas:
         GC g2 = new GC(this.canvas);
         g2.drawImage(this.backBuffer, 0, 0);
@@ -177,7 +184,8 @@ public final class yTextView implements yView {
         g.gc.setForeground(org_foreColor);
         g.gc.setBackground(org_backColor);
         g.dispose();
-
+        UPDATE.recordSince(t);
+        Trace.end("yTextView.update", t, this.width, this.height);
     }
 
     // if x is in the range [min, max], x is returned, 
@@ -194,7 +202,7 @@ public final class yTextView implements yView {
     public void onSizeChanged(int width, int height) {
         if(width<=0 || height<=0) return;
 
-        System.out.println("yTextView::onSizeChanged() width=" + width + " height=" + height);
+        Trace.event("yTextView.onSizeChanged", width, height);
         this.width = width;
         this.height = height;
 
@@ -287,7 +295,7 @@ public final class yTextView implements yView {
                 if(bLButtonDown) {
                     document.getCaret().setLocation(dx, dy);
                     document.getSelection().select(startPosition, document.getCaret().getPosition());
-                    document.getSelection().debug();
+                    Trace.event("yTextView.select", dx, dy);
                     update();
                 }
             }
@@ -300,7 +308,7 @@ public final class yTextView implements yView {
      * @see jexi.ui.View#onLButtonDown(int, int)
      */
     public void onLButtonDown(int x, int y) {
-        System.out.println("[event]LButtonDown");
+        Trace.event("yTextView.onLButtonDown", x, y);
         // TODO Auto-generated method stub
         bLButtonDown = true;
         if(bEdit) {
@@ -319,7 +327,7 @@ public final class yTextView implements yView {
      * @see jexi.ui.View#onLButtonUp(int, int)
      */
     public void onLButtonUp(int x, int y) {
-        System.out.println("[event]LButtonUp");
+        Trace.event("yTextView.onLButtonUp", x, y);
         bLButtonDown = false;
         if(bEdit) {
             int dx = transX(x);
@@ -327,7 +335,7 @@ public final class yTextView implements yView {
             if(dx>=0 && dy>=0) {
                 document.getCaret().setLocation(dx, dy);
                 document.getSelection().select(startPosition, document.getCaret().getPosition());
-                document.getSelection().debug();
+                Trace.event("yTextView.select", dx, dy);
                 update();
             }
         }
@@ -358,7 +366,7 @@ public final class yTextView implements yView {
      * @see jexi.ui.View#onSetCaret(int, int, int)
      */
     public void onSetCaret(int x, int y, int height) {
-        System.out.println("set caret at x=" + x + " y.module=" + y + " height=" + height);
+        Trace.event("yTextView.onSetCaret", x, y);
         Caret c = this.canvas.getCaret();
         c.setBounds(x+offset_x, y+offset_y, 2, height);
         this.canvas.setCaret(c);
@@ -377,7 +385,9 @@ public final class yTextView implements yView {
      */
     public void onFunctionKeyPressed(int keycode, boolean shift, boolean ctrl, boolean alt) {
         // TODO Auto-generated method stub
-        System.out.println("keycode=" + keycode + " shift=" + shift + " ctrl=" + ctrl + " alt=" + alt);
+        // the modifiers as bits, shift=1, ctrl=2, alt=4:
+        Trace.event("yTextView.onFunctionKeyPressed", keycode,
+            (shift ? 1 : 0) | (ctrl ? 2 : 0) | (alt ? 4 : 0));
         switch(keycode) {
         case KEY_RETURN:
             CommandManager.instance().newSplitCommand(document);
@@ -500,6 +510,51 @@ public final class yTextView implements yView {
     	}
     }
 
+	@Override
+    public void onImportTextButtonClick() {
+		Shell shell = frame.getShell();
+		yLanguage language = frame.getLanguage();
+		
+        FileDialog dialog = new FileDialog (shell, SWT.OPEN);
+    	dialog.setFilterNames (language.getTextFilterNames());
+    	dialog.setFilterExtensions (new String [] {"*.txt;*.log", "*.*"});
+    	String filePath = dialog.open();
+    	
+    	if(!(filePath == null || filePath == "")) {
+    		CommandManager.instance().newImportTextCommand(this, filePath, TextImporter.DEFAULT_CHARSET);
+    	}
+    }
+
+	@Override
+    public void onExportHtmlButtonClick() {
+		Shell shell = frame.getShell();
+		yLanguage language = frame.getLanguage();
+		
+        FileDialog dialog = new FileDialog (shell, SWT.SAVE);
+    	dialog.setFilterNames (language.getHtmlFilterNames());
+    	dialog.setFilterExtensions (new String [] {"*.html"});
+    	String filePath = dialog.open();
+    	
+    	if(!(filePath == null || filePath == "")) {
+    		CommandManager.instance().newExportHtmlCommand(this.document, filePath);
+    	}
+    }
+
+	@Override
+    public void onExportRtfButtonClick() {
+		Shell shell = frame.getShell();
+		yLanguage language = frame.getLanguage();
+		
+        FileDialog dialog = new FileDialog (shell, SWT.SAVE);
+    	dialog.setFilterNames (language.getRtfFilterNames());
+    	dialog.setFilterExtensions (new String [] {"*.rtf"});
+    	String filePath = dialog.open();
+    	
+    	if(!(filePath == null || filePath == "")) {
+    		CommandManager.instance().newExportRtfCommand(this.document, filePath);
+    	}
+    }
+
 	public void onRedoButtonClick() {
 		CommandManager.instance().redo();
 	}
@@ -181,6 +181,12 @@ public interface yView extends Serializable{
     
     public void onOpenButtonClick();
     
+    public void onImportTextButtonClick();
+    
+    public void onExportHtmlButtonClick();
+    
+    public void onExportRtfButtonClick();
+    
     public void onRedoButtonClick();
     
     public void onUndoButtonClick();